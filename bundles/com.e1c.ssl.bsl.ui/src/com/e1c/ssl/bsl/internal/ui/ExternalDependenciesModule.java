@@ -16,6 +16,8 @@ import org.eclipse.core.runtime.Plugin;
 import org.eclipse.xtext.naming.IQualifiedNameProvider;
 
 import com._1c.g5.wiring.AbstractServiceAwareModule;
+import com.e1c.ssl.bsl.SslModuleIndex;
+import com.e1c.ssl.bsl.TypePropertiesCache;
 
 /**
  * Guice module with external services bindings.
@@ -36,6 +38,8 @@ class ExternalDependenciesModule
     protected void doConfigure()
     {
         bind(IQualifiedNameProvider.class).toService();
+        bind(TypePropertiesCache.class).toService();
+        bind(SslModuleIndex.class).toService();
     }
 
 }
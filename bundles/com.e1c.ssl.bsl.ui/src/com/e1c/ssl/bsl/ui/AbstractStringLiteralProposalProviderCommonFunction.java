@@ -32,6 +32,7 @@ import org.eclipse.xtext.resource.IResourceServiceProvider;
 import org.eclipse.xtext.util.Pair;
 
 import com._1c.g5.v8.dt.bsl.model.Expression;
+import com._1c.g5.v8.dt.bsl.model.Invocation;
 import com._1c.g5.v8.dt.bsl.resource.DynamicFeatureAccessComputer;
 import com._1c.g5.v8.dt.bsl.resource.TypesComputer;
 import com._1c.g5.v8.dt.bsl.ui.contentassist.stringliteral.AbstractStringLiteralProposalProvider;
@@ -41,10 +42,9 @@ import com._1c.g5.v8.dt.mcore.Property;
 import com._1c.g5.v8.dt.mcore.Type;
 import com._1c.g5.v8.dt.mcore.TypeItem;
 import com._1c.g5.v8.dt.mcore.TypeSet;
-import com._1c.g5.v8.dt.mcore.util.McoreUtil;
-import com._1c.g5.v8.dt.md.resource.MdTypeUtil;
-import com._1c.g5.v8.dt.platform.IEObjectTypeNames;
-import com.google.common.base.Strings;
+import com.e1c.ssl.bsl.SslModuleIndex;
+import com.e1c.ssl.bsl.TypeKinds;
+import com.e1c.ssl.bsl.TypePropertiesCache;
 
 /**
  * Abstract class for string literal proposal provider of common module functions.
@@ -62,13 +62,26 @@ public abstract class AbstractStringLiteralProposalProviderCommonFunction
 
     private final DynamicFeatureAccessComputer dynamicFeatureAccessComputer;
 
-    public AbstractStringLiteralProposalProviderCommonFunction()
+    private final TypePropertiesCache typePropertiesCache;
+
+    private final SslModuleIndex sslModuleIndex;
+
+    /**
+     * Instantiates a new string literal proposal provider of common module function.
+     *
+     * @param typePropertiesCache the shared cache of properties of types, cannot be {@code null}.
+     * @param sslModuleIndex the index of 1C:SSL API modules, cannot be {@code null}.
+     */
+    protected AbstractStringLiteralProposalProviderCommonFunction(TypePropertiesCache typePropertiesCache,
+        SslModuleIndex sslModuleIndex)
     {
         super();
         IResourceServiceProvider rsp =
             IResourceServiceProvider.Registry.INSTANCE.getResourceServiceProvider(URI.createURI("*.bsl")); //$NON-NLS-1$
         this.typesComputer = rsp.get(TypesComputer.class);
         this.dynamicFeatureAccessComputer = rsp.get(DynamicFeatureAccessComputer.class);
+        this.typePropertiesCache = typePropertiesCache;
+        this.sslModuleIndex = sslModuleIndex;
     }
 
     /**
@@ -91,6 +104,28 @@ public abstract class AbstractStringLiteralProposalProviderCommonFunction
         return dynamicFeatureAccessComputer;
     }
 
+    /**
+     * Gets the shared cache of properties of types.
+     *
+     * @return the type properties cache
+     */
+    protected TypePropertiesCache getTypePropertiesCache()
+    {
+        return typePropertiesCache;
+    }
+
+    /**
+     * Checks that the common module of the invocation exists in the project and exports the invoked function,
+     * so the proposal provider may skip all work for projects without 1C:SSL.
+     *
+     * @param inv the invocation, cannot be {@code null}.
+     * @return true, if the invoked function is available
+     */
+    protected boolean isAvailable(Invocation inv)
+    {
+        return sslModuleIndex.isAvailable(inv);
+    }
+
     /**
      * Checks if the type item is user's object ref type, but not AnyRef.
      *
@@ -99,9 +134,7 @@ public abstract class AbstractStringLiteralProposalProviderCommonFunction
      */
     protected boolean isRefType(TypeItem item)
     {
-        String category = McoreUtil.getTypeCategory(item);
-        return !Strings.isNullOrEmpty(category) && MdTypeUtil.getRefTypeNames().contains(category)
-            && !category.equals("AnyRef"); //$NON-NLS-1$
+        return TypeKinds.isRef(item);
     }
 
     /**
@@ -131,8 +164,7 @@ public abstract class AbstractStringLiteralProposalProviderCommonFunction
         return paramTypes.stream()
             .filter(Type.class::isInstance)
             .map(Type.class::cast)
-            .filter(t -> (IEObjectTypeNames.ARRAY.equals(McoreUtil.getTypeName(t))
-                || IEObjectTypeNames.FIXED_ARRAY.equals(McoreUtil.getTypeName(t)))
+            .filter(t -> TypeKinds.is(t, TypeKinds.ANY_ARRAY)
                 && t.getCollectionElementTypes() != null
                 && !t.getCollectionElementTypes().allTypes().isEmpty())
             .flatMap(t -> t.getCollectionElementTypes().allTypes().stream())
@@ -164,23 +196,14 @@ public abstract class AbstractStringLiteralProposalProviderCommonFunction
                 allTypes.add(type);
             }
         }
-        Collection<Pair<Collection<Property>, TypeItem>> all =
-            getDynamicFeatureAccessComputer().getAllProperties(allTypes, context.eResource());
 
         if (properties.length > 1)
         {
             Set<TypeItem> result = new HashSet<>();
-            String propertyName = properties[0];
-            for (Pair<Collection<Property>, TypeItem> pair : all)
+            for (Property entry : getTypePropertiesCache().findProperties(allTypes, properties[0], context.eResource()))
             {
-                for (Property entry : pair.getFirst())
-                {
-                    if (!entry.getTypes().isEmpty() && (propertyName.equalsIgnoreCase(entry.getNameRu())
-                        || propertyName.equalsIgnoreCase(entry.getName())))
-                    {
-                        result.addAll(entry.getTypes());
-                    }
-                }
+                if (!entry.getTypes().isEmpty())
+                    result.addAll(entry.getTypes());
             }
             if (result.isEmpty())
             {
@@ -193,6 +216,9 @@ public abstract class AbstractStringLiteralProposalProviderCommonFunction
         }
         else
         {
+            Collection<Pair<Collection<Property>, TypeItem>> all =
+                getTypePropertiesCache().getAllProperties(allTypes, context.eResource());
+
             List<Property> result = new ArrayList<>();
             for (Pair<Collection<Property>, TypeItem> pair : all)
             {
@@ -44,8 +44,11 @@ import com._1c.g5.v8.dt.mcore.Property;
 import com._1c.g5.v8.dt.mcore.Type;
 import com._1c.g5.v8.dt.mcore.TypeItem;
 import com._1c.g5.v8.dt.metadata.mdclass.MdClassPackage;
+import com.e1c.ssl.bsl.SslModuleIndex;
+import com.e1c.ssl.bsl.TypePropertiesCache;
 import com.e1c.ssl.bsl.internal.ui.BslStringLiteralProposalImageProviderForMdObject;
 import com.google.common.collect.Lists;
+import com.google.inject.Inject;
 
 /**
  * @author Artem Iliukhin
@@ -57,6 +60,20 @@ public class StringLiteralProposalObjectPropertiesDetails
     private static final Collection<String> INVOCATION_NAMES =
         Set.of("objectpropertiesdetails", "описаниесвойствобъекта"); //$NON-NLS-1$ //$NON-NLS-2$
 
+    /**
+     * Instantiates a new string literal proposal provider of property names of function
+     * {@code ObjectPropertiesDetails()}.
+     *
+     * @param typePropertiesCache the shared cache of properties of types, cannot be {@code null}.
+     * @param sslModuleIndex the index of 1C:SSL API modules, cannot be {@code null}.
+     */
+    @Inject
+    public StringLiteralProposalObjectPropertiesDetails(TypePropertiesCache typePropertiesCache,
+        SslModuleIndex sslModuleIndex)
+    {
+        super(typePropertiesCache, sslModuleIndex);
+    }
+
     @Override
     public boolean isAppropriate(Triple<EObject, List<Expression>, Integer> context)
     {
@@ -92,7 +109,7 @@ public class StringLiteralProposalObjectPropertiesDetails
             {
                 String parentFeatureName =
                     ((FeatureAccess)((DynamicFeatureAccess)feature).getSource()).getName().toLowerCase();
-                return MODULE_NAMES.contains(parentFeatureName);
+                return MODULE_NAMES.contains(parentFeatureName) && isAvailable((Invocation)context.getFirst());
             }
         }
     }
@@ -184,17 +201,7 @@ public class StringLiteralProposalObjectPropertiesDetails
 
         List<TypeItem> types = this.getTypesComputer().computeTypes(expr, envs.environments());
 
-        Pair<Collection<Property>, TypeItem> all =
-            this.getDynamicFeatureAccessComputer().getAllProperties(types, envs.eResource()).iterator().next();
-
-        if (all == null)
-            return Collections.emptyList();
-
-        Property prop = all.getFirst()
-            .stream()
-            .filter(p -> p.getName().equalsIgnoreCase("Attributes")) //$NON-NLS-1$
-            .findFirst()
-            .orElse(null);
+        Property prop = getTypePropertiesCache().findProperty(types, "Attributes", envs.eResource()); //$NON-NLS-1$
 
         if (prop == null)
             return Collections.emptyList();
@@ -207,10 +214,11 @@ public class StringLiteralProposalObjectPropertiesDetails
         if (!(type instanceof Type))
             return Collections.emptyList();
 
-        all = this.getDynamicFeatureAccessComputer()
+        Pair<Collection<Property>, TypeItem> all = getTypePropertiesCache()
             .getAllProperties(((Type)type).getCollectionElementTypes().allTypes(), envs.eResource())
-            .iterator()
-            .next();
+            .stream()
+            .findFirst()
+            .orElse(null);
 
         if (all == null)
             return Collections.emptyList();
@@ -41,6 +41,8 @@ import com._1c.g5.v8.dt.mcore.DerivedProperty;
 import com._1c.g5.v8.dt.mcore.Property;
 import com._1c.g5.v8.dt.mcore.TypeItem;
 import com._1c.g5.v8.dt.metadata.mdclass.MdClassPackage.Literals;
+import com.e1c.ssl.bsl.SslModuleIndex;
+import com.e1c.ssl.bsl.TypePropertiesCache;
 import com.e1c.ssl.bsl.internal.ui.BslStringLiteralProposalImageProviderForMdObject;
 import com.google.inject.Inject;
 
@@ -66,6 +68,20 @@ public class StringLiteralProposalProviderCommonFunctionObjectAttributeValue
     @Inject
     private IQualifiedNameProvider qualifiedNameProvider;
 
+    /**
+     * Instantiates a new string literal proposal provider of attribute names of function
+     * {@code ObjectAttributeValue()}.
+     *
+     * @param typePropertiesCache the shared cache of properties of types, cannot be {@code null}.
+     * @param sslModuleIndex the index of 1C:SSL API modules, cannot be {@code null}.
+     */
+    @Inject
+    public StringLiteralProposalProviderCommonFunctionObjectAttributeValue(TypePropertiesCache typePropertiesCache,
+        SslModuleIndex sslModuleIndex)
+    {
+        super(typePropertiesCache, sslModuleIndex);
+    }
+
     @Override
     public boolean isAppropriate(Triple<EObject, List<Expression>, Integer> context)
     {
@@ -93,7 +109,7 @@ public class StringLiteralProposalProviderCommonFunctionObjectAttributeValue
             {
                 String parentFeatureName =
                     ((FeatureAccess)((DynamicFeatureAccess)feature).getSource()).getName().toLowerCase();
-                return MODULE_NAMES.contains(parentFeatureName);
+                return MODULE_NAMES.contains(parentFeatureName) && isAvailable((Invocation)context.getFirst());
             }
         }
     }
@@ -51,8 +51,10 @@ import com._1c.g5.v8.dt.lcore.naming.LowerCaseQualifiedName;
 import com._1c.g5.v8.dt.lcore.util.CaseInsensitiveString;
 import com._1c.g5.v8.dt.metadata.mdclass.MdClassPackage.Literals;
 import com.e1c.ssl.bsl.CommonFunctionCommonModuleManagerTypesComputer;
+import com.e1c.ssl.bsl.SslModuleIndex;
 import com.e1c.ssl.bsl.internal.ui.BslStringLiteralProposalImageProviderForMdObject;
 import com.google.common.collect.Lists;
+import com.google.inject.Inject;
 
 /**
  * String literal proposal proivder for function "CommonModule" of common module "Common" or "CommonClient".
@@ -75,6 +77,21 @@ public class StringLiteralProposalProviderCommonModuleManager
             CommonFunctionCommonModuleManagerTypesComputer.COMMON_CLIENT_MODULE_NAME.toLowerCase(),
             CommonFunctionCommonModuleManagerTypesComputer.COMMON_CLIENT_MODULE_NAME_RU.toLowerCase());
 
+    private final SslModuleIndex sslModuleIndex;
+
+    /**
+     * Instantiates a new string literal proposal provider of names of common modules of function
+     * {@code CommonModule()}.
+     *
+     * @param sslModuleIndex the index of 1C:SSL API modules, cannot be {@code null}.
+     */
+    @Inject
+    public StringLiteralProposalProviderCommonModuleManager(SslModuleIndex sslModuleIndex)
+    {
+        super();
+        this.sslModuleIndex = sslModuleIndex;
+    }
+
     @Override
     public boolean isAppropriate(Triple<EObject, List<Expression>, Integer> context)
     {
@@ -102,7 +119,8 @@ public class StringLiteralProposalProviderCommonModuleManager
             {
                 String parentFeatureName =
                     ((FeatureAccess)((DynamicFeatureAccess)feature).getSource()).getName().toLowerCase();
-                return MODULE_NAMES.contains(parentFeatureName);
+                return MODULE_NAMES.contains(parentFeatureName)
+                    && sslModuleIndex.isAvailable((Invocation)context.getFirst());
             }
         }
     }
@@ -43,7 +43,9 @@ import com._1c.g5.v8.dt.bsl.ui.contentassist.stringliteral.AbstractStringLiteral
 import com._1c.g5.v8.dt.lcore.naming.LowerCaseQualifiedName;
 import com._1c.g5.v8.dt.metadata.mdclass.MdClassPackage.Literals;
 import com.e1c.ssl.bsl.CommonFunctionCommonModuleManagerTypesComputer;
+import com.e1c.ssl.bsl.SslModuleIndex;
 import com.e1c.ssl.bsl.internal.ui.BslStringLiteralProposalImageProviderForMdObject;
+import com.google.inject.Inject;
 
 /**
  * String literal proposal proivder for function "SubsystemExist" of common module "Common" or "CommonClient".
@@ -65,6 +67,20 @@ public class StringLiteralProposalProviderSubsystemExist
             CommonFunctionCommonModuleManagerTypesComputer.COMMON_CLIENT_MODULE_NAME.toLowerCase(),
             CommonFunctionCommonModuleManagerTypesComputer.COMMON_CLIENT_MODULE_NAME_RU.toLowerCase());
 
+    private final SslModuleIndex sslModuleIndex;
+
+    /**
+     * Instantiates a new string literal proposal provider of names of subsystems of function {@code SubsystemExists()}.
+     *
+     * @param sslModuleIndex the index of 1C:SSL API modules, cannot be {@code null}.
+     */
+    @Inject
+    public StringLiteralProposalProviderSubsystemExist(SslModuleIndex sslModuleIndex)
+    {
+        super();
+        this.sslModuleIndex = sslModuleIndex;
+    }
+
     @Override
     public boolean isAppropriate(Triple<EObject, List<Expression>, Integer> context)
     {
@@ -92,7 +108,8 @@ public class StringLiteralProposalProviderSubsystemExist
             {
                 String parentFeatureName =
                     ((FeatureAccess)((DynamicFeatureAccess)feature).getSource()).getName().toLowerCase();
-                return MODULE_NAMES.contains(parentFeatureName);
+                return MODULE_NAMES.contains(parentFeatureName)
+                    && sslModuleIndex.isAvailable((Invocation)context.getFirst());
             }
         }
     }
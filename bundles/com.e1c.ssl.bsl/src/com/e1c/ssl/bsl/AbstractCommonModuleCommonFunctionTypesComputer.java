@@ -12,25 +12,16 @@
  *******************************************************************************/
 package com.e1c.ssl.bsl;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
-import org.eclipse.emf.common.util.URI;
-import org.eclipse.emf.ecore.util.EcoreUtil;
-import org.eclipse.xtext.EcoreUtil2;
-
-import com._1c.g5.v8.dt.bsl.model.DynamicFeatureAccess;
 import com._1c.g5.v8.dt.bsl.model.Expression;
 import com._1c.g5.v8.dt.bsl.model.Invocation;
-import com._1c.g5.v8.dt.bsl.model.StaticFeatureAccess;
 import com._1c.g5.v8.dt.bsl.resource.TypesComputer;
 import com._1c.g5.v8.dt.bsl.typesystem.IInvocationTypesComputerExtension;
 import com._1c.g5.v8.dt.bsl.typesystem.IInvocationTypesComputerParametersDependent;
-import com._1c.g5.v8.dt.mcore.Environmental;
 import com._1c.g5.v8.dt.mcore.TypeItem;
-import com._1c.g5.v8.dt.mcore.util.McoreUtil;
-import com._1c.g5.v8.dt.md.resource.MdTypeUtil;
-import com.google.common.base.Strings;
 
 /**
  * The abstract implementation of invocation types computer that dependent on invocation parameter types.
@@ -55,14 +46,60 @@ public abstract class AbstractCommonModuleCommonFunctionTypesComputer
 
     private final TypesComputer typesComputer;
 
+    private final CommonFunctionServices services;
+
     /**
      * Instantiates a new abstract common module common function types computer.
      *
      * @param typesComputer the types computer, cannot be {@code null}.
+     * @param services the services shared by computers, cannot be {@code null}.
      */
-    protected AbstractCommonModuleCommonFunctionTypesComputer(TypesComputer typesComputer)
+    protected AbstractCommonModuleCommonFunctionTypesComputer(TypesComputer typesComputer,
+        CommonFunctionServices services)
     {
         this.typesComputer = typesComputer;
+        this.services = services;
+    }
+
+    @Override
+    public List<TypeItem> getTypes(Invocation inv)
+    {
+        if (!services.getInvocationDispatcher().dispatch(this, inv) || !services.getSslModuleIndex().isAvailable(inv))
+            return Collections.emptyList();
+
+        InvocationContext context = createContext(inv);
+        return services.getInvocationTypesCache().get(this, context, () -> computeInvocationTypes(context));
+    }
+
+    /**
+     * Computes actual types of the invocation of 1C:SSL API module function. The result is cached by
+     * {@link #getTypes(Invocation)} with types of parameters of the invocation, see {@link InvocationTypesCache}.
+     *
+     * @param context the context of the invocation that is shared by all helpers of one computation,
+     * cannot be {@code null}.
+     * @return the computed types, cannot return {@code null}.
+     */
+    protected abstract List<TypeItem> computeInvocationTypes(InvocationContext context);
+
+    /**
+     * Creates the context of one computation of types of the invocation.
+     *
+     * @param inv the invocation, cannot be {@code null}.
+     * @return the new context, cannot return {@code null}.
+     */
+    protected InvocationContext createContext(Invocation inv)
+    {
+        return new InvocationContext(inv, typesComputer, services.getRuntimeVersionSupport());
+    }
+
+    /**
+     * Gets the services shared by computers.
+     *
+     * @return the services, cannot return {@code null}.
+     */
+    protected CommonFunctionServices getServices()
+    {
+        return services;
     }
 
     /**
@@ -100,29 +137,8 @@ public abstract class AbstractCommonModuleCommonFunctionTypesComputer
 
     private boolean isValidModuleNameInvocation(Invocation inv, String name, String nameRu)
     {
-
-        if (inv.getMethodAccess() instanceof DynamicFeatureAccess)
-        {
-            DynamicFeatureAccess dfa = (DynamicFeatureAccess)inv.getMethodAccess();
-            if (dfa.getSource() instanceof StaticFeatureAccess)
-            {
-                String moduleName = ((StaticFeatureAccess)dfa.getSource()).getName();
-                if (moduleName != null && (moduleName.equalsIgnoreCase(nameRu) || moduleName.equalsIgnoreCase(name)))
-                {
-                    return true;
-                }
-            }
-        }
-        else if (inv.getMethodAccess() instanceof StaticFeatureAccess)
-        {
-            URI uri = EcoreUtil.getURI(inv);
-            String moduleName = uri.segment(uri.segmentCount() - 1);
-            if (nameRu.equalsIgnoreCase(moduleName) || name.equalsIgnoreCase(moduleName))
-            {
-                return true;
-            }
-        }
-        return false;
+        String moduleName = services.getInvocationDispatcher().getModuleName(inv);
+        return moduleName != null && (moduleName.equalsIgnoreCase(nameRu) || moduleName.equalsIgnoreCase(name));
     }
 
     /**
@@ -133,21 +149,19 @@ public abstract class AbstractCommonModuleCommonFunctionTypesComputer
      */
     protected boolean isRefType(TypeItem item)
     {
-        String category = McoreUtil.getTypeCategory(item);
-        return !Strings.isNullOrEmpty(category) && MdTypeUtil.getRefTypeNames().contains(category)
-            && !category.equals("AnyRef"); //$NON-NLS-1$
+        return TypeKinds.isRef(item);
     }
 
     /**
      * Gets the return only ref types of given expression.
      *
+     * @param context the context of the invocation, cannot be {@code null}.
      * @param expr the expression to compute types, cannot be {@code null}.
      * @return the return ref types, cannot return {@code null}.
      */
-    protected List<TypeItem> getReturnRefTypes(Expression expr)
+    protected List<TypeItem> getReturnRefTypes(InvocationContext context, Expression expr)
     {
-        Environmental environmental = EcoreUtil2.getContainerOfType(expr, Environmental.class);
-        List<TypeItem> paramTypes = typesComputer.computeTypes(expr, environmental.environments());
+        List<TypeItem> paramTypes = context.getTypes(expr);
         return paramTypes.stream().filter(this::isRefType).collect(Collectors.toList());
     }
 
@@ -12,19 +12,21 @@
  *******************************************************************************/
 package com.e1c.ssl.bsl;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
-import org.eclipse.xtext.EcoreUtil2;
-
 import com._1c.g5.v8.dt.bsl.model.Expression;
 import com._1c.g5.v8.dt.bsl.resource.DynamicFeatureAccessComputer;
 import com._1c.g5.v8.dt.bsl.resource.TypesComputer;
-import com._1c.g5.v8.dt.mcore.Environmental;
+import com._1c.g5.v8.dt.mcore.ContextDefWithRefItem;
+import com._1c.g5.v8.dt.mcore.DerivedProperty;
+import com._1c.g5.v8.dt.mcore.McoreFactory;
+import com._1c.g5.v8.dt.mcore.Property;
 import com._1c.g5.v8.dt.mcore.Type;
+import com._1c.g5.v8.dt.mcore.TypeContainerRef;
 import com._1c.g5.v8.dt.mcore.TypeItem;
-import com._1c.g5.v8.dt.mcore.util.McoreUtil;
-import com._1c.g5.v8.dt.platform.IEObjectTypeNames;
 import com._1c.g5.v8.dt.platform.version.IRuntimeVersionSupport;
 
 /**
@@ -37,8 +39,6 @@ import com._1c.g5.v8.dt.platform.version.IRuntimeVersionSupport;
 public abstract class AbstractCommonModuleObjectAttributeValueTypesComputer
     extends AbstractCommonModuleCommonFunctionTypesComputer
 {
-    private final TypesComputer typesComputer;
-
     private final DynamicFeatureAccessComputer dynamicFeatureAccessComputer;
 
     protected final IRuntimeVersionSupport versionSupport;
@@ -49,12 +49,13 @@ public abstract class AbstractCommonModuleObjectAttributeValueTypesComputer
      * @param typesComputer the types computer, cannot be {@code null}.
      * @param versionSupport the version support, cannot be {@code null}.
      * @param dynamicFeatureAccessComputer the dynamic feature access computer, cannot be {@code null}.
+     * @param services the services shared by computers, cannot be {@code null}.
      */
     protected AbstractCommonModuleObjectAttributeValueTypesComputer(TypesComputer typesComputer,
-        IRuntimeVersionSupport versionSupport, DynamicFeatureAccessComputer dynamicFeatureAccessComputer)
+        IRuntimeVersionSupport versionSupport, DynamicFeatureAccessComputer dynamicFeatureAccessComputer,
+        CommonFunctionServices services)
     {
-        super(typesComputer);
-        this.typesComputer = typesComputer;
+        super(typesComputer, services);
         this.dynamicFeatureAccessComputer = dynamicFeatureAccessComputer;
         this.versionSupport = versionSupport;
 
@@ -70,22 +71,111 @@ public abstract class AbstractCommonModuleObjectAttributeValueTypesComputer
         return dynamicFeatureAccessComputer;
     }
 
+    /**
+     * Gets the templates of platform types resolved per runtime version.
+     *
+     * @return the platform type templates
+     */
+    protected PlatformTypeTemplates getPlatformTypes()
+    {
+        return getServices().getPlatformTypes();
+    }
+
+    /**
+     * Gets the shared cache of properties of types.
+     *
+     * @return the type properties cache
+     */
+    protected TypePropertiesCache getTypePropertiesCache()
+    {
+        return getServices().getTypePropertiesCache();
+    }
+
+    /**
+     * Gets the pool of synthetic types shared between computers.
+     *
+     * @return the synthetic type pool
+     */
+    protected SyntheticTypePool getSyntheticTypePool()
+    {
+        return getServices().getSyntheticTypePool();
+    }
+
+    /**
+     * Creates the structure type with the properties. The derived properties with the same access are referenced
+     * from the new type without copying, and only other derived properties are copied with the given access,
+     * so wide tables do not create a property and a type container per column. The type is shared with other
+     * invocations with the same properties in {@link SyntheticTypePool}.
+     *
+     * @param typeName the name of the structure type: {@code Structure} or {@code FixedStructure},
+     * cannot be {@code null}.
+     * @param properties the source properties, not derived properties are skipped, cannot be {@code null}.
+     * @param writable the properties of the new structure are writable
+     * @param context the context of the invocation to resolve the type, cannot be {@code null}.
+     * @return the new structure type, may return {@code null} if the type cannot be resolved.
+     */
+    protected Type createStructureType(String typeName, Collection<Property> properties, boolean writable,
+        InvocationContext context)
+    {
+        Type template = getPlatformTypes().getTemplate(typeName, context);
+        if (template == null)
+            return null;
+
+        List<Object> signature = new ArrayList<>(properties.size() + 1);
+        signature.add(writable);
+        signature.addAll(properties);
+        return getSyntheticTypePool().get(typeName, context, signature,
+            () -> createStructureType(typeName, properties, writable, context));
+    }
+
+    private Type createStructureType(String typeName, Collection<Property> properties, boolean writable,
+        InvocationContext context)
+    {
+        Type type = getPlatformTypes().createReferencingType(typeName, context);
+        if (type == null)
+            return null;
+
+        ContextDefWithRefItem contextDef = (ContextDefWithRefItem)type.getContextDef();
+        for (Property property : properties)
+        {
+            if (!(property instanceof DerivedProperty))
+                continue;
+
+            if (property.isReadable() && property.isWritable() == writable)
+            {
+                contextDef.getRefProperties().add(property);
+            }
+            else
+            {
+                DerivedProperty newProperty = McoreFactory.eINSTANCE.createDerivedProperty();
+                newProperty.setName(property.getName());
+                newProperty.setNameRu(property.getNameRu());
+                newProperty.setReadable(true);
+                newProperty.setWritable(writable);
+                newProperty.setTypeContainer(McoreFactory.eINSTANCE.createTypeContainerRef());
+                ((TypeContainerRef)newProperty.getTypeContainer()).getTypes().addAll(property.getTypes());
+                newProperty.setSource(((DerivedProperty)property).getSource());
+                contextDef.getProperties().add(newProperty);
+            }
+        }
+        return type;
+    }
+
     /**
      * Gets the returning ref types from array containing types.
      *
+     * @param context the context of the invocation
      * @param expr the expression to compute ref types
      * @return the return ref types
      */
-    protected List<TypeItem> getReturnArrayRefTypes(Expression expr)
+    protected List<TypeItem> getReturnArrayRefTypes(InvocationContext context, Expression expr)
     {
-        Environmental environmental = EcoreUtil2.getContainerOfType(expr, Environmental.class);
-        List<TypeItem> paramTypes = typesComputer.computeTypes(expr, environmental.environments());
+        List<TypeItem> paramTypes = context.getTypes(expr);
         //@formatter:off
         return paramTypes.stream()
             .filter(Type.class::isInstance)
             .map(Type.class::cast)
-            .filter(t -> (IEObjectTypeNames.ARRAY.equals(McoreUtil.getTypeName(t))
-                || IEObjectTypeNames.FIXED_ARRAY.equals(McoreUtil.getTypeName(t)))
+            .filter(t -> TypeKinds.is(t, TypeKinds.ANY_ARRAY)
                 && t.getCollectionElementTypes() != null
                 && !t.getCollectionElementTypes().allTypes().isEmpty())
             .flatMap(t -> t.getCollectionElementTypes().allTypes().stream())
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (C) 2022, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.ssl.bsl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The tokenizer of comma separated lists of attribute names like {@code "Ref, Description, Owner.Code"}.
+ * The list is read in one pass: whitespaces, quotes and line continuation characters of string literals are skipped,
+ * and each name is returned with the offset of its first character in the source text.
+ * So the same tokenizer reads both the computed string content and the source text of the string literal.
+ *
+ * @author Dmitriy Marmyshev
+ */
+final class AttributeListTokenizer
+{
+
+    private static final char SEPARATOR = ',';
+
+    private static final char QUOTE = '"';
+
+    private static final char LINE_CONTINUATION = '|';
+
+    private AttributeListTokenizer()
+    {
+        // Utility class
+    }
+
+    /**
+     * Splits the text to the names of attributes.
+     *
+     * @param text the text of list of attributes, cannot be {@code null}.
+     * @return the spans of names in the order of the text including empty names between separators,
+     * cannot return {@code null}.
+     */
+    static List<Span> tokenize(CharSequence text)
+    {
+        List<Span> result = new ArrayList<>();
+        int length = text.length();
+        int start = 0;
+        while (start <= length)
+        {
+            int first = -1;
+            int last = -1;
+            boolean gaps = false;
+            int end = start;
+            for (; end < length && text.charAt(end) != SEPARATOR; end++)
+            {
+                if (isSkipped(text.charAt(end)))
+                    continue;
+
+                if (first < 0)
+                    first = end;
+                else if (last != end - 1)
+                    gaps = true;
+                last = end;
+            }
+
+            if (first < 0)
+                result.add(new Span("", start)); //$NON-NLS-1$
+            else if (!gaps)
+                result.add(new Span(text.subSequence(first, last + 1).toString(), first));
+            else
+                result.add(new Span(join(text, first, last), first));
+
+            start = end + 1;
+        }
+        return result;
+    }
+
+    private static String join(CharSequence text, int first, int last)
+    {
+        StringBuilder name = new StringBuilder(last - first + 1);
+        for (int i = first; i <= last; i++)
+        {
+            char c = text.charAt(i);
+            if (!isSkipped(c))
+                name.append(c);
+        }
+        return name.toString();
+    }
+
+    private static boolean isSkipped(char c)
+    {
+        return Character.isWhitespace(c) || c == QUOTE || c == LINE_CONTINUATION;
+    }
+
+    /**
+     * The name of attribute with its offset in the source text.
+     */
+    static final class Span
+    {
+        private final String name;
+
+        private final int offset;
+
+        Span(String name, int offset)
+        {
+            this.name = name;
+            this.offset = offset;
+        }
+
+        /**
+         * Gets the name of attribute without whitespaces, may be a dotted path of attributes.
+         *
+         * @return the name, cannot return {@code null} but may be empty.
+         */
+        String getName()
+        {
+            return name;
+        }
+
+        /**
+         * Gets the offset of the first character of the name in the source text.
+         *
+         * @return the offset
+         */
+        int getOffset()
+        {
+            return offset;
+        }
+    }
+}
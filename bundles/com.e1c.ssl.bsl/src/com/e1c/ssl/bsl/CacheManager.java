@@ -0,0 +1,380 @@
+/*******************************************************************************
+ * Copyright (C) 2022, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.ssl.bsl;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+
+import com.e1c.ssl.bsl.internal.BslPlugin;
+import com.google.inject.Singleton;
+
+/**
+ * The manager of memory of caches of this bundle. Caches register their entries in regions of projects, and caches
+ * that keep their own maps by projects register themselves as {@link ProjectCache}, so the region of the project is
+ * released when the project is closed or deleted. Entries that do not belong to a project, like properties of types
+ * of the platform, are kept in the shared region.
+ * <br>
+ * The total size of entries of all regions is limited by {@link #MAX_ENTRIES_PROPERTY}. When the budget is exceeded,
+ * least recently used entries of all projects are evicted until the size is three quarters of the budget.
+ * The access of the entry is the stamp of the last registration, so the access is not synchronized and the order
+ * of entries accessed between two registrations is not distinguished.
+ * <br>
+ * The manager evicts half of entries when the usage of any heap memory pool after the garbage collection exceeds
+ * its threshold, so caches shrink before the heap is full. The usage after the collection is the memory that is
+ * really retained, unlike the current usage that exceeds the threshold each time the young generation fills up with
+ * garbage. Thresholds and the listener of the memory bean are global for the process, so they are owned by all
+ * managers together: the first manager sets the threshold to {@link #MEMORY_THRESHOLD_PROPERTY} percent of
+ * the maximum size only for heap memory pools whose threshold is not set, and the last disposed manager resets
+ * only thresholds that are still the ones it set.
+ * <br>
+ * The size of the entry is the number of values or properties kept by the entry, see
+ * {@link #setSize(Entry, int)}, so the budget is closer to the retained memory than the number of entries.
+ *
+ * @author Dmitriy Marmyshev
+ */
+@Singleton
+public class CacheManager
+    implements IResourceChangeListener
+{
+
+    /**
+     * The name of the system property with the maximum total size of entries of all caches.
+     */
+    public static final String MAX_ENTRIES_PROPERTY = "com.e1c.ssl.bsl.cache.maxEntries"; //$NON-NLS-1$
+
+    /**
+     * The name of the system property with the collection usage threshold of heap memory pools in percents of their
+     * maximum size, the value {@code 0} or less disables setting of thresholds.
+     */
+    public static final String MEMORY_THRESHOLD_PROPERTY = "com.e1c.ssl.bsl.cache.memoryThreshold"; //$NON-NLS-1$
+
+    private static final long MAX_ENTRIES = Math.max(1, Long.getLong(MAX_ENTRIES_PROPERTY, 200_000));
+
+    private static final int MEMORY_THRESHOLD = Math.min(99, Integer.getInteger(MEMORY_THRESHOLD_PROPERTY, 85));
+
+    private static final Object SHARED = new Object();
+
+    private final Map<Object, Set<Entry>> regions = new HashMap<>();
+
+    private final List<ProjectCache> projectCaches = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private long size;
+
+    /**
+     * Instantiates a new cache manager and starts listening to usage of heap memory.
+     */
+    public CacheManager()
+    {
+        MemoryWatcher.register(this);
+    }
+
+    /**
+     * Adds the cache that keeps its own data by projects.
+     *
+     * @param cache the cache, cannot be {@code null}.
+     */
+    public void addProjectCache(ProjectCache cache)
+    {
+        projectCaches.add(cache);
+    }
+
+    /**
+     * Marks the entry as recently used, and registers the entry in the region of the project if the entry is not
+     * registered or was evicted. The method evicts entries if the budget is exceeded, so it should not be called
+     * under locks of caches.
+     *
+     * @param project the project of the entry, may be {@code null} if the entry does not belong to a project.
+     * @param entry the entry, cannot be {@code null}.
+     */
+    public void access(IProject project, Entry entry)
+    {
+        if (entry.region != null)
+        {
+            entry.access = clock.get();
+            return;
+        }
+
+        List<Entry> evicted;
+        synchronized (this)
+        {
+            if (entry.region == null)
+            {
+                entry.region = project == null ? SHARED : project;
+                entry.access = clock.incrementAndGet();
+                regions.computeIfAbsent(entry.region, key -> new HashSet<>()).add(entry);
+                size += entry.size;
+            }
+            evicted = size > MAX_ENTRIES ? select(MAX_ENTRIES / 4 * 3) : List.of();
+        }
+        evict(evicted);
+    }
+
+    /**
+     * Sets the size of the registered entry, like the number of values kept by the entry.
+     *
+     * @param entry the entry, cannot be {@code null}.
+     * @param entrySize the new size of the entry
+     */
+    public synchronized void setSize(Entry entry, int entrySize)
+    {
+        if (entry.region != null)
+            size += entrySize - entry.size;
+        entry.size = entrySize;
+    }
+
+    /**
+     * Removes the entry that is dropped by its cache.
+     *
+     * @param entry the entry, cannot be {@code null}.
+     */
+    public synchronized void remove(Entry entry)
+    {
+        if (entry.region == null)
+            return;
+
+        Set<Entry> region = regions.get(entry.region);
+        if (region != null)
+            region.remove(entry);
+        size -= entry.size;
+        entry.region = null;
+    }
+
+    /**
+     * Gets the total size of registered entries.
+     *
+     * @return the size of entries
+     */
+    public synchronized long getSize()
+    {
+        return size;
+    }
+
+    /**
+     * Evicts all entries of the project and clears data of the project in all caches.
+     *
+     * @param project the project, cannot be {@code null}.
+     */
+    public void clear(IProject project)
+    {
+        List<Entry> evicted;
+        synchronized (this)
+        {
+            Set<Entry> region = regions.remove(project);
+            evicted = region == null ? List.of() : new ArrayList<>(region);
+            for (Entry entry : evicted)
+            {
+                size -= entry.size;
+                entry.region = null;
+            }
+        }
+        evict(evicted);
+
+        for (ProjectCache cache : projectCaches)
+            cache.clearProject(project);
+    }
+
+    /**
+     * Evicts least recently used entries of all projects until the total size is reduced to the given one.
+     *
+     * @param target the target total size of entries
+     */
+    public void shrink(long target)
+    {
+        List<Entry> evicted;
+        synchronized (this)
+        {
+            evicted = select(target);
+        }
+        evict(evicted);
+    }
+
+    @Override
+    public void resourceChanged(IResourceChangeEvent event)
+    {
+        if (event.getResource() instanceof IProject
+            && (event.getType() == IResourceChangeEvent.PRE_CLOSE
+                || event.getType() == IResourceChangeEvent.PRE_DELETE))
+        {
+            clear((IProject)event.getResource());
+        }
+    }
+
+    /**
+     * Stops listening to usage of heap memory and evicts all entries. Thresholds of memory pools are reset
+     * when the last manager is disposed.
+     */
+    public void dispose()
+    {
+        MemoryWatcher.unregister(this);
+        shrink(0);
+        projectCaches.clear();
+    }
+
+    /**
+     * Selects least recently used entries to evict and removes them from regions. The selected entries are evicted
+     * by caches out of the lock of the manager, because caches may call the manager under their own locks.
+     */
+    private List<Entry> select(long target)
+    {
+        if (size <= target)
+            return List.of();
+
+        List<Entry> entries = new ArrayList<>();
+        for (Set<Entry> region : regions.values())
+            entries.addAll(region);
+        entries.sort(Comparator.comparingLong(entry -> entry.access));
+
+        List<Entry> result = new ArrayList<>();
+        for (Entry entry : entries)
+        {
+            if (size <= target)
+                break;
+
+            regions.get(entry.region).remove(entry);
+            size -= entry.size;
+            entry.region = null;
+            result.add(entry);
+        }
+        regions.values().removeIf(Set::isEmpty);
+        return result;
+    }
+
+    private void evict(List<Entry> entries)
+    {
+        for (Entry entry : entries)
+            entry.evict();
+    }
+
+    /**
+     * The entry of the cache that is kept in the region of the project and evicted by the manager.
+     */
+    public abstract static class Entry
+    {
+        private volatile Object region;
+
+        private volatile long access;
+
+        private int size = 1;
+
+        /**
+         * Drops the entry from its cache. The method is called out of the lock of the manager, the entry is
+         * already removed from the manager.
+         */
+        protected abstract void evict();
+    }
+
+    /**
+     * The process-wide owner of collection usage thresholds of heap memory pools and of the listener of the memory
+     * bean, that are shared by all managers, like managers of several injectors.
+     */
+    private static final class MemoryWatcher
+    {
+        private static final List<CacheManager> MANAGERS = new CopyOnWriteArrayList<>();
+
+        private static final Map<MemoryPoolMXBean, Long> THRESHOLDS = new HashMap<>();
+
+        private static final NotificationListener LISTENER = MemoryWatcher::handleNotification;
+
+        private MemoryWatcher()
+        {
+            // Utility class
+        }
+
+        static synchronized void register(CacheManager manager)
+        {
+            MANAGERS.add(manager);
+            if (MANAGERS.size() > 1)
+                return;
+
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+            {
+                if (MEMORY_THRESHOLD <= 0 || pool.getType() != MemoryType.HEAP
+                    || !pool.isCollectionUsageThresholdSupported() || pool.getCollectionUsageThreshold() > 0
+                    || pool.getUsage().getMax() <= 0)
+                    continue;
+
+                long threshold = pool.getUsage().getMax() / 100 * MEMORY_THRESHOLD;
+                pool.setCollectionUsageThreshold(threshold);
+                THRESHOLDS.put(pool, threshold);
+            }
+            ((NotificationEmitter)ManagementFactory.getMemoryMXBean()).addNotificationListener(LISTENER, null, null);
+        }
+
+        static synchronized void unregister(CacheManager manager)
+        {
+            if (!MANAGERS.remove(manager) || !MANAGERS.isEmpty())
+                return;
+
+            try
+            {
+                ((NotificationEmitter)ManagementFactory.getMemoryMXBean()).removeNotificationListener(LISTENER);
+            }
+            catch (ListenerNotFoundException e)
+            {
+                BslPlugin.logError(e);
+            }
+
+            // The threshold that is changed by someone else since it was set is not reset
+            for (Map.Entry<MemoryPoolMXBean, Long> entry : THRESHOLDS.entrySet())
+            {
+                if (entry.getKey().getCollectionUsageThreshold() == entry.getValue())
+                    entry.getKey().setCollectionUsageThreshold(0);
+            }
+            THRESHOLDS.clear();
+        }
+
+        private static void handleNotification(Notification notification, Object handback)
+        {
+            if (!MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(notification.getType()))
+                return;
+
+            for (CacheManager manager : MANAGERS)
+                manager.shrink(manager.getSize() / 2);
+        }
+    }
+
+    /**
+     * The cache that keeps its own data by projects.
+     */
+    public interface ProjectCache
+    {
+        /**
+         * Clears all data of the closed or deleted project.
+         *
+         * @param project the project, cannot be {@code null}.
+         */
+        void clearProject(IProject project);
+    }
+}
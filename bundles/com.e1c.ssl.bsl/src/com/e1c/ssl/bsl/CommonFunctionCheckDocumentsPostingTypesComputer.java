@@ -15,13 +15,10 @@ package com.e1c.ssl.bsl;
 import java.util.Collections;
 import java.util.List;
 
-import org.eclipse.xtext.EcoreUtil2;
-
 import com._1c.g5.v8.dt.bsl.model.Expression;
 import com._1c.g5.v8.dt.bsl.model.Invocation;
 import com._1c.g5.v8.dt.bsl.resource.DynamicFeatureAccessComputer;
 import com._1c.g5.v8.dt.bsl.resource.TypesComputer;
-import com._1c.g5.v8.dt.mcore.Environmental;
 import com._1c.g5.v8.dt.mcore.TypeItem;
 import com._1c.g5.v8.dt.platform.version.IRuntimeVersionSupport;
 import com.google.inject.Inject;
@@ -36,20 +33,18 @@ import com.google.inject.Inject;
 public class CommonFunctionCheckDocumentsPostingTypesComputer
     extends AbstractCommonModuleObjectAttributeValueTypesComputer
 {
-    private final TypesComputer typesComputer;
-
     @Inject
     public CommonFunctionCheckDocumentsPostingTypesComputer(TypesComputer typesComputer,
-        IRuntimeVersionSupport versionSupport, DynamicFeatureAccessComputer dynamicFeatureAccessComputer)
+        IRuntimeVersionSupport versionSupport, DynamicFeatureAccessComputer dynamicFeatureAccessComputer,
+        CommonFunctionServices services)
     {
-        super(typesComputer, versionSupport, dynamicFeatureAccessComputer);
-        this.typesComputer = typesComputer;
+        super(typesComputer, versionSupport, dynamicFeatureAccessComputer, services);
     }
 
     @Override
-    public List<TypeItem> getTypes(Invocation inv)
+    protected List<TypeItem> computeInvocationTypes(InvocationContext context)
     {
-
+        Invocation inv = context.getInvocation();
         if (inv.getParams().size() != 1)
             return Collections.emptyList();
 
@@ -59,8 +54,7 @@ public class CommonFunctionCheckDocumentsPostingTypesComputer
         Expression expr = inv.getParams().get(0);
         if (expr != null)
         {
-            Environmental envs = EcoreUtil2.getContainerOfType(expr, Environmental.class);
-            return typesComputer.computeTypes(expr, envs.environments());
+            return context.getTypes(expr);
         }
 
         return Collections.emptyList();
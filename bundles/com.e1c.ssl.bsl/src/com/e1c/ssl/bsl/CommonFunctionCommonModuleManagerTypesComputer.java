@@ -12,32 +12,19 @@
  *******************************************************************************/
 package com.e1c.ssl.bsl;
 
-import static com._1c.g5.v8.dt.mcore.McorePackage.Literals.TYPE_DESCRIPTION__TYPES;
-
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
-import org.eclipse.emf.ecore.util.EcoreUtil;
-import org.eclipse.xtext.EcoreUtil2;
 import org.eclipse.xtext.naming.QualifiedName;
-import org.eclipse.xtext.resource.IEObjectDescription;
-import org.eclipse.xtext.scoping.IScope;
-import org.eclipse.xtext.scoping.IScopeProvider;
 import org.eclipse.xtext.util.Pair;
 
-import com._1c.g5.v8.dt.bsl.model.BslFactory;
-import com._1c.g5.v8.dt.bsl.model.BslPackage;
 import com._1c.g5.v8.dt.bsl.model.Invocation;
-import com._1c.g5.v8.dt.bsl.model.Method;
-import com._1c.g5.v8.dt.bsl.model.Module;
 import com._1c.g5.v8.dt.bsl.model.StringLiteral;
-import com._1c.g5.v8.dt.bsl.model.VariablesScopeSpec;
 import com._1c.g5.v8.dt.bsl.resource.TypesComputer;
 import com._1c.g5.v8.dt.mcore.DerivedProperty;
-import com._1c.g5.v8.dt.mcore.Environmental;
-import com._1c.g5.v8.dt.mcore.McorePackage;
 import com._1c.g5.v8.dt.mcore.Type;
 import com._1c.g5.v8.dt.mcore.TypeItem;
 import com.google.common.collect.ImmutableMap;
@@ -108,37 +95,43 @@ public class CommonFunctionCommonModuleManagerTypesComputer
 
     private final ExpressionValueComputer expressionValueComputer;
 
-    private final IScopeProvider scopeProvider;
+    private final ManagerScopeCache managerScopeCache;
 
     @Inject
     public CommonFunctionCommonModuleManagerTypesComputer(TypesComputer typesComputer,
-        ExpressionValueComputer expressionValueComputer, IScopeProvider scopeProvider)
+        ExpressionValueComputer expressionValueComputer, ManagerScopeCache managerScopeCache,
+        CommonFunctionServices services)
     {
-        super(typesComputer);
+        super(typesComputer, services);
         this.expressionValueComputer = expressionValueComputer;
-        this.scopeProvider = scopeProvider;
+        this.managerScopeCache = managerScopeCache;
     }
 
     @Override
-    public List<TypeItem> getTypes(Invocation inv)
+    protected List<TypeItem> computeInvocationTypes(InvocationContext context)
     {
+        Invocation inv = context.getInvocation();
         if (inv.getParams().isEmpty())
             return Collections.emptyList();
 
-        Pair<String, Collection<StringLiteral>> paramContent =
-            expressionValueComputer.getExpressionContent(inv.getParams().get(0));
+        // The name may be assigned in branches, so types of all possible names are returned
+        List<Pair<String, Collection<StringLiteral>>> paramContents =
+            expressionValueComputer.getExpressionContents(inv.getParams().get(0));
 
-        if (inv.getParams().size() != 1 || paramContent == null)
+        if (inv.getParams().size() != 1 || paramContents.isEmpty())
             return Collections.emptyList();
 
         if (isValidModuleNameInvocation(inv) || isValidClientModuleNameInvocation(inv))
         {
-            return computeTypes(inv, paramContent.getFirst());
+            List<TypeItem> result = new ArrayList<>();
+            for (Pair<String, Collection<StringLiteral>> paramContent : paramContents)
+                result.addAll(computeTypes(context, paramContent.getFirst()));
+            return result;
         }
         return Collections.emptyList();
     }
 
-    protected List<TypeItem> computeTypes(Invocation inv, String paramContent)
+    protected List<TypeItem> computeTypes(InvocationContext context, String paramContent)
     {
         if (paramContent.split(System.lineSeparator()).length == 1)
         {
@@ -147,33 +140,17 @@ public class CommonFunctionCommonModuleManagerTypesComputer
             if (parts.length == 1)
             {
 
-                VariablesScopeSpec spec = BslFactory.eINSTANCE.createVariablesScopeSpec();
-                Module module = EcoreUtil2.getContainerOfType(inv, Module.class);
-                Method method = EcoreUtil2.getContainerOfType(inv, Method.class);
-                spec.setModule(module);
-                spec.setMethod(method);
-                Environmental environmental = EcoreUtil2.getContainerOfType(inv, Environmental.class);
-                spec.setEnvironments(environmental.environments());
-
-                IScope scope = scopeProvider.getScope(spec, BslPackage.Literals.FAKE_REFERENCE__PROPERTY);
-                IEObjectDescription elem = scope.getSingleElement(QualifiedName.create(parts[0]));
-                if (elem != null && elem.getEClass() == McorePackage.Literals.DERIVED_PROPERTY)
-                {
-                    DerivedProperty result = (DerivedProperty)EcoreUtil.resolve(elem.getEObjectOrProxy(), inv);
+                DerivedProperty result = managerScopeCache.getProperty(QualifiedName.create(parts[0]), context);
+                if (result != null)
                     return result.getTypes();
-                }
             }
             else if (parts.length == 2 && MANAGER_MODULE_BASE.containsKey(parts[0].toLowerCase()))
             {
 
-                IScope scope = scopeProvider.getScope(inv, TYPE_DESCRIPTION__TYPES);
                 QualifiedName fqn = MANAGER_MODULE_BASE.get(parts[0].toLowerCase()).append(parts[1]);
-                IEObjectDescription elem = scope.getSingleElement(fqn);
-                if (elem != null && elem.getEClass() == McorePackage.Literals.TYPE)
-                {
-                    Type type = (Type)EcoreUtil.resolve(elem.getEObjectOrProxy(), inv);
+                Type type = managerScopeCache.getType(fqn, context);
+                if (type != null)
                     return Lists.newArrayList(type);
-                }
             }
         }
 
@@ -13,26 +13,18 @@
  *******************************************************************************/
 package com.e1c.ssl.bsl;
 
-import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.eclipse.emf.common.util.EList;
-import org.eclipse.xtext.EcoreUtil2;
-import org.eclipse.xtext.util.Pair;
 
 import com._1c.g5.v8.dt.bsl.model.BooleanLiteral;
 import com._1c.g5.v8.dt.bsl.model.Expression;
 import com._1c.g5.v8.dt.bsl.model.Invocation;
-import com._1c.g5.v8.dt.bsl.resource.DynamicFeatureAccessComputer;
 import com._1c.g5.v8.dt.bsl.resource.TypesComputer;
-import com._1c.g5.v8.dt.mcore.Environmental;
-import com._1c.g5.v8.dt.mcore.Property;
 import com._1c.g5.v8.dt.mcore.TypeItem;
-import com._1c.g5.v8.dt.mcore.util.McoreUtil;
-import com._1c.g5.v8.dt.platform.IEObjectTypeNames;
 import com.google.inject.Inject;
 
 /**
@@ -48,26 +40,21 @@ public class CommonFunctionCopyRecursiveTypesComputer
     extends AbstractCommonModuleCommonFunctionTypesComputer
 {
 
-    private final TypesComputer typesComputer;
-
     private final TypesComputerHelper typesComputerHelper;
 
-    private final DynamicFeatureAccessComputer dynamicFeatureAccessComputer;
-
     @Inject
     public CommonFunctionCopyRecursiveTypesComputer(TypesComputerHelper typesComputerHelper,
-        TypesComputer typesComputer, DynamicFeatureAccessComputer dynamicFeatureAccessComputer)
+        TypesComputer typesComputer, CommonFunctionServices services)
     {
-        super(typesComputer);
-        this.typesComputer = typesComputer;
+        super(typesComputer, services);
         this.typesComputerHelper = typesComputerHelper;
-        this.dynamicFeatureAccessComputer = dynamicFeatureAccessComputer;
 
     }
 
     @Override
-    public List<TypeItem> getTypes(Invocation inv)
+    protected List<TypeItem> computeInvocationTypes(InvocationContext context)
     {
+        Invocation inv = context.getInvocation();
         EList<Expression> params = inv.getParams();
         if (params.isEmpty() || params.size() > 2)
             return Collections.emptyList();
@@ -84,19 +71,16 @@ public class CommonFunctionCopyRecursiveTypesComputer
         Optional<Boolean> needTransformCollectionType = needTransformCollectionType(params);
         if (params.size() == 1 || needTransformCollectionType.isEmpty())
         {
-            Environmental envs = EcoreUtil2.getContainerOfType(expr, Environmental.class);
-            return typesComputer.computeTypes(expr, envs.environments());
+            return context.getTypes(expr);
         }
 
         // Transform to fixed collection
-        return transformTypes(expr, inv, needTransformCollectionType.get());
+        return transformTypes(expr, context, needTransformCollectionType.get());
     }
 
-    private List<TypeItem> transformTypes(Expression expr, Invocation context, boolean isResultFixData)
+    private List<TypeItem> transformTypes(Expression expr, InvocationContext context, boolean isResultFixData)
     {
-
-        Environmental envs = EcoreUtil2.getContainerOfType(expr, Environmental.class);
-        List<TypeItem> types = typesComputer.computeTypes(expr, envs.environments());
+        List<TypeItem> types = context.getTypes(expr);
         if (types.isEmpty())
         {
             return Collections.emptyList();
@@ -104,48 +88,18 @@ public class CommonFunctionCopyRecursiveTypesComputer
 
         // @formatter:off
         return types.stream()
-            .map(it -> transformType(it, envs, context, isResultFixData))
+            .map(it -> transformType(it, context, isResultFixData))
             .collect(Collectors.toList());
         //@formatter:on
     }
 
-    private TypeItem transformType(TypeItem type, Environmental envs, Invocation context, boolean isResultFixData)
+    private TypeItem transformType(TypeItem type, InvocationContext context, boolean isResultFixData)
     {
+        if (!TypeKinds.is(type, TypeKinds.ANY_MAP | TypeKinds.ANY_STRUCTURE | TypeKinds.ANY_ARRAY))
+            return type;
 
-        TypeItem resultType;
-
-        Collection<Pair<Collection<Property>, TypeItem>> props;
-        switch (McoreUtil.getTypeName(type))
-        {
-        case IEObjectTypeNames.MAP:
-            resultType = typesComputerHelper.transformMap(type, context, isResultFixData);
-            break;
-        case IEObjectTypeNames.STRUCTURE:
-            props = dynamicFeatureAccessComputer.getAllProperties(Collections.singletonList(type), envs.eResource());
-            resultType = typesComputerHelper.transformStructure(type, props, isResultFixData, context);
-            break;
-        case IEObjectTypeNames.ARRAY:
-            resultType = typesComputerHelper.transformArray(type, context, isResultFixData);
-            break;
-
-        case IEObjectTypeNames.FIXED_MAP:
-            resultType = typesComputerHelper.transformMap(type, context, isResultFixData);
-            break;
-
-        case IEObjectTypeNames.FIXED_STRUCTURE:
-            props = dynamicFeatureAccessComputer.getAllProperties(Collections.singletonList(type), envs.eResource());
-            resultType = typesComputerHelper.transformStructure(type, props, isResultFixData, context);
-            break;
-
-        case IEObjectTypeNames.FIXED_ARRAY:
-            resultType = typesComputerHelper.transformArray(type, context, isResultFixData);
-            break;
-
-        default:
-            resultType = type;
-        }
-
-        return resultType;
+        // Nested collections of elements and properties are copied recursively too
+        return typesComputerHelper.transformDeep(type, isResultFixData, context.getInvocation());
     }
 
     private Optional<Boolean> needTransformCollectionType(EList<Expression> params)
@@ -18,7 +18,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
-import org.eclipse.emf.ecore.EObject;
 import org.eclipse.xtext.util.Pair;
 
 import com._1c.g5.v8.dt.bsl.model.Invocation;
@@ -45,15 +44,16 @@ public class CommonFunctionObjectAttributeValueTypesComputer
     @Inject
     public CommonFunctionObjectAttributeValueTypesComputer(TypesComputer typesComputer,
         IRuntimeVersionSupport versionSupport, DynamicFeatureAccessComputer dynamicFeatureAccessComputer,
-        ExpressionValueComputer expressionValueComputer)
+        ExpressionValueComputer expressionValueComputer, CommonFunctionServices services)
     {
-        super(typesComputer, versionSupport, dynamicFeatureAccessComputer);
+        super(typesComputer, versionSupport, dynamicFeatureAccessComputer, services);
         this.expressionValueComputer = expressionValueComputer;
     }
 
     @Override
-    public List<TypeItem> getTypes(Invocation inv)
+    protected List<TypeItem> computeInvocationTypes(InvocationContext context)
     {
+        Invocation inv = context.getInvocation();
         if (inv.getParams().size() < 2)
             return Collections.emptyList();
 
@@ -65,15 +65,14 @@ public class CommonFunctionObjectAttributeValueTypesComputer
 
         if (isValidModuleNameInvocation(inv))
         {
-            return computeTypes(inv, paramContent.getFirst());
+            return computeTypes(context, paramContent.getFirst());
         }
         return Collections.emptyList();
     }
 
-    protected List<TypeItem> computeTypes(Invocation inv, String paramContent)
+    protected List<TypeItem> computeTypes(InvocationContext context, String paramContent)
     {
-
-        List<TypeItem> refTypes = getReturnRefTypes(inv.getParams().get(0));
+        List<TypeItem> refTypes = getReturnRefTypes(context, context.getInvocation().getParams().get(0));
 
         if (refTypes.isEmpty())
             return Collections.emptyList();
@@ -84,10 +83,11 @@ public class CommonFunctionObjectAttributeValueTypesComputer
 
         String[] properties = content.split("\\.", -1); //$NON-NLS-1$
 
-        return getTypeByPropertyName(refTypes, properties, inv);
+        return getTypeByPropertyName(refTypes, properties, context);
     }
 
-    protected List<TypeItem> getTypeByPropertyName(Collection<TypeItem> refTypes, String[] properties, EObject context)
+    protected List<TypeItem> getTypeByPropertyName(Collection<TypeItem> refTypes, String[] properties,
+        InvocationContext context)
     {
         Set<TypeItem> result = new HashSet<>();
 
@@ -97,19 +97,10 @@ public class CommonFunctionObjectAttributeValueTypesComputer
         }
         String propertyName = properties[0];
 
-        Collection<Pair<Collection<Property>, TypeItem>> all =
-            getDynamicFeatureAccessComputer().getAllProperties(refTypes, context.eResource());
-
-        for (Pair<Collection<Property>, TypeItem> pair : all)
+        for (Property entry : getTypePropertiesCache().findProperties(refTypes, propertyName, context.getResource()))
         {
-            for (Property entry : pair.getFirst())
-            {
-                if (!entry.getTypes().isEmpty() && (propertyName.equalsIgnoreCase(entry.getNameRu())
-                    || propertyName.equalsIgnoreCase(entry.getName())))
-                {
-                    result.addAll(entry.getTypes());
-                }
-            }
+            if (!entry.getTypes().isEmpty())
+                result.addAll(entry.getTypes());
         }
 
         if (properties.length > 1)
@@ -12,22 +12,21 @@
  *******************************************************************************/
 package com.e1c.ssl.bsl;
 
-import static com._1c.g5.v8.dt.mcore.McorePackage.Literals.TYPE_ITEM;
-
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeMap;
-import java.util.stream.Collectors;
 
 import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.xtext.EcoreUtil2;
 import org.eclipse.xtext.nodemodel.ICompositeNode;
@@ -46,18 +45,13 @@ import com._1c.g5.v8.dt.bsl.resource.DynamicFeatureAccessComputer;
 import com._1c.g5.v8.dt.bsl.resource.TypesComputer;
 import com._1c.g5.v8.dt.mcore.ContextDef;
 import com._1c.g5.v8.dt.mcore.DerivedProperty;
-import com._1c.g5.v8.dt.mcore.Environmental;
 import com._1c.g5.v8.dt.mcore.McoreFactory;
 import com._1c.g5.v8.dt.mcore.Property;
 import com._1c.g5.v8.dt.mcore.Type;
 import com._1c.g5.v8.dt.mcore.TypeContainerRef;
 import com._1c.g5.v8.dt.mcore.TypeItem;
-import com._1c.g5.v8.dt.mcore.util.McoreUtil;
-import com._1c.g5.v8.dt.platform.IEObjectProvider;
-import com._1c.g5.v8.dt.platform.IEObjectProvider.Registry;
 import com._1c.g5.v8.dt.platform.IEObjectTypeNames;
 import com._1c.g5.v8.dt.platform.version.IRuntimeVersionSupport;
-import com._1c.g5.v8.dt.platform.version.Version;
 import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 
@@ -71,90 +65,83 @@ import com.google.inject.Inject;
 public class CommonFunctionObjectAttributesValuesTypesComputer
     extends AbstractCommonModuleObjectAttributeValueTypesComputer
 {
-    private final TypesComputer typesComputer;
+    private static final Comparator<String> PROPERTY_NAME_ORDER =
+        String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder());
 
     private final ExpressionValueComputer expressionValueComputer;
 
     @Inject
     public CommonFunctionObjectAttributesValuesTypesComputer(TypesComputer typesComputer,
         IRuntimeVersionSupport versionSupport, DynamicFeatureAccessComputer dynamicFeatureAccessComputer,
-        ExpressionValueComputer expressionValueComputer)
+        ExpressionValueComputer expressionValueComputer, CommonFunctionServices services)
     {
-        super(typesComputer, versionSupport, dynamicFeatureAccessComputer);
-        this.typesComputer = typesComputer;
+        super(typesComputer, versionSupport, dynamicFeatureAccessComputer, services);
         this.expressionValueComputer = expressionValueComputer;
     }
 
     @Override
-    public List<TypeItem> getTypes(Invocation inv)
+    protected List<TypeItem> computeInvocationTypes(InvocationContext context)
     {
+        Invocation inv = context.getInvocation();
         if (inv.getParams().size() < 2)
             return Collections.emptyList();
 
         if (!isValidModuleNameInvocation(inv))
             return Collections.emptyList();
 
-        Environmental envs = EcoreUtil2.getContainerOfType(inv, Environmental.class);
-        //@formatter:off
-        List<String> types = typesComputer
-            .computeTypes(inv.getParams().get(1), envs.environments())
-            .stream().map(McoreUtil::getTypeName)
-            .collect(Collectors.toList());
-        //@formatter:on
+        int kinds = TypeKinds.of(context.getTypes(inv.getParams().get(1)));
 
-        List<TypeItem> refTypes = getReturnRefTypes(inv.getParams().get(0));
+        List<TypeItem> refTypes = getReturnRefTypes(context, inv.getParams().get(0));
 
         if (refTypes.isEmpty())
             return Collections.emptyList();
 
-        if (types.contains(IEObjectTypeNames.STRING))
+        if ((kinds & TypeKinds.STRING) != 0)
         {
-            return computeTypesByString(inv, refTypes);
+            return computeTypesByString(context, refTypes);
         }
-        else if (types.contains(IEObjectTypeNames.STRUCTURE) || types.contains(IEObjectTypeNames.FIXED_STRUCTURE))
+        else if ((kinds & TypeKinds.ANY_STRUCTURE) != 0)
         {
-            return computeTypesByStructure(inv, refTypes);
+            return computeTypesByStructure(context, refTypes);
         }
-        else if (types.contains(IEObjectTypeNames.ARRAY) || types.contains(IEObjectTypeNames.FIXED_ARRAY))
+        else if ((kinds & TypeKinds.ANY_ARRAY) != 0)
         {
-            return computeTypesByArray(inv, refTypes);
+            return computeTypesByArray(context, refTypes);
 
         }
         return Collections.emptyList();
     }
 
-    private List<TypeItem> computeTypesByArray(Invocation inv, List<TypeItem> refTypes)
+    private List<TypeItem> computeTypesByArray(InvocationContext context, List<TypeItem> refTypes)
     {
         List<Pair<String, StringLiteral>> paramContent =
-            expressionValueComputer.getArrayExpressionContent(inv.getParams().get(1));
+            expressionValueComputer.getArrayExpressionContent(context.getInvocation().getParams().get(1));
         if (paramContent.isEmpty())
             return Collections.emptyList();
         Map<String, Pair<String, EObject>> paramStructure = new HashMap<>();
+        Map<StringLiteral, Map<String, Integer>> literalOffsets = new IdentityHashMap<>();
         for (Pair<String, StringLiteral> field : paramContent)
         {
             String key = field.getFirst().replace(".", ""); //$NON-NLS-1$ //$NON-NLS-2$
             EObject source = null;
             if (!key.equalsIgnoreCase(field.getFirst()) && field.getSecond() != null)
             {
-                StringLiteral literal = field.getSecond();
-                String literalText = field.getFirst();
-
-                BslDerivedPropertySource bslSource = createLiteralSource(literal, literalText, 0);
-                source = bslSource;
+                source = createLiteralSource(field.getSecond(), field.getFirst(), literalOffsets);
             }
             paramStructure.put(key, Tuples.create(field.getFirst(), source));
         }
-        return computeTypes(inv, refTypes, paramStructure);
+        return computeTypes(context, refTypes, paramStructure);
     }
 
-    private List<TypeItem> computeTypesByStructure(Invocation inv, List<TypeItem> refTypes)
+    private List<TypeItem> computeTypesByStructure(InvocationContext context, List<TypeItem> refTypes)
     {
         Map<String, Triple<StringLiteral, String, StringLiteral>> paramContent =
-            expressionValueComputer.getStructureExpressionContent(inv.getParams().get(1));
+            expressionValueComputer.getStructureExpressionContent(context.getInvocation().getParams().get(1));
         if (paramContent.isEmpty())
             return Collections.emptyList();
 
         Map<String, Pair<String, EObject>> paramStructure = new HashMap<>();
+        Map<StringLiteral, Map<String, Integer>> literalOffsets = new IdentityHashMap<>();
         for (Entry<String, Triple<StringLiteral, String, StringLiteral>> entry : paramContent.entrySet())
         {
             EObject source = null;
@@ -162,32 +149,42 @@ public class CommonFunctionObjectAttributesValuesTypesComputer
             if (entry.getValue().getSecond() != null && !entry.getKey().equalsIgnoreCase(entry.getValue().getSecond())
                 && entry.getValue().getFirst() != null)
             {
-                source = createLiteralSource(entry.getValue().getFirst(), entry.getKey(), 0);
+                source = createLiteralSource(entry.getValue().getFirst(), entry.getKey(), literalOffsets);
             }
             paramStructure.put(entry.getKey(), Tuples.create(path, source));
         }
-        return computeTypes(inv, refTypes, paramStructure);
+        return computeTypes(context, refTypes, paramStructure);
     }
 
-    private List<TypeItem> computeTypesByString(Invocation inv, List<TypeItem> refTypes)
+    private List<TypeItem> computeTypesByString(InvocationContext context, List<TypeItem> refTypes)
     {
         Pair<String, Collection<StringLiteral>> paramContent =
-            expressionValueComputer.getExpressionContent(inv.getParams().get(1));
+            expressionValueComputer.getExpressionContent(context.getInvocation().getParams().get(1));
 
         if (paramContent == null)
             return Collections.emptyList();
 
-        return computeTypes(inv, refTypes, paramContent.getFirst());
+        return computeTypes(context, refTypes, paramContent.getFirst());
     }
 
-    private BslDerivedPropertySource createLiteralSource(StringLiteral literal, String literalText,
-        int literalStatiPosition)
+    /**
+     * Creates the source of derived property that points to the name in the string literal.
+     *
+     * @param literal the string literal with list of names, cannot be {@code null}.
+     * @param name the name of the property or the name without dots, cannot be {@code null}.
+     * @param literalOffsets the offsets of names in already tokenized literals of this invocation,
+     * cannot be {@code null}.
+     * @return the BSL derived property source, cannot return {@code null}.
+     */
+    private BslDerivedPropertySource createLiteralSource(StringLiteral literal, String name,
+        Map<StringLiteral, Map<String, Integer>> literalOffsets)
     {
         BslDerivedPropertySource bslSource = BslFactory.eINSTANCE.createBslDerivedPropertySource();
         Module module = EcoreUtil2.getContainerOfType(literal, Module.class);
-        bslSource.setModuleUri(EcoreUtil.getURI(module).toString());
+        bslSource.setModuleUri(EcoreUtil.getURI(module).toString().intern());
         ICompositeNode node = NodeModelUtils.getNode(literal);
-        int localOffset = node.getOffset() + node.getText().indexOf(literalText, literalStatiPosition);
+        Map<String, Integer> offsets = literalOffsets.computeIfAbsent(literal, k -> getNameOffsets(node.getText()));
+        int localOffset = node.getOffset() + offsets.getOrDefault(name.toLowerCase(), 0);
         String methodName = ""; //$NON-NLS-1$
         Method method = EcoreUtil2.getContainerOfType(literal, Method.class);
         if (method != null)
@@ -202,156 +199,141 @@ public class CommonFunctionObjectAttributesValuesTypesComputer
         return bslSource;
     }
 
-    protected List<TypeItem> computeTypes(Invocation inv, List<TypeItem> refTypes, String paramContent)
+    /**
+     * Gets the offsets of names in the source text of string literal. Each name is mapped in lower case both as is
+     * and without dots, so keys of structure like {@code "OwnerCode"} for {@code "Owner.Code"} are found too.
+     *
+     * @param literalText the source text of the string literal, cannot be {@code null}.
+     * @return the offsets of the first occurrence of each name, cannot return {@code null}.
+     */
+    private static Map<String, Integer> getNameOffsets(String literalText)
     {
+        Map<String, Integer> result = new HashMap<>();
+        for (AttributeListTokenizer.Span span : AttributeListTokenizer.tokenize(literalText))
+        {
+            String name = span.getName().toLowerCase();
+            result.putIfAbsent(name, span.getOffset());
+            result.putIfAbsent(name.replace(".", ""), span.getOffset()); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        return result;
+    }
 
-        String content = paramContent.trim().replace(System.lineSeparator(), ""); //$NON-NLS-1$
-        String[] attributes = content.replace(" ", "").toLowerCase().split("\\,"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
-        if (attributes.length == 0)
-            return Collections.emptyList();
-
+    protected List<TypeItem> computeTypes(InvocationContext context, List<TypeItem> refTypes, String paramContent)
+    {
         Map<String, Pair<String, EObject>> names = new HashMap<>();
-        for (int i = 0; i < attributes.length; i++)
+        for (AttributeListTokenizer.Span span : AttributeListTokenizer.tokenize(paramContent))
         {
-            String attribute = attributes[i];
-            names.put(attribute, Tuples.create(attribute, null));
+            String attribute = span.getName().toLowerCase();
+            if (!attribute.isEmpty())
+                names.put(attribute, Tuples.create(attribute, null));
         }
+        if (names.isEmpty())
+            return Collections.emptyList();
 
-        return createCustomTypeByPropertyNames(refTypes, names, inv);
+        return createCustomTypeByPropertyNames(refTypes, names, context);
     }
 
-    protected List<TypeItem> computeTypes(Invocation inv, List<TypeItem> refTypes,
+    protected List<TypeItem> computeTypes(InvocationContext context, List<TypeItem> refTypes,
         Map<String, Pair<String, EObject>> paramContent)
     {
-        return createCustomTypeByPropertyNames(refTypes, paramContent, inv);
+        return createCustomTypeByPropertyNames(refTypes, paramContent, context);
     }
 
     protected List<TypeItem> createCustomTypeByPropertyNames(List<TypeItem> refTypes,
-        Map<String, Pair<String, EObject>> names, EObject context)
+        Map<String, Pair<String, EObject>> names, InvocationContext context)
     {
-
-        // key = first segmet, Triple-first = second and other segment, second = orignal property key
-        // third = source object
-        Map<String, List<Triple<List<String>, String, EObject>>> firstSegments =
-            new TreeMap<>((o1, o2) -> o1.compareToIgnoreCase(o2));
-
+        // The requested paths as a trie of segments, so each distinct prefix of paths is resolved once
+        PathNode root = new PathNode(""); //$NON-NLS-1$
         for (Entry<String, Pair<String, EObject>> entry : names.entrySet())
         {
-            String[] segments = entry.getValue().getFirst().split("\\."); //$NON-NLS-1$
-            if (segments.length == 0)
-            {
-                List<Triple<List<String>, String, EObject>> list =
-                    firstSegments.computeIfAbsent(entry.getValue().getFirst(), k -> new ArrayList<>());
-                list.add(Tuples.create(Arrays.asList(), entry.getKey(), entry.getValue().getSecond()));
-            }
-            else
+            PathNode node = root;
+            for (String segment : entry.getValue().getFirst().split("\\.")) //$NON-NLS-1$
             {
-                String first = segments[0];
-                List<String> segmentList = new ArrayList<>(Arrays.asList(segments));
-                segmentList.remove(0);
-                List<Triple<List<String>, String, EObject>> list =
-                    firstSegments.computeIfAbsent(first, k -> new ArrayList<>());
-                list.add(Tuples.create(segmentList, entry.getKey(), entry.getValue().getSecond()));
+                node = node.getChild(segment);
             }
+            node.addRequest(entry.getKey(), entry.getValue().getSecond());
         }
 
-        Collection<Pair<Collection<Property>, TypeItem>> all =
-            getDynamicFeatureAccessComputer().getAllProperties(refTypes, context.eResource());
-
-        IEObjectProvider provider =
-            Registry.INSTANCE.get(TYPE_ITEM, this.versionSupport.getRuntimeVersionOrDefault(context, Version.LATEST));
-        EObject proxyType = provider.getProxy(IEObjectTypeNames.STRUCTURE);
-        Type structureType = (Type)EcoreUtil2.cloneWithProxies((TypeItem)EcoreUtil.resolve(proxyType, context));
+        Type template = getPlatformTypes().getTemplate(IEObjectTypeNames.STRUCTURE, context);
+        if (template == null)
+            return Collections.emptyList();
 
-        Map<String, Pair<Property, EObject>> newProperties = new HashMap<>();
+        // Sorted by name, so the order of properties is stable and equal types have equal signatures
+        Map<String, Pair<Property, EObject>> newProperties = new TreeMap<>(PROPERTY_NAME_ORDER);
 
-        for (Pair<Collection<Property>, TypeItem> pair : all)
+        Resource resource = context.getResource();
+        for (PathNode node : root.children.values())
         {
-            if (firstSegments.isEmpty())
-                break;
-
-            for (Property entry : pair.getFirst())
+            int unresolved = node.size;
+            for (Property entry : getTypePropertiesCache().findProperties(refTypes, node.segment, resource))
             {
-                if (firstSegments.isEmpty())
+                unresolved -= resolve(node, entry, newProperties, resource);
+                if (unresolved == 0)
                     break;
-                List<Triple<List<String>, String, EObject>> value = firstSegments.get(entry.getName());
-                if (value == null)
-                    value = firstSegments.get(entry.getNameRu());
-
-                if (value != null && !value.isEmpty())
-                {
-                    for (Iterator<Triple<List<String>, String, EObject>> iterator = value.iterator(); iterator
-                        .hasNext();)
-                    {
-                        Triple<List<String>, String, EObject> item = iterator.next();
-
-                        if (item.getFirst().isEmpty())
-                        {
-                            newProperties.put(item.getSecond(), Tuples.create(entry, item.getThird()));
-                            iterator.remove();
-                        }
-                        else
-                        {
-                            Property subProperty = getSubProperty(entry, item.getFirst(), context);
-                            if (subProperty != null)
-                            {
-                                newProperties.put(item.getSecond(), Tuples.create(subProperty, item.getThird()));
-                                iterator.remove();
-                            }
-                        }
-                    }
-
-                    if (value.isEmpty())
-                    {
-                        firstSegments.remove(entry.getName());
-                        firstSegments.remove(entry.getNameRu());
-                    }
-                }
             }
         }
 
-        // Create type properties
-        ContextDef contextDef = structureType.getContextDef();
-        EList<Property> properties = contextDef.getProperties();
+        List<Object> signature = new ArrayList<>(newProperties.size() * 3);
         for (Entry<String, Pair<Property, EObject>> entry : newProperties.entrySet())
         {
-            properties.add(createPropertyFromSource(entry.getKey(), entry.getValue()));
+            signature.add(entry.getKey());
+            signature.add(entry.getValue().getFirst());
+            signature.add(SyntheticTypePool.getSourceKey(entry.getValue().getSecond()));
         }
-        return Lists.newArrayList(structureType);
+
+        Type structureType = getSyntheticTypePool().get(IEObjectTypeNames.STRUCTURE, context, signature,
+            () -> createStructureByProperties(newProperties, context));
+        return structureType == null ? Collections.emptyList() : Lists.newArrayList(structureType);
     }
 
-    private Property getSubProperty(Property property, final List<String> properties, EObject context)
+    private Type createStructureByProperties(Map<String, Pair<Property, EObject>> newProperties,
+        InvocationContext context)
     {
-        if (properties == null || properties.isEmpty())
+        Type type = getPlatformTypes().createReferencingType(IEObjectTypeNames.STRUCTURE, context);
+        if (type == null)
             return null;
 
-        String propName = properties.get(0);
-        if (propName == null || propName.trim().length() == 0)
-            return null;
+        // Create type properties
+        ContextDef contextDef = type.getContextDef();
+        EList<Property> properties = contextDef.getProperties();
+        for (Entry<String, Pair<Property, EObject>> entry : newProperties.entrySet())
+        {
+            properties.add(createPropertyFromSource(entry.getKey(), entry.getValue()));
+        }
+        return type;
+    }
 
-        Collection<Pair<Collection<Property>, TypeItem>> all =
-            getDynamicFeatureAccessComputer().getAllProperties(property.getTypes(), context.eResource());
+    /**
+     * Resolves all requested paths of the trie node and its children for the property of the node.
+     * The requests that are already resolved with previous properties are kept.
+     *
+     * @param node the node of trie of paths, cannot be {@code null}.
+     * @param property the property resolved for the segment of the node, cannot be {@code null}.
+     * @param result the resolved properties with sources by requested keys, cannot be {@code null}.
+     * @param resource the context resource, may be {@code null}.
+     * @return the number of newly resolved requests
+     */
+    private int resolve(PathNode node, Property property, Map<String, Pair<Property, EObject>> result,
+        Resource resource)
+    {
+        int count = 0;
+        for (Pair<String, EObject> request : node.requests)
+        {
+            if (result.putIfAbsent(request.getFirst(), Tuples.create(property, request.getSecond())) == null)
+                count++;
+        }
 
-        for (Pair<Collection<Property>, TypeItem> pair : all)
+        for (PathNode child : node.children.values())
         {
-            for (Property entry : pair.getFirst())
-            {
-                if (entry.getNameRu().equalsIgnoreCase(propName) || entry.getName().equalsIgnoreCase(propName))
-                {
-                    if (properties.size() > 1)
-                    {
-                        List<String> next = new ArrayList<>(properties);
-                        next.remove(0);
-                        return getSubProperty(entry, next, context);
-                    }
-                    else
-                    {
-                        return entry;
-                    }
-                }
-            }
+            if (child.segment.trim().isEmpty())
+                continue;
+
+            Property subProperty =
+                getTypePropertiesCache().findProperty(property.getTypes(), child.segment, resource);
+            if (subProperty != null)
+                count += resolve(child, subProperty, result, resource);
         }
-        return null;
+        return count;
     }
 
     private DerivedProperty createPropertyFromSource(String name, Pair<Property, EObject> source)
@@ -367,8 +349,9 @@ public class CommonFunctionObjectAttributesValuesTypesComputer
         }
         else
         {
-            property.setName(name);
-            property.setNameRu(name);
+            String internedName = name.intern();
+            property.setName(internedName);
+            property.setNameRu(internedName);
             property.setSource(source.getSecond());
         }
         property.setReadable(true);
@@ -378,4 +361,36 @@ public class CommonFunctionObjectAttributesValuesTypesComputer
         ((TypeContainerRef)property.getTypeContainer()).getTypes().addAll(source.getFirst().getTypes());
         return property;
     }
+
+    /**
+     * The node of trie of requested dotted paths, the children are keyed by segment ignoring case.
+     */
+    private static final class PathNode
+    {
+        private final String segment;
+
+        private final Map<String, PathNode> children = new LinkedHashMap<>();
+
+        private final List<Pair<String, EObject>> requests = new ArrayList<>(1);
+
+        /** The number of requests of this node and all its children. */
+        private int size;
+
+        PathNode(String segment)
+        {
+            this.segment = segment;
+        }
+
+        PathNode getChild(String childSegment)
+        {
+            size++;
+            return children.computeIfAbsent(childSegment.toLowerCase(), k -> new PathNode(childSegment));
+        }
+
+        void addRequest(String key, EObject source)
+        {
+            size++;
+            requests.add(Tuples.create(key, source));
+        }
+    }
 }
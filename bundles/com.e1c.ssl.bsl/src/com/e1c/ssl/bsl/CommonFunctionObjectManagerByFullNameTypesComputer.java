@@ -12,13 +12,13 @@
  *******************************************************************************/
 package com.e1c.ssl.bsl;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 import org.eclipse.xtext.naming.QualifiedName;
-import org.eclipse.xtext.scoping.IScopeProvider;
 import org.eclipse.xtext.util.Pair;
 
 import com._1c.g5.v8.dt.bsl.model.Invocation;
@@ -72,33 +72,39 @@ public class CommonFunctionObjectManagerByFullNameTypesComputer
     private final ExpressionValueComputer expressionValueComputer;
 
     @Inject
-    public CommonFunctionObjectManagerByFullNameTypesComputer(TypesComputer typesComputer, IScopeProvider scopeProvider,
-        ExpressionValueComputer expressionValueComputer)
+    public CommonFunctionObjectManagerByFullNameTypesComputer(TypesComputer typesComputer,
+        ManagerScopeCache managerScopeCache, ExpressionValueComputer expressionValueComputer,
+        CommonFunctionServices services)
     {
-        super(typesComputer, scopeProvider);
+        super(typesComputer, managerScopeCache, services);
         this.expressionValueComputer = expressionValueComputer;
     }
 
     @Override
-    public List<TypeItem> getTypes(Invocation inv)
+    protected List<TypeItem> computeInvocationTypes(InvocationContext context)
     {
+        Invocation inv = context.getInvocation();
         if (inv.getParams().isEmpty())
             return Collections.emptyList();
 
-        Pair<String, Collection<StringLiteral>> paramContent =
-            expressionValueComputer.getExpressionContent(inv.getParams().get(0));
+        // The name may be assigned in branches, so types of all possible names are returned
+        List<Pair<String, Collection<StringLiteral>>> paramContents =
+            expressionValueComputer.getExpressionContents(inv.getParams().get(0));
 
-        if (inv.getParams().size() != 1 || paramContent == null)
+        if (inv.getParams().size() != 1 || paramContents.isEmpty())
             return Collections.emptyList();
 
         if (isValidModuleNameInvocation(inv))
         {
-            return computeTypes(inv, paramContent.getFirst());
+            List<TypeItem> result = new ArrayList<>();
+            for (Pair<String, Collection<StringLiteral>> paramContent : paramContents)
+                result.addAll(computeTypes(context, paramContent.getFirst()));
+            return result;
         }
         return Collections.emptyList();
     }
 
-    protected List<TypeItem> computeTypes(Invocation inv, String paramContent)
+    protected List<TypeItem> computeTypes(InvocationContext context, String paramContent)
     {
         String content = paramContent.trim();
         String[] parts = content.split("\\."); //$NON-NLS-1$
@@ -109,14 +115,14 @@ public class CommonFunctionObjectManagerByFullNameTypesComputer
             {
                 QualifiedName fqn = NON_REF_MANAGER_MODULE_BASE.get(key).append(parts[1]);
 
-                TypeItem type = getTypesByFqn(fqn, inv);
+                TypeItem type = getTypesByFqn(fqn, context);
                 return type == null ? Collections.emptyList() : Lists.newArrayList(type);
             }
             else if (REF_MANAGER_MODULE_BASE.containsKey(key))
             {
                 QualifiedName fqn = REF_MANAGER_MODULE_BASE.get(key).append(parts[1]);
 
-                TypeItem type = getTypesByFqn(fqn, inv);
+                TypeItem type = getTypesByFqn(fqn, context);
                 return type == null ? Collections.emptyList() : Lists.newArrayList(type);
             }
         }
@@ -12,25 +12,17 @@
  *******************************************************************************/
 package com.e1c.ssl.bsl;
 
-import static com._1c.g5.v8.dt.mcore.McorePackage.Literals.TYPE_DESCRIPTION__TYPES;
-
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.Set;
 
-import org.eclipse.emf.ecore.EObject;
-import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.xtext.naming.QualifiedName;
-import org.eclipse.xtext.resource.IEObjectDescription;
-import org.eclipse.xtext.scoping.IScope;
-import org.eclipse.xtext.scoping.IScopeProvider;
 
 import com._1c.g5.v8.dt.bsl.model.Invocation;
 import com._1c.g5.v8.dt.bsl.resource.TypesComputer;
-import com._1c.g5.v8.dt.mcore.McorePackage;
-import com._1c.g5.v8.dt.mcore.Type;
 import com._1c.g5.v8.dt.mcore.TypeItem;
 import com._1c.g5.v8.dt.mcore.util.McoreUtil;
 import com.google.common.collect.ImmutableMap;
@@ -73,35 +65,42 @@ public class CommonFunctionObjectManagerByRefTypesComputer
 
     private static final String REF = "ref"; //$NON-NLS-1$
 
-    private final IScopeProvider scopeProvider;
+    private final ManagerScopeCache managerScopeCache;
 
     @Inject
-    public CommonFunctionObjectManagerByRefTypesComputer(TypesComputer typesComputer, IScopeProvider scopeProvider)
+    public CommonFunctionObjectManagerByRefTypesComputer(TypesComputer typesComputer,
+        ManagerScopeCache managerScopeCache, CommonFunctionServices services)
     {
-        super(typesComputer);
-        this.scopeProvider = scopeProvider;
+        super(typesComputer, services);
+        this.managerScopeCache = managerScopeCache;
     }
 
     @Override
-    public List<TypeItem> getTypes(Invocation inv)
+    protected List<TypeItem> computeInvocationTypes(InvocationContext context)
     {
+        Invocation inv = context.getInvocation();
         if (inv.getParams().size() != 1 || !isValidModuleNameInvocation(inv))
             return Collections.emptyList();
 
-        List<TypeItem> refTypes = getReturnRefTypes(inv.getParams().get(0));
-        if (!refTypes.isEmpty())
+        List<TypeItem> refTypes = getReturnRefTypes(context, inv.getParams().get(0));
+        if (refTypes.isEmpty())
+            return Collections.emptyList();
+
+        // Managers of all ref types of composite type are resolved in one pass over the same scope
+        Set<QualifiedName> fqns = new LinkedHashSet<>();
+        for (TypeItem type : refTypes)
         {
-            //@formatter:off
-            return refTypes.stream()
-                .map(t -> computeTypes(inv, t))
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
-            //@formatter:on
+            QualifiedName fqn = getManagerFqn(type);
+            if (fqn != null)
+                fqns.add(fqn);
         }
-        return Collections.emptyList();
+        if (fqns.isEmpty())
+            return Collections.emptyList();
+
+        return new ArrayList<>(managerScopeCache.getTypes(fqns, context).values());
     }
 
-    private TypeItem computeTypes(Invocation inv, TypeItem type)
+    private QualifiedName getManagerFqn(TypeItem type)
     {
         String name = McoreUtil.getTypeName(type);
         String[] parts = name.split("\\."); //$NON-NLS-1$
@@ -113,24 +112,15 @@ public class CommonFunctionObjectManagerByRefTypesComputer
             key = key.substring(0, key.length() - REF.length());
         if (REF_MANAGER_MODULE_BASE.containsKey(key))
         {
-            QualifiedName fqn = REF_MANAGER_MODULE_BASE.get(key).append(parts[1]);
-
-            return getTypesByFqn(fqn, inv);
+            return REF_MANAGER_MODULE_BASE.get(key).append(parts[1]);
         }
 
         return null;
     }
 
-    protected TypeItem getTypesByFqn(QualifiedName fqn, EObject context)
+    protected TypeItem getTypesByFqn(QualifiedName fqn, InvocationContext context)
     {
-        IScope scope = scopeProvider.getScope(context, TYPE_DESCRIPTION__TYPES);
-        IEObjectDescription elem = scope.getSingleElement(fqn);
-        if (elem != null && elem.getEClass() == McorePackage.Literals.TYPE)
-        {
-            Type type = (Type)EcoreUtil.resolve(elem.getEObjectOrProxy(), context);
-            return type;
-        }
-        return null;
+        return managerScopeCache.getType(fqn, context);
     }
 
 }
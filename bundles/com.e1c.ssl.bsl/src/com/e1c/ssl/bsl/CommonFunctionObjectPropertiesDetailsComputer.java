@@ -16,7 +16,6 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
-import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.xtext.EcoreUtil2;
 import org.eclipse.xtext.util.Pair;
 import org.eclipse.xtext.util.Strings;
@@ -29,18 +28,14 @@ import com._1c.g5.v8.dt.bsl.resource.DynamicFeatureAccessComputer;
 import com._1c.g5.v8.dt.bsl.resource.TypesComputer;
 import com._1c.g5.v8.dt.bsl.typesystem.ValueTableDynamicContextDefProvider;
 import com._1c.g5.v8.dt.mcore.DerivedProperty;
-import com._1c.g5.v8.dt.mcore.Environmental;
 import com._1c.g5.v8.dt.mcore.McoreFactory;
-import com._1c.g5.v8.dt.mcore.McorePackage;
 import com._1c.g5.v8.dt.mcore.Property;
 import com._1c.g5.v8.dt.mcore.Type;
 import com._1c.g5.v8.dt.mcore.TypeContainer;
 import com._1c.g5.v8.dt.mcore.TypeContainerRef;
 import com._1c.g5.v8.dt.mcore.TypeItem;
-import com._1c.g5.v8.dt.platform.IEObjectProvider;
 import com._1c.g5.v8.dt.platform.IEObjectTypeNames;
 import com._1c.g5.v8.dt.platform.version.IRuntimeVersionSupport;
-import com._1c.g5.v8.dt.platform.version.Version;
 import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 
@@ -59,23 +54,21 @@ public class CommonFunctionObjectPropertiesDetailsComputer
 
     private final ExpressionValueComputer expressionValueComputer;
 
-    private final TypesComputer typesComputer;
-
     @Inject
     public CommonFunctionObjectPropertiesDetailsComputer(TypesComputer typesComputer,
         IRuntimeVersionSupport versionSupport, DynamicFeatureAccessComputer dynamicFeatureAccessComputer,
         ExpressionValueComputer expressionValueComputer,
-        ValueTableDynamicContextDefProvider valueTableDynamicContextDefProvider)
+        ValueTableDynamicContextDefProvider valueTableDynamicContextDefProvider, CommonFunctionServices services)
     {
-        super(typesComputer, versionSupport, dynamicFeatureAccessComputer);
+        super(typesComputer, versionSupport, dynamicFeatureAccessComputer, services);
         this.valueTableDynamicContextDefProvider = valueTableDynamicContextDefProvider;
         this.expressionValueComputer = expressionValueComputer;
-        this.typesComputer = typesComputer;
     }
 
     @Override
-    public List<TypeItem> getTypes(Invocation inv)
+    protected List<TypeItem> computeInvocationTypes(InvocationContext context)
     {
+        Invocation inv = context.getInvocation();
         if (inv.getParams().size() < 2)
             return Collections.emptyList();
 
@@ -90,40 +83,21 @@ public class CommonFunctionObjectPropertiesDetailsComputer
         Expression expr = inv.getParams().get(0);
         if (expr instanceof StaticFeatureAccess)
         {
-            Environmental envs = EcoreUtil2.getContainerOfType(expr, Environmental.class);
-
-            List<TypeItem> types = typesComputer.computeTypes(expr, envs.environments());
+            List<TypeItem> types = context.getTypes(expr);
             if (types.isEmpty())
                 return Collections.emptyList();
 
-            Pair<Collection<Property>, TypeItem> all = this.getDynamicFeatureAccessComputer()
-                .getAllProperties(types, envs.eResource())
-                .stream()
-                .findFirst()
-                .orElse(null);
-
-            if (all == null)
-                return Collections.emptyList();
-            Property property = all.getFirst()
-                .stream()
-                .filter(p -> p.getName().equalsIgnoreCase("Attributes")) //$NON-NLS-1$
-                .findFirst()
-                .orElse(null);
-
+            Property property =
+                getTypePropertiesCache().findProperty(types, "Attributes", context.getResource()); //$NON-NLS-1$
             if (property == null || property.getTypes().isEmpty())
                 return Collections.emptyList();
 
-            all = this.getDynamicFeatureAccessComputer()
-                .getAllProperties(((Type)(property.getTypes().get(0))).getCollectionElementTypes().allTypes(),
-                    envs.eResource())
-                .stream()
-                .findFirst()
-                .orElse(null);
-
-            if (all == null)
+            List<TypeItem> attributeTypes =
+                ((Type)(property.getTypes().get(0))).getCollectionElementTypes().allTypes();
+            if (attributeTypes.isEmpty())
                 return Collections.emptyList();
 
-            return computeTypes(inv, propetiesName.getFirst(), all.getFirst());
+            return computeTypes(context, propetiesName.getFirst(), attributeTypes);
         }
         else
         {
@@ -131,21 +105,18 @@ public class CommonFunctionObjectPropertiesDetailsComputer
         }
     }
 
-    private List<TypeItem> computeTypes(Invocation inv, String propetiesName, Collection<Property> properties)
+    private List<TypeItem> computeTypes(InvocationContext context, String propetiesName, List<TypeItem> attributeTypes)
     {
-        String content = propetiesName.trim().replaceAll("\\s", ""); //$NON-NLS-1$ //$NON-NLS-2$
-
-        String[] parts = content.split(","); //$NON-NLS-1$
+        List<AttributeListTokenizer.Span> parts = AttributeListTokenizer.tokenize(propetiesName);
 
-        IEObjectProvider provider = IEObjectProvider.Registry.INSTANCE.get(McorePackage.Literals.TYPE_ITEM,
-            versionSupport.getRuntimeVersionOrDefault(inv, Version.LATEST));
+        TypeItem columnPropertyType = getPlatformTypes().getProxy("ValueTableColumn", context); //$NON-NLS-1$
 
-        TypeItem type = provider.getProxy(IEObjectTypeNames.VALUE_TABLE);
-        TypeItem columnPropertyType = provider.getProxy("ValueTableColumn"); //$NON-NLS-1$
-
-        Type valueTable = EcoreUtil2.cloneWithProxies((Type)EcoreUtil.resolve(type, inv));
+        Type valueTable = getPlatformTypes().createType(IEObjectTypeNames.VALUE_TABLE, context);
+        if (valueTable == null)
+            return Collections.emptyList();
 
-        Type derivedType = valueTableDynamicContextDefProvider.computeDerivedValueTableType(inv, valueTable);
+        Type derivedType =
+            valueTableDynamicContextDefProvider.computeDerivedValueTableType(context.getInvocation(), valueTable);
         if (derivedType == null || derivedType.getCollectionElementTypes() == null
             || derivedType.getCollectionElementTypes().allTypes().isEmpty())
             return Collections.emptyList();
@@ -158,15 +129,13 @@ public class CommonFunctionObjectPropertiesDetailsComputer
 
         Type valueTableColumnType = (Type)columns.allTypes().get(0);
 
-        for (String part : parts)
+        for (AttributeListTokenizer.Span span : parts)
         {
+            String part = span.getName();
             if (Strings.isEmpty(part))
                 continue;
 
-            Property property = properties.parallelStream()
-                .filter(p -> p.getNameRu().equalsIgnoreCase(part) || p.getName().equalsIgnoreCase(part))
-                .findFirst()
-                .orElse(null);
+            Property property = getTypePropertiesCache().findProperty(attributeTypes, part, context.getResource());
 
             if (property != null)
             {
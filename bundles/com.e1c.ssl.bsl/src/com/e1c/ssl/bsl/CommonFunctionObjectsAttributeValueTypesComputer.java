@@ -15,7 +15,6 @@ package com.e1c.ssl.bsl;
 import java.util.Collections;
 import java.util.List;
 
-import com._1c.g5.v8.dt.bsl.model.Invocation;
 import com._1c.g5.v8.dt.bsl.resource.DynamicFeatureAccessComputer;
 import com._1c.g5.v8.dt.bsl.resource.TypesComputer;
 import com._1c.g5.v8.dt.mcore.TypeItem;
@@ -37,17 +36,17 @@ public class CommonFunctionObjectsAttributeValueTypesComputer
     @Inject
     public CommonFunctionObjectsAttributeValueTypesComputer(TypesComputer typesComputer,
         IRuntimeVersionSupport versionSupport, DynamicFeatureAccessComputer dynamicFeatureAccessComputer,
-        ExpressionValueComputer expressionValueComputer, TypesComputerHelper typesComputerHelper)
+        ExpressionValueComputer expressionValueComputer, TypesComputerHelper typesComputerHelper,
+        CommonFunctionServices services)
     {
-        super(typesComputer, versionSupport, dynamicFeatureAccessComputer, expressionValueComputer);
+        super(typesComputer, versionSupport, dynamicFeatureAccessComputer, expressionValueComputer, services);
         this.typesComputerHelper = typesComputerHelper;
     }
 
     @Override
-    protected List<TypeItem> computeTypes(Invocation inv, String paramContent)
+    protected List<TypeItem> computeTypes(InvocationContext context, String paramContent)
     {
-
-        List<TypeItem> refTypes = getReturnArrayRefTypes(inv.getParams().get(0));
+        List<TypeItem> refTypes = getReturnArrayRefTypes(context, context.getInvocation().getParams().get(0));
 
         if (refTypes.isEmpty())
             return Collections.emptyList();
@@ -58,10 +57,10 @@ public class CommonFunctionObjectsAttributeValueTypesComputer
 
         String[] properties = content.split("\\.", -1); //$NON-NLS-1$
 
-        List<TypeItem> types = getTypeByPropertyName(refTypes, properties, inv);
+        List<TypeItem> types = getTypeByPropertyName(refTypes, properties, context);
         if (!types.isEmpty())
         {
-            return typesComputerHelper.createCustomMapType(refTypes, types, inv);
+            return typesComputerHelper.createCustomMapType(refTypes, types, context);
 
         }
         return Collections.emptyList();
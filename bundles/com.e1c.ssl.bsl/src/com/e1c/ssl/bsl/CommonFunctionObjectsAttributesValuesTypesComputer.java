@@ -16,7 +16,6 @@ import java.util.Collections;
 import java.util.List;
 
 import com._1c.g5.v8.dt.bsl.model.Expression;
-import com._1c.g5.v8.dt.bsl.model.Invocation;
 import com._1c.g5.v8.dt.bsl.resource.DynamicFeatureAccessComputer;
 import com._1c.g5.v8.dt.bsl.resource.TypesComputer;
 import com._1c.g5.v8.dt.mcore.TypeItem;
@@ -39,27 +38,28 @@ public class CommonFunctionObjectsAttributesValuesTypesComputer
     @Inject
     public CommonFunctionObjectsAttributesValuesTypesComputer(TypesComputer typesComputer,
         IRuntimeVersionSupport versionSupport, DynamicFeatureAccessComputer dynamicFeatureAccessComputer,
-        ExpressionValueComputer expressionValueComputer, TypesComputerHelper typesComputerHelper)
+        ExpressionValueComputer expressionValueComputer, TypesComputerHelper typesComputerHelper,
+        CommonFunctionServices services)
     {
-        super(typesComputer, versionSupport, dynamicFeatureAccessComputer, expressionValueComputer);
+        super(typesComputer, versionSupport, dynamicFeatureAccessComputer, expressionValueComputer, services);
         this.typesComputerHelper = typesComputerHelper;
     }
 
     @Override
-    protected List<TypeItem> computeTypes(Invocation inv, List<TypeItem> refTypes, String paramContent)
+    protected List<TypeItem> computeTypes(InvocationContext context, List<TypeItem> refTypes, String paramContent)
     {
-        List<TypeItem> types = super.computeTypes(inv, refTypes, paramContent);
+        List<TypeItem> types = super.computeTypes(context, refTypes, paramContent);
         if (!types.isEmpty())
         {
-            return typesComputerHelper.createCustomMapType(refTypes, types, inv);
+            return typesComputerHelper.createCustomMapType(refTypes, types, context);
 
         }
         return Collections.emptyList();
     }
 
     @Override
-    protected List<TypeItem> getReturnRefTypes(Expression expr)
+    protected List<TypeItem> getReturnRefTypes(InvocationContext context, Expression expr)
     {
-        return getReturnArrayRefTypes(expr);
+        return getReturnArrayRefTypes(context, expr);
     }
 }
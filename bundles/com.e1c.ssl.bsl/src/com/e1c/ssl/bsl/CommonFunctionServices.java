@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (C) 2022, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.ssl.bsl;
+
+import com._1c.g5.v8.dt.platform.version.IRuntimeVersionSupport;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * The services shared by all computers of invocation types of 1C:SSL API module functions. The services are passed
+ * to the constructor of {@link AbstractCommonModuleCommonFunctionTypesComputer} with one parameter, so computers
+ * do not repeat the list of shared services in their constructors.
+ *
+ * @author Dmitriy Marmyshev
+ */
+@Singleton
+public class CommonFunctionServices
+{
+
+    private final InvocationTypesCache invocationTypesCache;
+
+    private final InvocationDispatcher invocationDispatcher;
+
+    private final SslModuleIndex sslModuleIndex;
+
+    private final IRuntimeVersionSupport runtimeVersionSupport;
+
+    private final PlatformTypeTemplates platformTypes;
+
+    private final TypePropertiesCache typePropertiesCache;
+
+    private final SyntheticTypePool syntheticTypePool;
+
+    /**
+     * Instantiates a new set of services of computers.
+     *
+     * @param invocationTypesCache the cache of computed invocation types, cannot be {@code null}.
+     * @param invocationDispatcher the dispatch table of invocations, cannot be {@code null}.
+     * @param sslModuleIndex the index of 1C:SSL API modules, cannot be {@code null}.
+     * @param runtimeVersionSupport the runtime version support, cannot be {@code null}.
+     * @param platformTypes the templates of platform types, cannot be {@code null}.
+     * @param typePropertiesCache the cache of properties of types, cannot be {@code null}.
+     * @param syntheticTypePool the pool of synthetic types, cannot be {@code null}.
+     */
+    @Inject
+    public CommonFunctionServices(InvocationTypesCache invocationTypesCache,
+        InvocationDispatcher invocationDispatcher, SslModuleIndex sslModuleIndex,
+        IRuntimeVersionSupport runtimeVersionSupport, PlatformTypeTemplates platformTypes,
+        TypePropertiesCache typePropertiesCache, SyntheticTypePool syntheticTypePool)
+    {
+        this.invocationTypesCache = invocationTypesCache;
+        this.invocationDispatcher = invocationDispatcher;
+        this.sslModuleIndex = sslModuleIndex;
+        this.runtimeVersionSupport = runtimeVersionSupport;
+        this.platformTypes = platformTypes;
+        this.typePropertiesCache = typePropertiesCache;
+        this.syntheticTypePool = syntheticTypePool;
+    }
+
+    /**
+     * Gets the cache of computed invocation types.
+     *
+     * @return the invocation types cache, cannot return {@code null}.
+     */
+    public InvocationTypesCache getInvocationTypesCache()
+    {
+        return invocationTypesCache;
+    }
+
+    /**
+     * Gets the dispatch table of invocations.
+     *
+     * @return the invocation dispatcher, cannot return {@code null}.
+     */
+    public InvocationDispatcher getInvocationDispatcher()
+    {
+        return invocationDispatcher;
+    }
+
+    /**
+     * Gets the index of 1C:SSL API modules.
+     *
+     * @return the SSL module index, cannot return {@code null}.
+     */
+    public SslModuleIndex getSslModuleIndex()
+    {
+        return sslModuleIndex;
+    }
+
+    /**
+     * Gets the runtime version support.
+     *
+     * @return the runtime version support, cannot return {@code null}.
+     */
+    public IRuntimeVersionSupport getRuntimeVersionSupport()
+    {
+        return runtimeVersionSupport;
+    }
+
+    /**
+     * Gets the templates of platform types resolved per runtime version.
+     *
+     * @return the platform type templates, cannot return {@code null}.
+     */
+    public PlatformTypeTemplates getPlatformTypes()
+    {
+        return platformTypes;
+    }
+
+    /**
+     * Gets the shared cache of properties of types.
+     *
+     * @return the type properties cache, cannot return {@code null}.
+     */
+    public TypePropertiesCache getTypePropertiesCache()
+    {
+        return typePropertiesCache;
+    }
+
+    /**
+     * Gets the pool of synthetic types shared between computers.
+     *
+     * @return the synthetic type pool, cannot return {@code null}.
+     */
+    public SyntheticTypePool getSyntheticTypePool()
+    {
+        return syntheticTypePool;
+    }
+}
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (C) 2022, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.ssl.bsl;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com._1c.g5.v8.dt.bsl.model.Invocation;
+import com._1c.g5.v8.dt.bsl.typesystem.IInvocationTypesComputerExtension;
+import com._1c.g5.v8.dt.bsl.typesystem.IInvocationTypesComputerParametersDependent;
+import com._1c.g5.v8.dt.mcore.TypeItem;
+import com.e1c.ssl.bsl.InvocationDispatcher.Route;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.google.inject.Singleton;
+
+/**
+ * The single computer of invocation types that is registered for all 1C:SSL API module functions. The computer
+ * routes the invocation with {@link InvocationDispatcher} straight to the one computer that handles the function,
+ * so invocations of other modules or with wrong number of parameters are rejected by one lookup in the dispatch
+ * table and computers of other functions are not called.
+ *
+ * @author Dmitriy Marmyshev
+ */
+@Singleton
+public class CommonFunctionTypesComputer
+    implements IInvocationTypesComputerExtension, IInvocationTypesComputerParametersDependent
+{
+
+    private final InvocationDispatcher invocationDispatcher;
+
+    private final Injector injector;
+
+    private final Map<Class<?>, IInvocationTypesComputerExtension> computers = new ConcurrentHashMap<>();
+
+    /**
+     * Instantiates a new dispatching computer of invocation types.
+     *
+     * @param invocationDispatcher the dispatch table of invocations, cannot be {@code null}.
+     * @param injector the injector that creates computers of routes, cannot be {@code null}.
+     */
+    @Inject
+    public CommonFunctionTypesComputer(InvocationDispatcher invocationDispatcher, Injector injector)
+    {
+        this.invocationDispatcher = invocationDispatcher;
+        this.injector = injector;
+    }
+
+    @Override
+    public List<TypeItem> getTypes(Invocation inv)
+    {
+        Route route = invocationDispatcher.route(inv);
+        if (route == null)
+            return Collections.emptyList();
+
+        return computers
+            .computeIfAbsent(route.getComputerClass(),
+                key -> (IInvocationTypesComputerExtension)injector.getInstance(key))
+            .getTypes(inv);
+    }
+}
@@ -16,7 +16,6 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
-import org.eclipse.xtext.EcoreUtil2;
 import org.eclipse.xtext.util.Pair;
 
 import com._1c.g5.v8.dt.bsl.model.Expression;
@@ -26,14 +25,11 @@ import com._1c.g5.v8.dt.bsl.model.StringLiteral;
 import com._1c.g5.v8.dt.bsl.resource.DynamicFeatureAccessComputer;
 import com._1c.g5.v8.dt.bsl.resource.TypesComputer;
 import com._1c.g5.v8.dt.bsl.typesystem.util.TypeSystemUtil;
-import com._1c.g5.v8.dt.mcore.Environmental;
-import com._1c.g5.v8.dt.mcore.McorePackage;
 import com._1c.g5.v8.dt.mcore.Property;
 import com._1c.g5.v8.dt.mcore.Type;
 import com._1c.g5.v8.dt.mcore.TypeItem;
 import com._1c.g5.v8.dt.platform.IEObjectProvider;
 import com._1c.g5.v8.dt.platform.version.IRuntimeVersionSupport;
-import com._1c.g5.v8.dt.platform.version.Version;
 import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 
@@ -48,22 +44,21 @@ public class CommonFunctionUnloadColumnTypesComputer
     extends AbstractCommonModuleObjectAttributeValueTypesComputer
 {
 
-    private final TypesComputer typesComputer;
-
     private final ExpressionValueComputer expressionValueComputer;
 
     @Inject
     public CommonFunctionUnloadColumnTypesComputer(TypesComputer typesComputer, IRuntimeVersionSupport versionSupport,
-        DynamicFeatureAccessComputer dynamicFeatureAccessComputer, ExpressionValueComputer expressionValueComputer)
+        DynamicFeatureAccessComputer dynamicFeatureAccessComputer, ExpressionValueComputer expressionValueComputer,
+        CommonFunctionServices services)
     {
-        super(typesComputer, versionSupport, dynamicFeatureAccessComputer);
-        this.typesComputer = typesComputer;
+        super(typesComputer, versionSupport, dynamicFeatureAccessComputer, services);
         this.expressionValueComputer = expressionValueComputer;
     }
 
     @Override
-    public List<TypeItem> getTypes(Invocation inv)
+    protected List<TypeItem> computeInvocationTypes(InvocationContext context)
     {
+        Invocation inv = context.getInvocation();
         if (inv.getParams().size() != 2 && inv.getParams().size() != 3)
             return Collections.emptyList();
 
@@ -78,43 +73,34 @@ public class CommonFunctionUnloadColumnTypesComputer
         if (nameExpression == null)
             return Collections.emptyList();
 
-        Environmental envs = EcoreUtil2.getContainerOfType(dataExpression, Environmental.class);
-        List<TypeItem> types = typesComputer.computeTypes(dataExpression, envs.environments());
+        List<TypeItem> types = context.getTypes(dataExpression);
         if (types.isEmpty())
             return Collections.emptyList();
 
+        Pair<String, Collection<StringLiteral>> expressionContent =
+            expressionValueComputer.getExpressionContent(nameExpression);
+        if (expressionContent == null)
+            return Collections.emptyList();
+
         TypeItem type = types.get(0);
         if (type instanceof Type && ((Type)type).getCollectionElementTypes() != null
             && ((Type)type).getCollectionElementTypes().allTypes().size() == 1
             && ((Type)type).getCollectionElementTypes().allTypes().get(0) instanceof Type)
         {
-            Pair<Collection<Property>, TypeItem> all = this.getDynamicFeatureAccessComputer()
-                .getAllProperties(((Type)type).getCollectionElementTypes().allTypes(), envs.eResource())
-                .stream()
-                .findFirst()
-                .orElse(null);
-
-            if (all == null)
-                return Collections.emptyList();
-
-            Collection<Property> properties = all.getFirst();
-            for (Property property : properties)
+            TypeItem elementType = ((Type)type).getCollectionElementTypes().allTypes().get(0);
+            PropertyIndex properties = getTypePropertiesCache().getPropertyIndex(elementType, context.getResource());
+            Property property = properties.get(expressionContent.getFirst());
+            if (property != null)
             {
-                Pair<String, Collection<StringLiteral>> expressionContent =
-                    expressionValueComputer.getExpressionContent(nameExpression);
-                if (expressionContent != null && property.getName().equals(expressionContent.getFirst()))
-                {
-                    IEObjectProvider provider = IEObjectProvider.Registry.INSTANCE.get(McorePackage.Literals.TYPE_ITEM,
-                        versionSupport.getRuntimeVersionOrDefault(inv, Version.LATEST));
+                IEObjectProvider provider = getPlatformTypes().getProvider(context);
 
-                    List<TypeItem> collectionTypes = Lists.newArrayList();
-                    collectionTypes.addAll(property.getTypes());
+                List<TypeItem> collectionTypes = Lists.newArrayList();
+                collectionTypes.addAll(property.getTypes());
 
-                    ExtendedCollectionType extendedType =
-                        TypeSystemUtil.createExtendedArrayType(collectionTypes, provider, inv);
+                ExtendedCollectionType extendedType =
+                    TypeSystemUtil.createExtendedArrayType(collectionTypes, provider, inv);
 
-                    return Lists.newArrayList(extendedType);
-                }
+                return Lists.newArrayList(extendedType);
             }
         }
 
@@ -15,20 +15,15 @@ package com.e1c.ssl.bsl;
 import java.util.Collections;
 import java.util.List;
 
-import org.eclipse.xtext.EcoreUtil2;
-
 import com._1c.g5.v8.dt.bsl.model.Expression;
 import com._1c.g5.v8.dt.bsl.model.ExtendedCollectionType;
 import com._1c.g5.v8.dt.bsl.model.Invocation;
 import com._1c.g5.v8.dt.bsl.resource.DynamicFeatureAccessComputer;
 import com._1c.g5.v8.dt.bsl.resource.TypesComputer;
 import com._1c.g5.v8.dt.bsl.typesystem.util.TypeSystemUtil;
-import com._1c.g5.v8.dt.mcore.Environmental;
-import com._1c.g5.v8.dt.mcore.McorePackage;
 import com._1c.g5.v8.dt.mcore.TypeItem;
 import com._1c.g5.v8.dt.platform.IEObjectProvider;
 import com._1c.g5.v8.dt.platform.version.IRuntimeVersionSupport;
-import com._1c.g5.v8.dt.platform.version.Version;
 import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 
@@ -42,19 +37,17 @@ import com.google.inject.Inject;
 public class CommonFunctionValueInArrayTypesComputer
     extends AbstractCommonModuleObjectAttributeValueTypesComputer
 {
-    private final TypesComputer typesComputer;
-
     @Inject
     public CommonFunctionValueInArrayTypesComputer(TypesComputer typesComputer, IRuntimeVersionSupport versionSupport,
-        DynamicFeatureAccessComputer dynamicFeatureAccessComputer)
+        DynamicFeatureAccessComputer dynamicFeatureAccessComputer, CommonFunctionServices services)
     {
-        super(typesComputer, versionSupport, dynamicFeatureAccessComputer);
-        this.typesComputer = typesComputer;
+        super(typesComputer, versionSupport, dynamicFeatureAccessComputer, services);
     }
 
     @Override
-    public List<TypeItem> getTypes(Invocation inv)
+    protected List<TypeItem> computeInvocationTypes(InvocationContext context)
     {
+        Invocation inv = context.getInvocation();
         if (inv.getParams().size() != 1)
             return Collections.emptyList();
 
@@ -65,14 +58,11 @@ public class CommonFunctionValueInArrayTypesComputer
         if (expr == null)
             return Collections.emptyList();
 
-        Environmental envs = EcoreUtil2.getContainerOfType(expr, Environmental.class);
-
-        List<TypeItem> types = typesComputer.computeTypes(expr, envs.environments());
+        List<TypeItem> types = context.getTypes(expr);
         if (types.isEmpty())
             return Collections.emptyList();
 
-        IEObjectProvider provider = IEObjectProvider.Registry.INSTANCE.get(McorePackage.Literals.TYPE_ITEM,
-            versionSupport.getRuntimeVersionOrDefault(inv, Version.LATEST));
+        IEObjectProvider provider = getPlatformTypes().getProvider(context);
 
         ExtendedCollectionType extendedType = TypeSystemUtil.createExtendedArrayType(types, provider, inv);
 
@@ -16,8 +16,6 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
-import org.eclipse.emf.ecore.util.EcoreUtil;
-import org.eclipse.xtext.EcoreUtil2;
 import org.eclipse.xtext.util.Pair;
 
 import com._1c.g5.v8.dt.bsl.model.Expression;
@@ -27,18 +25,12 @@ import com._1c.g5.v8.dt.bsl.model.StaticFeatureAccess;
 import com._1c.g5.v8.dt.bsl.resource.DynamicFeatureAccessComputer;
 import com._1c.g5.v8.dt.bsl.resource.TypesComputer;
 import com._1c.g5.v8.dt.bsl.typesystem.util.TypeSystemUtil;
-import com._1c.g5.v8.dt.mcore.DerivedProperty;
-import com._1c.g5.v8.dt.mcore.Environmental;
-import com._1c.g5.v8.dt.mcore.McoreFactory;
-import com._1c.g5.v8.dt.mcore.McorePackage;
 import com._1c.g5.v8.dt.mcore.Property;
 import com._1c.g5.v8.dt.mcore.Type;
-import com._1c.g5.v8.dt.mcore.TypeContainerRef;
 import com._1c.g5.v8.dt.mcore.TypeItem;
 import com._1c.g5.v8.dt.platform.IEObjectProvider;
 import com._1c.g5.v8.dt.platform.IEObjectTypeNames;
 import com._1c.g5.v8.dt.platform.version.IRuntimeVersionSupport;
-import com._1c.g5.v8.dt.platform.version.Version;
 import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 
@@ -54,19 +46,18 @@ public class CommonFunctionValueTableToArrayTypesComputer
     extends AbstractCommonModuleObjectAttributeValueTypesComputer
 {
 
-    private final TypesComputer typesComputer;
-
     @Inject
     public CommonFunctionValueTableToArrayTypesComputer(TypesComputer typesComputer,
-        IRuntimeVersionSupport versionSupport, DynamicFeatureAccessComputer dynamicFeatureAccessComputer)
+        IRuntimeVersionSupport versionSupport, DynamicFeatureAccessComputer dynamicFeatureAccessComputer,
+        CommonFunctionServices services)
     {
-        super(typesComputer, versionSupport, dynamicFeatureAccessComputer);
-        this.typesComputer = typesComputer;
+        super(typesComputer, versionSupport, dynamicFeatureAccessComputer, services);
     }
 
     @Override
-    public List<TypeItem> getTypes(Invocation inv)
+    protected List<TypeItem> computeInvocationTypes(InvocationContext context)
     {
+        Invocation inv = context.getInvocation();
         if (inv.getParams().size() != 1)
             return Collections.emptyList();
 
@@ -76,9 +67,7 @@ public class CommonFunctionValueTableToArrayTypesComputer
         Expression expr = inv.getParams().get(0);
         if (expr instanceof StaticFeatureAccess)
         {
-            Environmental envs = EcoreUtil2.getContainerOfType(expr, Environmental.class);
-
-            List<TypeItem> types = typesComputer.computeTypes(expr, envs.environments());
+            List<TypeItem> types = context.getTypes(expr);
             if (types.isEmpty())
                 return Collections.emptyList();
 
@@ -88,8 +77,8 @@ public class CommonFunctionValueTableToArrayTypesComputer
                 && ((Type)type).getCollectionElementTypes().allTypes().get(0) instanceof Type)
             {
 
-                Pair<Collection<Property>, TypeItem> all = this.getDynamicFeatureAccessComputer()
-                    .getAllProperties(((Type)type).getCollectionElementTypes().allTypes(), envs.eResource())
+                Pair<Collection<Property>, TypeItem> all = getTypePropertiesCache()
+                    .getAllProperties(((Type)type).getCollectionElementTypes().allTypes(), context.getResource())
                     .stream()
                     .findFirst()
                     .orElse(null);
@@ -97,7 +86,7 @@ public class CommonFunctionValueTableToArrayTypesComputer
                 if (all == null)
                     return Collections.emptyList();
 
-                return computeTypes(inv, all.getFirst());
+                return computeTypes(context, all.getFirst());
             }
             else
             {
@@ -110,38 +99,18 @@ public class CommonFunctionValueTableToArrayTypesComputer
         }
     }
 
-    private List<TypeItem> computeTypes(Invocation inv, Collection<Property> properties)
+    private List<TypeItem> computeTypes(InvocationContext context, Collection<Property> properties)
     {
-        IEObjectProvider provider = IEObjectProvider.Registry.INSTANCE.get(McorePackage.Literals.TYPE_ITEM,
-            versionSupport.getRuntimeVersionOrDefault(inv, Version.LATEST));
-
-        TypeItem structure = provider.getProxy(IEObjectTypeNames.STRUCTURE);
-
-        Type structureType = EcoreUtil2.cloneWithProxies((Type)EcoreUtil.resolve(structure, inv));
-
-        for (Property prop : properties)
-        {
-            if (prop instanceof DerivedProperty)
-            {
-                DerivedProperty property = McoreFactory.eINSTANCE.createDerivedProperty();
-                property.setName(prop.getName());
-                property.setNameRu(prop.getNameRu());
-                property.setReadable(true);
-                property.setWritable(true);
-                property.setTypeContainer(McoreFactory.eINSTANCE.createTypeContainerRef());
-
-                ((TypeContainerRef)property.getTypeContainer()).getTypes().addAll(prop.getTypes());
-
-                property.setSource(((DerivedProperty)prop).getSource());
-
-                structureType.getContextDef().getProperties().add(property);
-            }
-        }
+        Type structureType = createStructureType(IEObjectTypeNames.STRUCTURE, properties, true, context);
+        if (structureType == null)
+            return Collections.emptyList();
 
         List<TypeItem> collectionTypes = Lists.newArrayList();
         collectionTypes.add(structureType);
 
-        ExtendedCollectionType extendedType = TypeSystemUtil.createExtendedArrayType(collectionTypes, provider, inv);
+        IEObjectProvider provider = getPlatformTypes().getProvider(context);
+        ExtendedCollectionType extendedType =
+            TypeSystemUtil.createExtendedArrayType(collectionTypes, provider, context.getInvocation());
 
         return Lists.newArrayList(extendedType);
     }
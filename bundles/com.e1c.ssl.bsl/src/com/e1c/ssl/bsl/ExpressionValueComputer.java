@@ -13,53 +13,55 @@
 package com.e1c.ssl.bsl;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 import org.eclipse.emf.ecore.EObject;
-import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.xtext.EcoreUtil2;
-import org.eclipse.xtext.nodemodel.ICompositeNode;
-import org.eclipse.xtext.nodemodel.util.NodeModelUtils;
 import org.eclipse.xtext.util.Pair;
 import org.eclipse.xtext.util.Triple;
-import org.eclipse.xtext.util.Tuples;
 
-import com._1c.g5.v8.dt.bsl.model.BinaryExpression;
-import com._1c.g5.v8.dt.bsl.model.BinaryOperation;
-import com._1c.g5.v8.dt.bsl.model.DynamicFeatureAccess;
 import com._1c.g5.v8.dt.bsl.model.Expression;
-import com._1c.g5.v8.dt.bsl.model.FeatureAccess;
 import com._1c.g5.v8.dt.bsl.model.FeatureEntry;
 import com._1c.g5.v8.dt.bsl.model.ImplicitVariable;
 import com._1c.g5.v8.dt.bsl.model.Invocation;
 import com._1c.g5.v8.dt.bsl.model.Method;
 import com._1c.g5.v8.dt.bsl.model.Module;
-import com._1c.g5.v8.dt.bsl.model.OperatorStyleCreator;
+import com._1c.g5.v8.dt.bsl.model.ModuleType;
 import com._1c.g5.v8.dt.bsl.model.SimpleStatement;
 import com._1c.g5.v8.dt.bsl.model.Statement;
 import com._1c.g5.v8.dt.bsl.model.StaticFeatureAccess;
 import com._1c.g5.v8.dt.bsl.model.StringLiteral;
 import com._1c.g5.v8.dt.bsl.resource.TypesComputer;
 import com._1c.g5.v8.dt.mcore.Environmental;
-import com._1c.g5.v8.dt.mcore.TypeItem;
-import com._1c.g5.v8.dt.mcore.util.McoreUtil;
-import com._1c.g5.v8.dt.platform.IEObjectTypeNames;
+import com._1c.g5.v8.dt.metadata.mdclass.CommonModule;
+import com.e1c.ssl.bsl.ValueFlow.Value;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
 /**
  * The computer allow to get various types of string static content from code.
- * This computer supports only simple binary operations and variable assignments, so it returns only single
- * and statically computed string content.
- * In case of cycles or some variable computing logic of string concatenation this computer should brake
- * and return {@code null}.
- *
+ * This computer supports only simple binary operations, variable assignments, creation of structures and arrays
+ * and calls of {@code Insert()} and {@code Add()} methods, so it returns only statically computed string content.
+ * In case of some variable computing logic of string concatenation this computer returns {@code null}.
+ * <br>
+ * The values of variables are computed by the dataflow pass once per method or module body and stored in
+ * the cache of the body, see {@link ValueFlow} and {@link MethodScopeCache}, so the edit of one method does not
+ * pass other methods again, and each public method is a lookup of the value at the statement
+ * of the expression. The call of the function of the same module or of the server common module takes the value
+ * from the summary of the function that is computed by its own pass. The value of each expression is memoized
+ * with the result of the pass. Within one query the bodies that are being passed are not passed again, so cyclic
+ * calls and assignments give no value, and the depth of nested computing of values of module variables
+ * and functions is limited by {@link #MAX_DEPTH_PROPERTY}. The passes and values computed with such cut
+ * evaluation are not kept, so the result does not depend on the order of queries.
  *
  * @author Dmitriy Marmyshev
  */
@@ -67,24 +69,51 @@ import com.google.inject.Singleton;
 public class ExpressionValueComputer
 {
 
-    private static final String METHOD_ARRAY_ADD_RU = "Добавить"; //$NON-NLS-1$
+    /**
+     * The name of the system property with the maximum number of operands of string concatenation to compute,
+     * the longer chains of concatenation are not computed.
+     */
+    public static final String MAX_CONCATENATION_OPERANDS_PROPERTY =
+        "com.e1c.ssl.bsl.expression.maxConcatenationOperands"; //$NON-NLS-1$
+
+    /**
+     * The name of the system property with the maximum length of the computed string concatenation,
+     * the longer strings are not computed.
+     */
+    public static final String MAX_CONCATENATION_LENGTH_PROPERTY =
+        "com.e1c.ssl.bsl.expression.maxConcatenationLength"; //$NON-NLS-1$
+
+    /**
+     * The name of the system property with the maximum depth of nested computing of expressions within one query,
+     * deeper expressions are not computed.
+     */
+    public static final String MAX_DEPTH_PROPERTY = "com.e1c.ssl.bsl.expression.maxDepth"; //$NON-NLS-1$
+
+    /**
+     * The name of the system property with the maximum number of possible string values of a variable after
+     * branches, the variable with more values is not computed.
+     */
+    public static final String MAX_VALUES_PROPERTY = "com.e1c.ssl.bsl.expression.maxValues"; //$NON-NLS-1$
 
-    private static final String METHOD_ARRAY_ADD = "Add"; //$NON-NLS-1$
+    private static final int MAX_DEPTH = Integer.getInteger(MAX_DEPTH_PROPERTY, 64);
 
-    private static final String METHOD_STRUCTURE_INSERT_RU = "Вставить"; //$NON-NLS-1$
+    private final ThreadLocal<Query> currentQuery = new ThreadLocal<>();
 
-    private static final String METHOD_STRUCTURE_INSERT = "Insert"; //$NON-NLS-1$
+    private final MethodScopeCache cache;
 
     private final TypesComputer typesComputer;
 
     /**
      * Instantiates a new expression value computer.
      *
-     * @param typesComputer the types computer, cannot be {@code null}.
+     * @param cache the cache of methods to store values of variables of bodies, cannot be {@code null}.
+     * @param typesComputer the types computer to check types of variables that are not assigned in the body,
+     * cannot be {@code null}.
      */
     @Inject
-    public ExpressionValueComputer(TypesComputer typesComputer)
+    public ExpressionValueComputer(MethodScopeCache cache, TypesComputer typesComputer)
     {
+        this.cache = cache;
         this.typesComputer = typesComputer;
     }
 
@@ -93,482 +122,278 @@ public class ExpressionValueComputer
      *
      * @param expression the expression, may be {@code null}.
      * @return the expression string content and its source string literals, may return {@code null}
-     * if the expression is {@code null} or computing logic of content is not static.
+     * if the expression is {@code null}, computing logic of content is not static or the content is not the only
+     * possible one.
      */
     public Pair<String, Collection<StringLiteral>> getExpressionContent(EObject expression)
     {
-        if (expression instanceof StringLiteral)
-        {
-            StringLiteral literal = (StringLiteral)expression;
-            String content = String.join(System.lineSeparator(), literal.lines(false));
-            return Tuples.create(content, Arrays.asList(literal));
-        }
-        else if (expression instanceof StaticFeatureAccess)
-        {
-            return getExpressionContent((StaticFeatureAccess)expression);
-        }
-        else if (expression instanceof BinaryExpression)
-        {
-            return getExpressionContent((BinaryExpression)expression);
-        }
-        return null;
+        return getValue(expression).getString();
     }
 
     /**
-     * Gets the expression string content for static feature access.
+     * Gets all possible static string contents of the expression, like the variable that is assigned in branches
+     * of {@code If} statement.
      *
-     * @param fa the static feature access, cannot be {@code null}.
-     * @return the expression string content, may return {@code null}.
+     * @param expression the expression, may be {@code null}.
+     * @return the possible string contents and their source string literals, cannot return {@code null}.
      */
-    protected Pair<String, Collection<StringLiteral>> getExpressionContent(StaticFeatureAccess fa)
+    public List<Pair<String, Collection<StringLiteral>>> getExpressionContents(EObject expression)
     {
-        Environmental envs = EcoreUtil2.getContainerOfType(fa, Environmental.class);
-        List<TypeItem> types = typesComputer.computeTypes(fa, envs.environments());
-        if (types.stream().map(McoreUtil::getTypeName).anyMatch(IEObjectTypeNames.STRING::equals))
-        {
-            SimpleStatement last = getVariableStatement(fa);
-            if (last != null)
-            {
-                return getExpressionContent(last.getRight());
-            }
-
-            String varName = fa.getName();
-            if (varName == null)
-                return null;
-
-            List<? extends Statement> statements = getAllStatements(fa);
-            ICompositeNode node = NodeModelUtils.getNode(fa);
-            last = getVariableStatement(statements, varName, node.getOffset());
-            if (last != null)
-            {
-                return getExpressionContent(last.getRight());
-            }
-        }
-        return null;
+        return new ArrayList<>(getValue(expression).getStrings());
     }
 
     /**
-     * Gets the computed string content for binary expression.
+     * Gets the 1C structure (aka {@code Map<String, String>}) with string content in keys and values
+     * for the given expression.
+     * This method computes all insertion of to the structure in current method before the expression.
      *
-     * @param bo the binary expression, cannot be {@code null}.
-     * @return the expression string content and source string literals, may return {@code null}.
+     * @param expression the expression, may be {@code null}.
+     * @return the structure expression string content, where map entry key is structure key and map entry value is
+     * triple of string literal of the structure key, structure string value for this key and string literal of the
+     * structure value, cannot return {@code null}.
      */
-    protected Pair<String, Collection<StringLiteral>> getExpressionContent(BinaryExpression bo)
+    public Map<String, Triple<StringLiteral, String, StringLiteral>> getStructureExpressionContent(EObject expression)
     {
-        if (!bo.getOperation().equals(BinaryOperation.PLUS))
-            return null;
-
-        Collection<StringLiteral> literals = new ArrayList<>();
-        String leftContent = ""; //$NON-NLS-1$
-        Pair<String, Collection<StringLiteral>> left = getExpressionContent(bo.getLeft());
-        if (left != null)
-        {
-            leftContent = left.getFirst();
-            literals.addAll(left.getSecond());
-        }
-
-        String rightContent = ""; //$NON-NLS-1$
-        Pair<String, Collection<StringLiteral>> right = getExpressionContent(bo.getRight());
-        if (right != null)
-        {
-            rightContent = right.getFirst();
-            literals.addAll(right.getSecond());
-        }
+        return new HashMap<>(getValue(expression).getEntries());
+    }
 
-        return Tuples.create(leftContent + rightContent, literals);
+    /**
+     * Gets the list of string content for the expression that is {@code Array} in 1C code
+     * with adding strings to the array.
+     *
+     * @param expression the expression, may be {@code null}.
+     * @return the list of string content, cannot return {@code null}.
+     */
+    public List<Pair<String, StringLiteral>> getArrayExpressionContent(EObject expression)
+    {
+        return new ArrayList<>(getValue(expression).getItems());
     }
 
-    private SimpleStatement getVariableStatement(StaticFeatureAccess fa)
+    private Value getValue(EObject expression)
     {
-        for (FeatureEntry entry : fa.getFeatureEntries())
-        {
-            EObject feature = entry.getFeature();
-            if (feature instanceof ImplicitVariable && feature.eContainer() instanceof SimpleStatement)
-            {
-                return (SimpleStatement)feature.eContainer();
-            }
-        }
-        return null;
+        if (!(expression instanceof Expression))
+            return Value.UNKNOWN;
+
+        return evaluate(expression, Value.UNKNOWN, () -> {
+            ValueFlow flow = getFlow(expression);
+            if (flow == null)
+                return Value.UNKNOWN;
+
+            Query query = currentQuery.get();
+            int cuts = query.cuts;
+            return flow.getValue((Expression)expression, () -> query.cuts == cuts);
+        });
     }
 
     /**
-     * Gets the 1C structure (aka {@code Map<String, String>}) with string content in keys and values
-     * for the given expression.
-     * This method computes all insertion of to the structure in current method.
+     * Gets the result of the pass over the body where the variable that is not assigned in the current body
+     * is declared: the module body for the module variable.
      *
-     * @param expression the expression, may be {@code null}.
-     * @return the structure expression string content, where map entry key is structure key and map entry value is
-     * triple of string literal of the structure key, structure string value for this key and string literal of the
-     * structure value, cannot return {@code null}.
+     * @param fa the static feature access of the variable, cannot be {@code null}.
+     * @return the result of the pass over the body of the variable, may return {@code null} if the variable is
+     * not found or the pass of its body is already running.
      */
-    public Map<String, Triple<StringLiteral, String, StringLiteral>> getStructureExpressionContent(EObject expression)
+    private ValueFlow getOuterFlow(StaticFeatureAccess fa)
     {
-        if (expression instanceof OperatorStyleCreator)
-        {
-            return getStructureExpressionContent((OperatorStyleCreator)expression);
-        }
-        else if (expression instanceof StaticFeatureAccess)
-        {
-            return getStructureExpressionContent((StaticFeatureAccess)expression);
-        }
-
-        return new HashMap<>();
+        SimpleStatement statement = getVariableStatement(fa);
+        return statement == null ? null : getFlow(statement);
     }
 
     /**
-     * Gets the structure expression string content for operator style creator of new structure.
+     * Gets the result of the pass over the body of the called function of the same module or of the server
+     * common module, so the summary of the function is computed once for all callers.
      *
-     * @param osc the perator style creator of new structure, cannot be {@code null}.
-     * @return the structure expression string content, where map entry key is structure key and map entry value is
-     * triple of string literal of the structure key, structure string value for this key and string literal of the
-     * structure value, cannot return {@code null}.
+     * @param inv the invocation of the function, cannot be {@code null}.
+     * @return the result of the pass over the function body, may return {@code null} if the function is not found
+     * or is not analyzed.
      */
-    protected Map<String, Triple<StringLiteral, String, StringLiteral>> getStructureExpressionContent(
-        OperatorStyleCreator osc)
+    private ValueFlow getCalleeFlow(Invocation inv)
     {
-        Map<String, Triple<StringLiteral, String, StringLiteral>> result = new HashMap<>();
-
-        Set<String> typeName = Set.of(IEObjectTypeNames.STRUCTURE, IEObjectTypeNames.FIXED_STRUCTURE);
-        if (!osc.getParams().isEmpty() && typeName.contains(McoreUtil.getTypeName(osc.getType())))
+        for (FeatureEntry entry : inv.getMethodAccess().getFeatureEntries())
         {
-            Expression first = osc.getParams().get(0);
-            if (osc.getParams().size() == 1 && first instanceof StaticFeatureAccess
-                && typesComputer
-                    .compute(first, EcoreUtil2.getContainerOfType(first, Environmental.class).environments())
-                    .stream()
-                    .map(McoreUtil::getTypeName)
-                    .anyMatch(IEObjectTypeNames.STRUCTURE::equals))
-            {
-                return getStructureExpressionContent((StaticFeatureAccess)first);
-            }
-            else
-            {
-                String content = getExpressionStringContent(first);
-                if (content != null)
-                {
-                    StringLiteral keyLiteral = null;
-                    if (first instanceof StringLiteral)
-                        keyLiteral = (StringLiteral)first;
-                    String[] keys = content.replace("\r", "").replace("\n", "").replace(" ", "").split(","); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$
-
-                    for (int i = 0; i < keys.length; i++)
-                    {
-                        String key = keys[i].replace(".", ""); //$NON-NLS-1$ //$NON-NLS-2$
-                        String path = keys[i];
-                        StringLiteral valueLiteral = null;
-                        if (i + 1 < osc.getParams().size())
-                        {
-                            Expression valueExpr = osc.getParams().get(i + 1);
-                            String paramValue = getExpressionStringContent(valueExpr);
-                            if (paramValue != null)
-                            {
-                                path = paramValue.trim();
-                                if (valueExpr instanceof StringLiteral)
-                                    valueLiteral = (StringLiteral)valueExpr;
-                            }
-                        }
-                        result.put(key, Tuples.create(keyLiteral, path, valueLiteral));
-                    }
-                }
-            }
+            EObject feature = entry.getFeature();
+            if (feature != null && feature.eIsProxy())
+                feature = EcoreUtil.resolve(feature, inv);
+            if (feature instanceof Method && ((Method)feature).isFunction() && isAnalyzed(inv, (Method)feature))
+                return getFlow(feature);
         }
-        return result;
+        return null;
     }
 
     /**
-     * Gets the structure expression string content for static feature access of the structure.
+     * Gets the kinds of types of the variable that is not assigned in the current body, like the parameter
+     * that is filled by calls of {@code Insert()}, so calls on variables of other types are not collected.
      *
-     * @param fa the static feature access, cannot be {@code null}.
-     * @return the structure expression string content, where map entry key is structure key and map entry value is
-     * triple of string literal of the structure key, structure string value for this key and string literal of the
-     * structure value, cannot return {@code null}.
+     * @param fa the static feature access of the variable, cannot be {@code null}.
+     * @return the union of {@link TypeKinds} of types of the variable
      */
-    protected Map<String, Triple<StringLiteral, String, StringLiteral>> getStructureExpressionContent(
-        StaticFeatureAccess fa)
+    private int getVariableKinds(StaticFeatureAccess fa)
     {
-        Map<String, Triple<StringLiteral, String, StringLiteral>> result = new HashMap<>();
-
-        Set<String> typeName = Set.of(IEObjectTypeNames.STRUCTURE, IEObjectTypeNames.FIXED_STRUCTURE);
-
         Environmental envs = EcoreUtil2.getContainerOfType(fa, Environmental.class);
-        List<String> types = typesComputer.computeTypes(fa, envs.environments())
-            .stream()
-            .map(McoreUtil::getTypeName)
-            .collect(Collectors.toList());
-        if (types.stream().anyMatch(typeName::contains))
-        {
-            final String varName = fa.getName();
-            if (varName == null)
-                return result;
+        if (envs == null)
+            return TypeKinds.NONE;
 
-            List<? extends Statement> statements = getAllStatements(fa);
+        return TypeKinds.of(typesComputer.computeTypes(fa, envs.environments()));
+    }
 
-            SimpleStatement last = getVariableStatement(fa);
-            if (last != null)
-            {
-                result = getStructureExpressionContent(last.getRight());
-            }
-            else
-            {
-                ICompositeNode node = NodeModelUtils.getNode(fa);
-                last = getVariableStatement(statements, varName, node.getOffset());
-                if (last != null)
-                {
-                    result = getStructureExpressionContent(last.getRight());
-                }
-            }
-            boolean found = last == null;
-            for (Statement statemnt : statements)
+    private boolean isAnalyzed(Invocation inv, Method method)
+    {
+        Module module = EcoreUtil2.getContainerOfType(method, Module.class);
+        if (module == null)
+            return false;
+        else if (module == EcoreUtil2.getContainerOfType(inv, Module.class))
+            return true;
+        else if (module.getModuleType() != ModuleType.COMMON_MODULE)
+            return false;
+
+        EObject owner = module.getOwner();
+        return owner instanceof CommonModule && ((CommonModule)owner).isServer();
+    }
+
+    private SimpleStatement getVariableStatement(StaticFeatureAccess fa)
+    {
+        for (FeatureEntry entry : fa.getFeatureEntries())
+        {
+            EObject feature = entry.getFeature();
+            if (feature instanceof ImplicitVariable && feature.eContainer() instanceof SimpleStatement)
             {
-                if (!found && statemnt.equals(last))
-                    continue;
-                found = true;
-                if (statemnt instanceof SimpleStatement && ((SimpleStatement)statemnt).getLeft() instanceof Invocation)
-                {
-                    SimpleStatement simple = (SimpleStatement)statemnt;
-                    Invocation inv = (Invocation)simple.getLeft();
-                    FeatureAccess methodAccess = inv.getMethodAccess();
-                    String name = methodAccess.getName();
-                    if (!inv.getParams().isEmpty()
-                        && (METHOD_STRUCTURE_INSERT_RU.equalsIgnoreCase(name)
-                            || METHOD_STRUCTURE_INSERT.equalsIgnoreCase(name))
-                        && methodAccess instanceof DynamicFeatureAccess
-                        && ((DynamicFeatureAccess)methodAccess).getSource() instanceof StaticFeatureAccess
-                        && varName.equalsIgnoreCase(
-                            ((StaticFeatureAccess)((DynamicFeatureAccess)methodAccess).getSource()).getName()))
-                    {
-                        Expression param = inv.getParams().get(0);
-                        String key = getExpressionStringContent(param);
-                        StringLiteral keyLiteral = null;
-                        if (param instanceof StringLiteral)
-                            keyLiteral = (StringLiteral)param;
-                        String path = key;
-                        StringLiteral valueLiteral = null;
-                        if (inv.getParams().size() > 1)
-                        {
-                            param = inv.getParams().get(1);
-                            path = getExpressionStringContent(param);
-                            if (param instanceof StringLiteral)
-                                valueLiteral = (StringLiteral)param;
-                        }
-                        if (key != null)
-                            result.put(key, Tuples.create(keyLiteral, path, valueLiteral));
-                    }
-                }
+                return (SimpleStatement)feature.eContainer();
             }
         }
-
-        return result;
+        return null;
     }
 
     /**
-     * Gets the list of string content for the expression that is {@code Array} in 1C code
-     * with adding strings to the array.
+     * Gets the result of the dataflow pass over the body that contains the object: the method or the module body.
+     * The pass runs once per body and its result is stored in the cache of the body. The result that uses
+     * summaries of functions or values of module variables is passed again when any of these passes is changed.
+     * The result of the pass that did not use some summaries or values because of cyclic or too deep evaluation
+     * is not stored, so it is passed again by the next query and does not depend on which body is queried first.
      *
-     * @param expression the expression, may be {@code null}.
-     * @return the list of string content, cannot return {@code null}.
+     * @param object the object in the body, cannot be {@code null}.
+     * @return the result of the pass, may return {@code null} if the pass of the body is already running.
      */
-    public List<Pair<String, StringLiteral>> getArrayExpressionContent(EObject expression)
+    private ValueFlow getFlow(EObject object)
     {
-        List<Pair<String, StringLiteral>> result = new ArrayList<>();
+        EObject body = EcoreUtil2.getContainerOfType(object, Method.class);
+        if (body == null)
+            body = EcoreUtil2.getContainerOfType(object, Module.class);
+        if (body == null)
+            return createFlow(null);
+
+        EObject key = body;
+        if (object.eResource() == null)
+            return evaluate(key, null, () -> createFlow(key));
+
+        Query query = currentQuery.get();
+        if (query != null && query.flows.containsKey(key))
+            return query.flows.get(key);
+
+        AtomicReference<ValueFlow> holder = cache.get(ValueFlow.class, key, AtomicReference::new);
+        ValueFlow flow = holder.get();
+        if (flow != null && evaluate(key, Boolean.TRUE, () -> isUpToDate(flow)))
+            return flow;
+
+        int cuts = query == null ? 0 : query.cuts;
+        ValueFlow result = evaluate(key, null, () -> createFlow(key));
+        if (result == null)
+            return null;
 
-        if (expression instanceof OperatorStyleCreator)
-        {
-            List<Pair<String, StringLiteral>> init = getArrayExpressionContent((OperatorStyleCreator)expression);
-            if (!init.isEmpty())
-                result.addAll(init);
-        }
-        else if (expression instanceof StaticFeatureAccess)
-        {
-            List<Pair<String, StringLiteral>> init = getArrayExpressionContent((StaticFeatureAccess)expression);
-            if (!init.isEmpty())
-                result.addAll(init);
-        }
+        // The pass that met the cycle or the depth limit depends on the order of queries, so it is kept
+        // for the current query only
+        if (query == null || query.cuts == cuts)
+            holder.set(result);
+        else
+            query.flows.put(key, result);
         return result;
     }
 
-    /**
-     * Gets the list of string content for operator style creater of array.
-     *
-     * @param osc the operator style creater of array, cannot be {@code null}.
-     * @return the list of string content, cannot return {@code null}.
-     */
-    protected List<Pair<String, StringLiteral>> getArrayExpressionContent(OperatorStyleCreator osc)
+    private ValueFlow createFlow(EObject body)
     {
-        List<Pair<String, StringLiteral>> result = new ArrayList<>();
+        return ValueFlow.create(body, getStatements(body), this::getOuterFlow, this::getCalleeFlow,
+            this::getVariableKinds);
+    }
 
-        if (osc.getParams().size() == 1 && IEObjectTypeNames.ARRAY.equals(McoreUtil.getTypeName(osc.getType()))
-            && osc.getParams().get(0) instanceof StaticFeatureAccess)
-        {
-            StaticFeatureAccess fa = (StaticFeatureAccess)osc.getParams().get(0);
-            Environmental envs = EcoreUtil2.getContainerOfType(fa, Environmental.class);
-            List<String> types = typesComputer.computeTypes(fa, envs.environments())
-                .stream()
-                .map(McoreUtil::getTypeName)
-                .collect(Collectors.toList());
-            if (types.contains(IEObjectTypeNames.STRING))
-            {
-                Pair<String, Collection<StringLiteral>> content = getExpressionContent(fa);
-                if (content != null)
-                {
-                    StringLiteral literal =
-                        content.getSecond().size() == 1 ? content.getSecond().iterator().next() : null;
-                    result.add(Tuples.create(content.getFirst(), literal));
-                }
-            }
-            else if (types.contains(IEObjectTypeNames.FIXED_ARRAY))
-            {
-                return getArrayExpressionContent(fa);
-            }
-        }
-        else if (!osc.getParams().isEmpty() && IEObjectTypeNames.ARRAY.equals(McoreUtil.getTypeName(osc.getType())))
-        {
-            for (Expression param : osc.getParams())
-            {
-                String content = getExpressionStringContent(param);
-                if (content != null && param instanceof StringLiteral)
-                    result.add(Tuples.create(content, (StringLiteral)param));
-                else if (content != null)
-                    result.add(Tuples.create(content, null));
-            }
-        }
-        else if (osc.getParams().size() == 1
-            && IEObjectTypeNames.FIXED_ARRAY.equals(McoreUtil.getTypeName(osc.getType())))
+    private boolean isUpToDate(ValueFlow flow)
+    {
+        for (ValueFlow dependency : flow.getDependencies())
         {
-            return getArrayExpressionContent(osc.getParams().get(0));
+            ValueFlow current = getFlow(dependency.getBody());
+            if (current != null && current != dependency)
+                return false;
         }
-        return result;
+        return true;
+    }
+
+    private List<? extends Statement> getStatements(EObject body)
+    {
+        if (body instanceof Method)
+            return ((Method)body).getStatements();
+        else if (body instanceof Module)
+            return ((Module)body).allStatements();
+        return Collections.emptyList();
     }
 
     /**
-     * Gets the list of string content for static featue access
+     * Evaluates the object within the current query or starts the new query for the current thread.
+     * The object that is already being evaluated, or the object that is too deep, is not evaluated again
+     * and the fallback value is returned, such cut evaluation is counted by the query.
      *
-     * @param fa the static featue access, cannot be {@code null}.
-     * @return the list of string content, cannot return {@code null}.
+     * @param object the object to evaluate, cannot be {@code null}.
+     * @param fallback the value to return for cyclic or too deep evaluation, may be {@code null}.
+     * @param evaluation the evaluation of the object, cannot be {@code null}.
+     * @return the result of evaluation or the fallback value
      */
-    protected List<Pair<String, StringLiteral>> getArrayExpressionContent(StaticFeatureAccess fa)
+    private <T> T evaluate(EObject object, T fallback, Supplier<T> evaluation)
     {
-        List<Pair<String, StringLiteral>> result = new ArrayList<>();
-
-        Environmental envs = EcoreUtil2.getContainerOfType(fa, Environmental.class);
-        List<TypeItem> types = typesComputer.computeTypes(fa, envs.environments());
-        if (types.stream().map(McoreUtil::getTypeName).anyMatch(IEObjectTypeNames.ARRAY::equals))
+        Query query = currentQuery.get();
+        boolean root = query == null;
+        if (root)
         {
-            final String varName = fa.getName();
-            if (varName == null)
-                return result;
-
-            List<? extends Statement> statements = getAllStatements(fa);
+            query = new Query();
+            currentQuery.set(query);
+        }
 
-            SimpleStatement last = getVariableStatement(fa);
-            if (last != null)
+        try
+        {
+            if (query.depth >= MAX_DEPTH || !query.visiting.add(object))
             {
-                result = getArrayExpressionContent(last.getRight());
+                query.cuts++;
+                return fallback;
             }
-            else
+
+            query.depth++;
+            try
             {
-                ICompositeNode node = NodeModelUtils.getNode(fa);
-                last = getVariableStatement(statements, varName, node.getOffset());
-                if (last != null)
-                {
-                    result = getArrayExpressionContent(last.getRight());
-                }
+                return evaluation.get();
             }
-            boolean found = last == null;
-
-            for (Statement statemnt : statements)
+            finally
             {
-                if (!found && statemnt.equals(last))
-                    continue;
-                found = true;
-                if (statemnt instanceof SimpleStatement && ((SimpleStatement)statemnt).getLeft() instanceof Invocation)
-                {
-                    SimpleStatement simple = (SimpleStatement)statemnt;
-                    Invocation inv = (Invocation)simple.getLeft();
-                    FeatureAccess methodAccess = inv.getMethodAccess();
-                    String name = methodAccess.getName();
-                    if (!inv.getParams().isEmpty()
-                        && (METHOD_ARRAY_ADD_RU.equalsIgnoreCase(name) || METHOD_ARRAY_ADD.equalsIgnoreCase(name))
-                        && methodAccess instanceof DynamicFeatureAccess
-                        && ((DynamicFeatureAccess)methodAccess).getSource() instanceof StaticFeatureAccess
-                        && varName.equalsIgnoreCase(
-                            ((StaticFeatureAccess)((DynamicFeatureAccess)methodAccess).getSource()).getName()))
-                    {
-                        Expression param = inv.getParams().get(0);
-                        String content = getExpressionStringContent(param);
-                        if (content != null && param instanceof StringLiteral)
-                            result.add(Tuples.create(content, (StringLiteral)param));
-                        else if (content != null)
-                            result.add(Tuples.create(content, null));
-                    }
-                }
+                query.depth--;
+                query.visiting.remove(object);
             }
         }
-        return result;
-    }
-
-    private SimpleStatement getVariableStatement(List<? extends Statement> allStatements, final String varName,
-        int varOffset)
-    {
-        if (allStatements == null)
-            return null;
-
-        for (int i = allStatements.size() - 1; i >= 0; i--)
+        finally
         {
-            Statement statement = allStatements.get(i);
-            if (statement instanceof SimpleStatement)
-            {
-                SimpleStatement simple = (SimpleStatement)statement;
-                if (simple.getLeft() instanceof StaticFeatureAccess
-                    && varName.equalsIgnoreCase(((StaticFeatureAccess)simple.getLeft()).getName())
-                    && NodeModelUtils.getNode(simple).getEndOffset() < varOffset)
-                {
-                    return simple;
-                }
-            }
-            else
-            {
-                SimpleStatement simple =
-                    getVariableStatement(EcoreUtil2.eAllOfType(statement, SimpleStatement.class), varName, varOffset);
-                if (simple != null)
-                {
-                    return simple;
-                }
-            }
+            if (root)
+                currentQuery.remove();
         }
-        return null;
     }
 
     /**
-     * Gets the all statements in current scope: method or module statements.
-     *
-     * @param fa the static feature access, cannot be {@code null}.
-     * @return the all statements, cannot return {@code null}.
+     * The state of one query of the computer: the objects that are being evaluated, the current depth
+     * of evaluation, the number of evaluations that are cut by cycles or by the depth limit and the passes
+     * that are computed with cut evaluations.
      */
-    @SuppressWarnings("unused")
-    protected List<? extends Statement> getAllStatements(StaticFeatureAccess fa)
+    private static final class Query
     {
-        @Nullable
-        Method method = EcoreUtil2.getContainerOfType(fa, Method.class);
-        if (method == null)
-        {
-            Module module = EcoreUtil2.getContainerOfType(fa, Module.class);
-            return module.allStatements();
-        }
-        else
-        {
-            return EcoreUtil2.eAllOfType(method, SimpleStatement.class);
-        }
-    }
+        private final Set<EObject> visiting = new HashSet<>();
 
-    private String getExpressionStringContent(EObject expression)
-    {
-        Pair<String, Collection<StringLiteral>> content = getExpressionContent(expression);
-        if (content != null)
-        {
-            return content.getFirst();
-        }
-        return null;
+        private final Map<EObject, ValueFlow> flows = new HashMap<>();
+
+        private int depth;
+
+        private int cuts;
     }
 
 }
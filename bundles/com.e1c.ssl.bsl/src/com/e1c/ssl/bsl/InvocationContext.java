@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright (C) 2022, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.ssl.bsl;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.xtext.EcoreUtil2;
+
+import com._1c.g5.v8.dt.bsl.model.Expression;
+import com._1c.g5.v8.dt.bsl.model.Invocation;
+import com._1c.g5.v8.dt.bsl.model.Method;
+import com._1c.g5.v8.dt.bsl.model.Module;
+import com._1c.g5.v8.dt.bsl.resource.TypesComputer;
+import com._1c.g5.v8.dt.mcore.Environmental;
+import com._1c.g5.v8.dt.mcore.TypeItem;
+import com._1c.g5.v8.dt.mcore.util.Environments;
+import com._1c.g5.v8.dt.platform.version.IRuntimeVersionSupport;
+import com._1c.g5.v8.dt.platform.version.Version;
+
+/**
+ * The context of one computation of invocation types. It is created once per invocation by
+ * {@link AbstractCommonModuleCommonFunctionTypesComputer} and passed to computers and their helpers, so the
+ * environments, the runtime version, the containers of the invocation and types of parameters are computed once.
+ * <br>
+ * The context is not thread safe and must not be kept after the computation.
+ *
+ * @author Dmitriy Marmyshev
+ */
+public final class InvocationContext
+{
+
+    private final Invocation invocation;
+
+    private final TypesComputer typesComputer;
+
+    private final IRuntimeVersionSupport versionSupport;
+
+    private final Map<Expression, List<TypeItem>> types = new IdentityHashMap<>();
+
+    private Environmental environmental;
+
+    private Version version;
+
+    private Module module;
+
+    private Method method;
+
+    private boolean methodResolved;
+
+    /**
+     * Instantiates a new invocation context.
+     *
+     * @param invocation the invocation, cannot be {@code null}.
+     * @param typesComputer the types computer, cannot be {@code null}.
+     * @param versionSupport the runtime version support, may be {@code null} then the latest version is used.
+     */
+    InvocationContext(Invocation invocation, TypesComputer typesComputer, IRuntimeVersionSupport versionSupport)
+    {
+        this.invocation = invocation;
+        this.typesComputer = typesComputer;
+        this.versionSupport = versionSupport;
+    }
+
+    /**
+     * Gets the invocation.
+     *
+     * @return the invocation, cannot return {@code null}.
+     */
+    public Invocation getInvocation()
+    {
+        return invocation;
+    }
+
+    /**
+     * Gets the resource of the invocation.
+     *
+     * @return the resource, may return {@code null}.
+     */
+    public Resource getResource()
+    {
+        return invocation.eResource();
+    }
+
+    /**
+     * Gets the environmental container of the invocation: the method or the module.
+     *
+     * @return the environmental, may return {@code null} if the invocation is not in the module.
+     */
+    public Environmental getEnvironmental()
+    {
+        if (environmental == null)
+            environmental = EcoreUtil2.getContainerOfType(invocation, Environmental.class);
+        return environmental;
+    }
+
+    /**
+     * Gets the environments of the invocation.
+     *
+     * @return the environments, may return {@code null} if the invocation is not in the module.
+     */
+    public Environments getEnvironments()
+    {
+        Environmental result = getEnvironmental();
+        return result == null ? null : result.environments();
+    }
+
+    /**
+     * Gets the runtime version of the project of the invocation or the latest version by default.
+     *
+     * @return the runtime version, cannot return {@code null}.
+     */
+    public Version getVersion()
+    {
+        if (version == null)
+            version = versionSupport == null ? Version.LATEST
+                : versionSupport.getRuntimeVersionOrDefault(invocation, Version.LATEST);
+        return version;
+    }
+
+    /**
+     * Gets the module of the invocation.
+     *
+     * @return the module, may return {@code null}.
+     */
+    public Module getModule()
+    {
+        if (module == null)
+            module = EcoreUtil2.getContainerOfType(invocation, Module.class);
+        return module;
+    }
+
+    /**
+     * Gets the method of the invocation.
+     *
+     * @return the method, may return {@code null} if the invocation is in the module body.
+     */
+    public Method getMethod()
+    {
+        if (!methodResolved)
+        {
+            method = EcoreUtil2.getContainerOfType(invocation, Method.class);
+            methodResolved = true;
+        }
+        return method;
+    }
+
+    /**
+     * Gets the types of the expression in the environments of the invocation. The types of each expression are
+     * computed once per context.
+     *
+     * @param expression the expression, usually a parameter of the invocation, may be {@code null}.
+     * @return the types of the expression, cannot return {@code null}.
+     */
+    public List<TypeItem> getTypes(Expression expression)
+    {
+        if (expression == null || getEnvironmental() == null)
+            return Collections.emptyList();
+
+        return types.computeIfAbsent(expression, e -> typesComputer.computeTypes(e, getEnvironments()));
+    }
+
+    /**
+     * Gets the types of the parameter of the invocation.
+     *
+     * @param index the index of the parameter
+     * @return the types of the parameter, cannot return {@code null}.
+     */
+    public List<TypeItem> getParamTypes(int index)
+    {
+        if (index < 0 || index >= invocation.getParams().size())
+            return Collections.emptyList();
+
+        return getTypes(invocation.getParams().get(index));
+    }
+}
@@ -0,0 +1,338 @@
+/*******************************************************************************
+ * Copyright (C) 2022, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.ssl.bsl;
+
+import static com.e1c.ssl.bsl.AbstractCommonModuleCommonFunctionTypesComputer.COMMON_CLIENT_MODULE_NAME;
+import static com.e1c.ssl.bsl.AbstractCommonModuleCommonFunctionTypesComputer.COMMON_CLIENT_MODULE_NAME_RU;
+import static com.e1c.ssl.bsl.AbstractCommonModuleCommonFunctionTypesComputer.COMMON_CLIENT_SERVER_MODULE_NAME;
+import static com.e1c.ssl.bsl.AbstractCommonModuleCommonFunctionTypesComputer.COMMON_CLIENT_SERVER_MODULE_NAME_RU;
+import static com.e1c.ssl.bsl.AbstractCommonModuleCommonFunctionTypesComputer.COMMON_MODULE_NAME;
+import static com.e1c.ssl.bsl.AbstractCommonModuleCommonFunctionTypesComputer.COMMON_MODULE_NAME_RU;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.xtext.util.IResourceScopeCache;
+import org.eclipse.xtext.util.Tuples;
+
+import com._1c.g5.v8.dt.bsl.model.DynamicFeatureAccess;
+import com._1c.g5.v8.dt.bsl.model.FeatureAccess;
+import com._1c.g5.v8.dt.bsl.model.Invocation;
+import com._1c.g5.v8.dt.bsl.model.StaticFeatureAccess;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * The dispatch table of invocations of 1C:SSL API module functions. The table is keyed by case-folded pair of
+ * module name and function name in English and Russian, and routes the invocation to the only computer of types that
+ * handles it. All function names are registered in the extension point with one computer,
+ * {@link CommonFunctionTypesComputer}, that takes the route from this table and calls only the computer of the route,
+ * so the invocation of another module or with wrong number of parameters is rejected before any computation.
+ * <br>
+ * The module name of the invocation inside of the module itself is resolved once per resource.
+ * Each route counts the invocations dispatched to it.
+ *
+ * @author Dmitriy Marmyshev
+ */
+@Singleton
+public class InvocationDispatcher
+{
+
+    private static final String MODULE_NAME_KEY = "ssl.invocationDispatcher.moduleName"; //$NON-NLS-1$
+
+    private static final String SEPARATOR = "."; //$NON-NLS-1$
+
+    private final IResourceScopeCache cache;
+
+    private final Map<String, Route> routes = new HashMap<>();
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    /**
+     * Instantiates a new invocation dispatcher with routes to all computers of 1C:SSL API module functions.
+     *
+     * @param cache the resource scope cache, cannot be {@code null}.
+     */
+    @Inject
+    public InvocationDispatcher(IResourceScopeCache cache)
+    {
+        this.cache = cache;
+
+        List<String> common = List.of(COMMON_MODULE_NAME, COMMON_MODULE_NAME_RU);
+        List<String> commonClient = List.of(COMMON_CLIENT_MODULE_NAME, COMMON_CLIENT_MODULE_NAME_RU);
+        List<String> commonClientServer =
+            List.of(COMMON_CLIENT_SERVER_MODULE_NAME, COMMON_CLIENT_SERVER_MODULE_NAME_RU);
+
+        //@formatter:off
+        addRoute(CommonFunctionCommonModuleManagerTypesComputer.class, "CommonModule", //$NON-NLS-1$
+            "ОбщийМодуль", 1, 1, common, commonClient); //$NON-NLS-1$
+        addRoute(CommonFunctionObjectManagerByRefTypesComputer.class, "ObjectManagerByRef", //$NON-NLS-1$
+            "МенеджерОбъектаПоСсылке", 1, 1, common); //$NON-NLS-1$
+        addRoute(CommonFunctionObjectManagerByFullNameTypesComputer.class, "ObjectManagerByFullName", //$NON-NLS-1$
+            "МенеджерОбъектаПоПолномуИмени", 1, 1, common); //$NON-NLS-1$
+        addRoute(CommonFunctionObjectAttributeValueTypesComputer.class, "ObjectAttributeValue", //$NON-NLS-1$
+            "ЗначениеРеквизитаОбъекта", 2, Integer.MAX_VALUE, common); //$NON-NLS-1$
+        addRoute(CommonFunctionObjectsAttributeValueTypesComputer.class, "ObjectsAttributeValue", //$NON-NLS-1$
+            "ЗначениеРеквизитаОбъектов", 2, Integer.MAX_VALUE, common); //$NON-NLS-1$
+        addRoute(CommonFunctionObjectAttributesValuesTypesComputer.class, "ObjectAttributesValues", //$NON-NLS-1$
+            "ЗначенияРеквизитовОбъекта", 2, Integer.MAX_VALUE, common); //$NON-NLS-1$
+        addRoute(CommonFunctionObjectsAttributesValuesTypesComputer.class, "ObjectsAttributesValues", //$NON-NLS-1$
+            "ЗначенияРеквизитовОбъектов", 2, Integer.MAX_VALUE, common); //$NON-NLS-1$
+        addRoute(CommonFunctionValueTableRowToStructure.class, "ValueTableRowToStructure", //$NON-NLS-1$
+            "СтрокаТаблицыЗначенийВСтруктуру", 1, 1, common); //$NON-NLS-1$
+        addRoute(CommonFunctionValueTableToArrayTypesComputer.class, "ValueTableToArray", //$NON-NLS-1$
+            "ТаблицаЗначенийВМассив", 1, 1, common); //$NON-NLS-1$
+        addRoute(CommonFunctionObjectPropertiesDetailsComputer.class, "ObjectPropertiesDetails", //$NON-NLS-1$
+            "ОписаниеСвойствОбъекта", 2, Integer.MAX_VALUE, common); //$NON-NLS-1$
+        addRoute(CommonFunctionFixedDataTypesComputer.class, "FixedData", //$NON-NLS-1$
+            "ФиксированныеДанные", 1, 1, common); //$NON-NLS-1$
+        addRoute(CommonFunctionCollapseArrayTypesComputer.class, "CollapseArray", //$NON-NLS-1$
+            "СвернутьМассив", 1, 1, commonClientServer); //$NON-NLS-1$
+        addRoute(CommonFunctionArraysDifferenceTypesComputer.class, "ArraysDifference", //$NON-NLS-1$
+            "РазностьМассивов", 2, 2, commonClientServer); //$NON-NLS-1$
+        addRoute(CommonFunctionValueInArrayTypesComputer.class, "ValueInArray", //$NON-NLS-1$
+            "ЗначениеВМассиве", 1, 1, commonClientServer); //$NON-NLS-1$
+        addRoute(CommonFunctionUnloadColumnTypesComputer.class, "UnloadColumn", //$NON-NLS-1$
+            "ВыгрузитьКолонку", 2, 3, common); //$NON-NLS-1$
+        addRoute(CommonFunctionCheckDocumentsPostingTypesComputer.class, "CheckDocumentsPosting", //$NON-NLS-1$
+            "ПроверитьПроведенностьДокументов", 1, 1, common); //$NON-NLS-1$
+        addRoute(CommonFunctionCopyRecursiveTypesComputer.class, "CopyRecursive", //$NON-NLS-1$
+            "СкопироватьРекурсивно", 1, 2, common, commonClient, commonClientServer); //$NON-NLS-1$
+        //@formatter:on
+    }
+
+    /**
+     * Checks that the invocation is routed to the computer and counts the dispatched invocation.
+     *
+     * @param computer the computer of invocation types, cannot be {@code null}.
+     * @param inv the invocation, cannot be {@code null}.
+     * @return true, if the invocation should be handled by the computer
+     */
+    public boolean dispatch(Object computer, Invocation inv)
+    {
+        Route route = getRoute(inv);
+        if (route == null || route.computerClass != computer.getClass())
+        {
+            rejectedCount.incrementAndGet();
+            return false;
+        }
+        route.count.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Gets the route of the invocation and counts the invocation that is not routed as rejected.
+     *
+     * @param inv the invocation, cannot be {@code null}.
+     * @return the route, may return {@code null} if the invocation is not 1C:SSL API module function call.
+     * @see #getRoute(Invocation)
+     */
+    public Route route(Invocation inv)
+    {
+        Route route = getRoute(inv);
+        if (route == null)
+            rejectedCount.incrementAndGet();
+        return route;
+    }
+
+    /**
+     * Gets the route of the invocation, taking into account module name, function name and number of parameters.
+     *
+     * @param inv the invocation, cannot be {@code null}.
+     * @return the route, may return {@code null} if the invocation is not 1C:SSL API module function call.
+     */
+    public Route getRoute(Invocation inv)
+    {
+        if (!(inv.getMethodAccess() instanceof FeatureAccess))
+            return null;
+
+        String methodName = ((FeatureAccess)inv.getMethodAccess()).getName();
+        String moduleName = getModuleName(inv);
+        if (methodName == null || moduleName == null)
+            return null;
+
+        Route route = routes.get(createKey(moduleName, methodName));
+        if (route == null || inv.getParams().size() < route.minParams || inv.getParams().size() > route.maxParams)
+            return null;
+
+        return route;
+    }
+
+    /**
+     * Gets the name of the module of the invocation. This is the name of the accessed module for the call like
+     * {@code Common.Function()} or the name of the current module for the call like {@code Function()}.
+     *
+     * @param inv the invocation, cannot be {@code null}.
+     * @return the name of module, may return {@code null} if the module cannot be determined.
+     */
+    public String getModuleName(Invocation inv)
+    {
+        if (inv.getMethodAccess() instanceof StaticFeatureAccess)
+        {
+            Resource resource = inv.eResource();
+            if (resource == null)
+                return null;
+
+            return cache.get(Tuples.create(MODULE_NAME_KEY, resource), resource,
+                () -> computeModuleName(inv));
+        }
+        return computeModuleName(inv);
+    }
+
+    private static String computeModuleName(Invocation inv)
+    {
+        if (inv.getMethodAccess() instanceof DynamicFeatureAccess)
+        {
+            DynamicFeatureAccess dfa = (DynamicFeatureAccess)inv.getMethodAccess();
+            if (dfa.getSource() instanceof StaticFeatureAccess)
+                return ((StaticFeatureAccess)dfa.getSource()).getName();
+        }
+        else if (inv.getMethodAccess() instanceof StaticFeatureAccess)
+        {
+            URI uri = EcoreUtil.getURI(inv);
+            return uri.segment(uri.segmentCount() - 1);
+        }
+        return null;
+    }
+
+    /**
+     * Gets the number of dispatched invocations per route, the key is English module and function name.
+     *
+     * @return the sorted map of counters, cannot return {@code null}.
+     */
+    public Map<String, Long> getStatistics()
+    {
+        Map<String, Long> result = new TreeMap<>();
+        for (Route route : new LinkedHashSet<>(routes.values()))
+        {
+            for (String moduleName : route.moduleNames)
+            {
+                result.put(moduleName + SEPARATOR + route.name, route.count.get());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the number of invocations that were rejected because they are not routed to the computer.
+     *
+     * @return the rejected count
+     */
+    public long getRejectedCount()
+    {
+        return rejectedCount.get();
+    }
+
+    /**
+     * Resets all counters of the dispatcher.
+     */
+    public void resetStatistics()
+    {
+        routes.values().forEach(r -> r.count.set(0));
+        rejectedCount.set(0);
+    }
+
+    @SafeVarargs
+    private void addRoute(Class<? extends AbstractCommonModuleCommonFunctionTypesComputer> computerClass, String name,
+        String nameRu, int minParams, int maxParams, List<String>... modules)
+    {
+        Set<String> moduleNames = new LinkedHashSet<>();
+        for (List<String> module : modules)
+        {
+            moduleNames.add(module.get(0));
+        }
+
+        Route route = new Route(computerClass, name, minParams, maxParams, moduleNames);
+        for (List<String> module : modules)
+        {
+            for (String moduleName : module)
+            {
+                routes.put(createKey(moduleName, name), route);
+                routes.put(createKey(moduleName, nameRu), route);
+            }
+        }
+    }
+
+    private static String createKey(String moduleName, String methodName)
+    {
+        return moduleName.toLowerCase() + SEPARATOR + methodName.toLowerCase();
+    }
+
+    /**
+     * The route of 1C:SSL API module function to the computer of invocation types.
+     */
+    public static final class Route
+    {
+        private final Class<?> computerClass;
+
+        private final String name;
+
+        private final int minParams;
+
+        private final int maxParams;
+
+        private final Collection<String> moduleNames;
+
+        private final AtomicLong count = new AtomicLong();
+
+        private Route(Class<?> computerClass, String name, int minParams, int maxParams,
+            Collection<String> moduleNames)
+        {
+            this.computerClass = computerClass;
+            this.name = name;
+            this.minParams = minParams;
+            this.maxParams = maxParams;
+            this.moduleNames = Collections.unmodifiableCollection(moduleNames);
+        }
+
+        /**
+         * Gets the class of the computer that handles the function.
+         *
+         * @return the computer class
+         */
+        public Class<?> getComputerClass()
+        {
+            return computerClass;
+        }
+
+        /**
+         * Gets the English name of the function.
+         *
+         * @return the function name
+         */
+        public String getName()
+        {
+            return name;
+        }
+
+        /**
+         * Gets the number of invocations dispatched to this route.
+         *
+         * @return the count
+         */
+        public long getCount()
+        {
+            return count.get();
+        }
+    }
+}
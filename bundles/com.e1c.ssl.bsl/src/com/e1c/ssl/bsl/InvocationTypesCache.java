@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (C) 2022, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.ssl.bsl;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.xtext.EcoreUtil2;
+import org.eclipse.xtext.util.Tuples;
+
+import com._1c.g5.v8.dt.bsl.model.FeatureEntry;
+import com._1c.g5.v8.dt.bsl.model.Invocation;
+import com._1c.g5.v8.dt.bsl.model.Method;
+import com._1c.g5.v8.dt.bsl.model.Module;
+import com._1c.g5.v8.dt.bsl.model.Statement;
+import com._1c.g5.v8.dt.bsl.typesystem.IInvocationTypesComputerExtension;
+import com._1c.g5.v8.dt.mcore.TypeItem;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+
+/**
+ * The cache of types computed by invocation types computers of 1C:SSL API module functions.
+ * The result is stored in the scope of the method of the invocation with the key of the computer, the invocation
+ * and its environments, so the edit of the method evicts only results of invocations of this method, see
+ * {@link MethodScopeCache}. The cache hit does not compute types of parameters.
+ * <br>
+ * Computers depend on types of parameters, that may change while the text of the method is not changed, like
+ * after the edit of the function which result is passed to the parameter. So methods invoked in the body of
+ * the invocation and the module body are used by the method of the invocation, and the edit of any of them evicts
+ * results of the method. Computers also depend on static values of parameters, like names of attributes returned
+ * by the function of other module, that are taken from passes over other bodies, that are used the same way,
+ * and on properties of metadata objects, that are tracked by {@link MetadataDependencies}.
+ *
+ * @author Dmitriy Marmyshev
+ */
+@Singleton
+public class InvocationTypesCache
+{
+
+    private final MethodScopeCache cache;
+
+    private final AtomicLong requestCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * Instantiates a new invocation types cache.
+     *
+     * @param cache the cache of values of methods of BSL resources, cannot be {@code null}.
+     */
+    @Inject
+    public InvocationTypesCache(MethodScopeCache cache)
+    {
+        this.cache = cache;
+    }
+
+    /**
+     * Gets the cached types of the invocation or computes them with the provider.
+     *
+     * @param computer the computer of the types, cannot be {@code null}.
+     * @param context the context of the invocation, that computes types of parameters, cannot be {@code null}.
+     * @param provider the provider that computes types in case of cache miss, cannot be {@code null}.
+     * @return the types of the invocation, cannot return {@code null}.
+     */
+    public List<TypeItem> get(IInvocationTypesComputerExtension computer, InvocationContext context,
+        Provider<List<TypeItem>> provider)
+    {
+        requestCount.incrementAndGet();
+
+        Invocation inv = context.getInvocation();
+        if (inv.eResource() == null)
+        {
+            missCount.incrementAndGet();
+            return provider.get();
+        }
+
+        Object key = Tuples.create(computer.getClass(), inv, context.getEnvironments());
+        return cache.get(key, inv, () -> {
+            missCount.incrementAndGet();
+            List<TypeItem> result = provider.get();
+            useInvokedMethods(context);
+            return result;
+        });
+    }
+
+    /**
+     * Uses bodies of methods invoked in the body of the invocation and the module body, that return types
+     * of parameters, so results of the body are evicted when any of these methods is changed. The invocations are
+     * already linked by computing of types of parameters.
+     */
+    private void useInvokedMethods(InvocationContext context)
+    {
+        Module module = context.getModule();
+        if (module == null)
+            return;
+
+        cache.use(module);
+        if (context.getMethod() != null)
+        {
+            useInvokedMethods(context.getMethod(), context.getMethod());
+            return;
+        }
+        for (Statement statement : module.allStatements())
+            useInvokedMethods(statement, null);
+    }
+
+    private void useInvokedMethods(EObject body, Method method)
+    {
+        for (Invocation inv : EcoreUtil2.eAllOfType(body, Invocation.class))
+        {
+            for (FeatureEntry entry : inv.getMethodAccess().getFeatureEntries())
+            {
+                EObject feature = entry.getFeature();
+                if (feature != null && feature.eIsProxy())
+                    feature = EcoreUtil.resolve(feature, inv);
+                if (feature instanceof Method && feature != method)
+                    cache.use(feature);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of requests to the cache that were served from the cache.
+     *
+     * @return the hit count
+     */
+    public long getHitCount()
+    {
+        return requestCount.get() - missCount.get();
+    }
+
+    /**
+     * Gets the number of requests to the cache that required to compute types.
+     *
+     * @return the miss count
+     */
+    public long getMissCount()
+    {
+        return missCount.get();
+    }
+
+    /**
+     * Resets hit and miss counters of the cache.
+     */
+    public void resetStatistics()
+    {
+        requestCount.set(0);
+        missCount.set(0);
+    }
+
+}
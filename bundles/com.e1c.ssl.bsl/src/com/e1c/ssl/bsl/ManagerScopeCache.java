@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (C) 2022, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.ssl.bsl;
+
+import static com._1c.g5.v8.dt.mcore.McorePackage.Literals.TYPE_DESCRIPTION__TYPES;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.resource.IEObjectDescription;
+import org.eclipse.xtext.scoping.IScope;
+import org.eclipse.xtext.scoping.IScopeProvider;
+import org.eclipse.xtext.util.IResourceScopeCache;
+import org.eclipse.xtext.util.Pair;
+import org.eclipse.xtext.util.Tuples;
+
+import com._1c.g5.v8.dt.bsl.model.BslFactory;
+import com._1c.g5.v8.dt.bsl.model.BslPackage;
+import com._1c.g5.v8.dt.bsl.model.Invocation;
+import com._1c.g5.v8.dt.bsl.model.Method;
+import com._1c.g5.v8.dt.bsl.model.Module;
+import com._1c.g5.v8.dt.bsl.model.VariablesScopeSpec;
+import com._1c.g5.v8.dt.mcore.DerivedProperty;
+import com._1c.g5.v8.dt.mcore.McorePackage;
+import com._1c.g5.v8.dt.mcore.Type;
+import com._1c.g5.v8.dt.mcore.util.Environments;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * The cache of scopes that resolve manager types of MD objects and global variables of common modules.
+ * The maps of already resolved qualified names are stored in the scope of the resource of the invocation with
+ * the key of its environments, so each name is resolved once until the resource is changed. The resolved name is
+ * evicted when the metadata object with the last segment of the name is added, renamed or deleted in the project of
+ * the resource or in its base configuration, see {@link MetadataDependencies}. The scope itself is not cached, it is
+ * taken from the scope provider for each name that is not resolved yet, so the evicted name is resolved with
+ * the actual metadata objects.
+ *
+ * @author Dmitriy Marmyshev
+ */
+@Singleton
+public class ManagerScopeCache
+{
+
+    private final IResourceScopeCache cache;
+
+    private final IScopeProvider scopeProvider;
+
+    private final MetadataDependencies dependencies;
+
+    /**
+     * Instantiates a new manager scope cache.
+     *
+     * @param cache the resource scope cache of BSL resources, cannot be {@code null}.
+     * @param scopeProvider the scope provider of BSL resources, cannot be {@code null}.
+     * @param dependencies the map of dependencies from metadata objects, cannot be {@code null}.
+     */
+    @Inject
+    public ManagerScopeCache(IResourceScopeCache cache, IScopeProvider scopeProvider,
+        MetadataDependencies dependencies)
+    {
+        this.cache = cache;
+        this.scopeProvider = scopeProvider;
+        this.dependencies = dependencies;
+    }
+
+    /**
+     * Gets the type by its fully qualified name like {@code CatalogManager.Products}.
+     *
+     * @param fqn the fully qualified name of the type, cannot be {@code null}.
+     * @param context the context of the invocation, cannot be {@code null}.
+     * @return the resolved type, may return {@code null} if the type is not found.
+     */
+    public Type getType(QualifiedName fqn, InvocationContext context)
+    {
+        return getTypeScope(context).get(fqn, context.getInvocation());
+    }
+
+    /**
+     * Gets types by its fully qualified names in one pass over the same scope.
+     *
+     * @param fqns the fully qualified names of types, cannot be {@code null}.
+     * @param context the context of the invocation, cannot be {@code null}.
+     * @return the resolved types by names in the order of names, names that are not found are skipped,
+     * cannot return {@code null}.
+     */
+    public Map<QualifiedName, Type> getTypes(Collection<QualifiedName> fqns, InvocationContext context)
+    {
+        ResolvedScope<Type> scope = getTypeScope(context);
+        Map<QualifiedName, Type> result = new LinkedHashMap<>();
+        for (QualifiedName fqn : fqns)
+        {
+            Type type = scope.get(fqn, context.getInvocation());
+            if (type != null)
+                result.put(fqn, type);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the global property by its name in the variables scope of the method or the module of the invocation,
+     * like the property of common module.
+     *
+     * @param name the name of the property, cannot be {@code null}.
+     * @param context the context of the invocation, cannot be {@code null}.
+     * @return the resolved property, may return {@code null} if the property is not found.
+     */
+    public DerivedProperty getProperty(QualifiedName name, InvocationContext context)
+    {
+        Module module = context.getModule();
+        Method method = context.getMethod();
+        Environments environments = context.getEnvironments();
+        EObject owner = method == null ? module : method;
+        Supplier<IScope> variables = () -> {
+            VariablesScopeSpec spec = BslFactory.eINSTANCE.createVariablesScopeSpec();
+            spec.setModule(module);
+            spec.setMethod(method);
+            spec.setEnvironments(environments);
+            return scopeProvider.getScope(spec, BslPackage.Literals.FAKE_REFERENCE__PROPERTY);
+        };
+        ResolvedScope<DerivedProperty> scope = getScope(context,
+            Tuples.create(VariablesScopeSpec.class, owner, environments), () -> new ResolvedScope<>(variables,
+                McorePackage.Literals.DERIVED_PROPERTY, DerivedProperty.class, dependencies));
+        return scope.get(name, context.getInvocation());
+    }
+
+    private ResolvedScope<Type> getTypeScope(InvocationContext context)
+    {
+        Invocation inv = context.getInvocation();
+        return getScope(context, Tuples.create(TYPE_DESCRIPTION__TYPES, context.getEnvironments()),
+            () -> new ResolvedScope<>(() -> scopeProvider.getScope(inv, TYPE_DESCRIPTION__TYPES),
+                McorePackage.Literals.TYPE, Type.class, dependencies));
+    }
+
+    private <T extends EObject> ResolvedScope<T> getScope(InvocationContext context, Object key,
+        Supplier<ResolvedScope<T>> provider)
+    {
+        Resource resource = context.getResource();
+        if (resource == null)
+            return provider.get();
+
+        return cache.get(key, resource, provider::get);
+    }
+
+    /**
+     * The resolved objects by qualified names with the supplier of the actual scope to resolve new names.
+     *
+     * @param <T> the type of resolved objects
+     */
+    private static final class ResolvedScope<T extends EObject>
+        implements MetadataDependencies.Dependent
+    {
+        private final Supplier<IScope> scope;
+
+        private final EClass eClass;
+
+        private final Class<T> instanceClass;
+
+        private final MetadataDependencies dependencies;
+
+        private final ConcurrentMap<QualifiedName, Optional<T>> resolved = new ConcurrentHashMap<>();
+
+        ResolvedScope(Supplier<IScope> scope, EClass eClass, Class<T> instanceClass, MetadataDependencies dependencies)
+        {
+            this.scope = scope;
+            this.eClass = eClass;
+            this.instanceClass = instanceClass;
+            this.dependencies = dependencies;
+        }
+
+        T get(QualifiedName name, EObject context)
+        {
+            Pair<IProject, String> dependency = dependencies.getKey(context, name.getLastSegment().toLowerCase());
+            Optional<T> result = resolved.get(name);
+            if (result == null)
+            {
+                result = Optional.ofNullable(resolve(name, context));
+                if (resolved.putIfAbsent(name, result) == null)
+                    dependencies.addDependent(dependency, this);
+            }
+            dependencies.addDependency(dependency);
+            return result.orElse(null);
+        }
+
+        @Override
+        public void invalidate(String name)
+        {
+            resolved.keySet().removeIf(key -> name.equalsIgnoreCase(key.getLastSegment()));
+        }
+
+        private T resolve(QualifiedName name, EObject context)
+        {
+            IEObjectDescription elem = scope.get().getSingleElement(name);
+            if (elem == null || elem.getEClass() != eClass)
+                return null;
+
+            EObject object = EcoreUtil.resolve(elem.getEObjectOrProxy(), context);
+            return instanceClass.isInstance(object) ? instanceClass.cast(object) : null;
+        }
+    }
+}
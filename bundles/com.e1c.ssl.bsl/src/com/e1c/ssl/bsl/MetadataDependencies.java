@@ -0,0 +1,495 @@
+/*******************************************************************************
+ * Copyright (C) 2022, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.ssl.bsl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.xtext.util.Pair;
+import org.eclipse.xtext.util.Tuples;
+
+import com._1c.g5.v8.bm.core.IBmObject;
+import com._1c.g5.v8.bm.core.event.BmEvent;
+import com._1c.g5.v8.bm.core.event.BmSubEvent;
+import com._1c.g5.v8.bm.core.event.IBmPostChangeListener;
+import com._1c.g5.v8.bm.integration.IBmModel;
+import com._1c.g5.v8.dt.core.platform.IBmModelManager;
+import com._1c.g5.v8.dt.core.platform.IDependentProject;
+import com._1c.g5.v8.dt.core.platform.IResourceLookup;
+import com._1c.g5.v8.dt.core.platform.IV8Project;
+import com._1c.g5.v8.dt.core.platform.IV8ProjectManager;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * The reverse dependency map from metadata objects to entries of caches of this bundle, like properties of types,
+ * resolved manager types, exports of common modules and values of methods. The dependency is keyed by the project
+ * and the lower case fully qualified name of the top metadata object, like {@code catalog.products} for
+ * {@code Catalog.Products}, so objects with the same name of different classes or of different projects do not
+ * evict each other. The name that is not resolved yet, and whose class is not known, is keyed by the project and
+ * the lower case name of the object, like {@code products}, so it depends on the object of any class that may be
+ * added with this name.
+ * <br>
+ * The map listens to changes of BM models of projects with the metadata objects that are used by caches, and
+ * invalidates only dependents of changed top objects: the change of an attribute, a tabular section or a register
+ * dimension is the change of its top object, the rename is the change of the old and the new objects. Changes of
+ * other metadata objects do not touch caches. The change of the configuration itself or of a common attribute,
+ * that adds properties to many top objects, invalidates all dependents of the project. Extensions and external
+ * objects see metadata objects of the base configuration, so the change in the base configuration project also
+ * invalidates dependents with the same key in projects of its extensions and external objects.
+ * <br>
+ * The dependent that is computed with {@link #compute(Dependent, Supplier)} depends on all keys that are used
+ * while it is computed, including keys of other dependents that are taken from caches. Dependents are held weakly,
+ * keys without dependents are pruned when the map grows and keys of the closed project are removed.
+ *
+ * @author Dmitriy Marmyshev
+ */
+@Singleton
+public class MetadataDependencies
+    implements CacheManager.ProjectCache
+{
+
+    private static final String SEPARATOR = "."; //$NON-NLS-1$
+
+    private static final String COMMON_ATTRIBUTE_FQN_PREFIX = "commonattribute."; //$NON-NLS-1$
+
+    private static final int MIN_PRUNE_SIZE = 1024;
+
+    private final IBmModelManager bmModelManager;
+
+    private final IResourceLookup resourceLookup;
+
+    private final IV8ProjectManager v8ProjectManager;
+
+    private final ConcurrentMap<IProject, ModelListener> listeners = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<IProject, IProject> parents = new ConcurrentHashMap<>();
+
+    private final Map<Pair<IProject, String>, Set<Dependent>> dependents = new HashMap<>();
+
+    private final Map<Dependent, Set<Pair<IProject, String>>> keys = new WeakHashMap<>();
+
+    private final ThreadLocal<Deque<Dependent>> computing = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private int pruneSize = MIN_PRUNE_SIZE;
+
+    /**
+     * Instantiates a new map of dependencies from metadata objects.
+     *
+     * @param bmModelManager the BM model manager, cannot be {@code null}.
+     * @param resourceLookup the resource lookup service, cannot be {@code null}.
+     * @param v8ProjectManager the manager of V8 projects that gives base projects of extensions,
+     * cannot be {@code null}.
+     * @param manager the manager of memory of caches that notifies about closed projects, cannot be {@code null}.
+     */
+    @Inject
+    public MetadataDependencies(IBmModelManager bmModelManager, IResourceLookup resourceLookup,
+        IV8ProjectManager v8ProjectManager, CacheManager manager)
+    {
+        this.bmModelManager = bmModelManager;
+        this.resourceLookup = resourceLookup;
+        this.v8ProjectManager = v8ProjectManager;
+        manager.addProjectCache(this);
+    }
+
+    /**
+     * Gets the key of the top metadata object of the object and listens to changes of its BM model.
+     *
+     * @param object the object, cannot be {@code null}.
+     * @return the project and the lower case fully qualified name of the top metadata object, or {@code null}
+     * if the object is not stored in BM model, like types of the platform.
+     */
+    public Pair<IProject, String> getKey(EObject object)
+    {
+        if (!(object instanceof IBmObject) || object.eIsProxy())
+            return null;
+
+        IBmObject top = ((IBmObject)object).bmGetTopObject();
+        String fqn = top == null ? null : toTopFqn(top.bmGetFqn());
+        return fqn == null ? null : getKey(resourceLookup.getProject(object), fqn);
+    }
+
+    /**
+     * Gets the key of the top metadata object that is visible in the project of the context object, and listens
+     * to changes of BM models of the project and of its base configuration.
+     *
+     * @param context the context object, cannot be {@code null}.
+     * @param name the lower case fully qualified name of the top metadata object, like {@code commonmodule.common},
+     * or the lower case name of the object of unknown class, like {@code common}, cannot be {@code null}.
+     * @return the key of the metadata object, or {@code null} if the context object is not in a project.
+     */
+    public Pair<IProject, String> getKey(EObject context, String name)
+    {
+        return context.eResource() == null ? null : getKey(resourceLookup.getProject(context), name);
+    }
+
+    /**
+     * Adds the dependent of the metadata object with the key.
+     *
+     * @param key the key of the metadata object, may be {@code null}.
+     * @param dependent the dependent, cannot be {@code null}.
+     */
+    public void addDependent(Pair<IProject, String> key, Dependent dependent)
+    {
+        if (key == null)
+            return;
+
+        synchronized (dependents)
+        {
+            add(key, dependent);
+        }
+    }
+
+    /**
+     * Adds the dependency on the metadata object with the key to all dependents that are computed
+     * in the current thread.
+     *
+     * @param key the key of the metadata object, may be {@code null}.
+     */
+    public void addDependency(Pair<IProject, String> key)
+    {
+        Deque<Dependent> current = computing.get();
+        if (key == null || current.isEmpty())
+            return;
+
+        synchronized (dependents)
+        {
+            for (Dependent dependent : current)
+                add(key, dependent);
+        }
+    }
+
+    /**
+     * Adds all dependencies of the dependent, that is taken from the cache, to all dependents that are computed
+     * in the current thread.
+     *
+     * @param dependent the dependent taken from the cache, cannot be {@code null}.
+     */
+    public void addDependencies(Dependent dependent)
+    {
+        Deque<Dependent> current = computing.get();
+        if (current.isEmpty())
+            return;
+
+        synchronized (dependents)
+        {
+            Set<Pair<IProject, String>> used = keys.get(dependent);
+            if (used == null)
+                return;
+
+            for (Pair<IProject, String> key : new ArrayList<>(used))
+            {
+                for (Dependent other : current)
+                    add(key, other);
+            }
+        }
+    }
+
+    /**
+     * Computes the value of the dependent, so the dependent depends on all keys that are used in the computation.
+     *
+     * @param <T> the type of the value
+     * @param dependent the dependent, cannot be {@code null}.
+     * @param computation the computation of the value, cannot be {@code null}.
+     * @return the computed value
+     */
+    public <T> T compute(Dependent dependent, Supplier<T> computation)
+    {
+        Deque<Dependent> current = computing.get();
+        current.push(dependent);
+        try
+        {
+            return computation.get();
+        }
+        finally
+        {
+            current.pop();
+        }
+    }
+
+    /**
+     * Invalidates all dependents of the metadata object with the name in the project and in projects
+     * of its extensions and external objects.
+     *
+     * @param project the project of the changed metadata object, cannot be {@code null}.
+     * @param name the lower case fully qualified name of the top metadata object, or the lower case name
+     * of the object of unknown class, cannot be {@code null}.
+     */
+    public void invalidate(IProject project, String name)
+    {
+        invalidate(project, Collections.singleton(name));
+    }
+
+    /**
+     * Invalidates all dependents of metadata objects of the project and of projects of its extensions
+     * and external objects, like after the change of the configuration or of a common attribute.
+     *
+     * @param project the project of the changed metadata objects, cannot be {@code null}.
+     */
+    public void invalidate(IProject project)
+    {
+        invalidate(project, (Collection<String>)null);
+    }
+
+    @Override
+    public void clearProject(IProject project)
+    {
+        ModelListener listener = listeners.remove(project);
+        if (listener != null)
+            listener.model.removePostChangeListener(listener);
+        parents.remove(project);
+        parents.values().removeIf(project::equals);
+
+        synchronized (dependents)
+        {
+            for (Iterator<Map.Entry<Pair<IProject, String>, Set<Dependent>>> iterator =
+                dependents.entrySet().iterator(); iterator.hasNext();)
+            {
+                Map.Entry<Pair<IProject, String>, Set<Dependent>> entry = iterator.next();
+                if (!project.equals(entry.getKey().getFirst()))
+                    continue;
+
+                iterator.remove();
+                for (Dependent dependent : entry.getValue())
+                    removeKey(dependent, entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Stops listening to changes of BM models and clears the map.
+     */
+    public void dispose()
+    {
+        for (ModelListener listener : listeners.values())
+            listener.model.removePostChangeListener(listener);
+        listeners.clear();
+        parents.clear();
+
+        synchronized (dependents)
+        {
+            dependents.clear();
+            keys.clear();
+        }
+    }
+
+    private Pair<IProject, String> getKey(IProject project, String name)
+    {
+        if (project == null)
+            return null;
+
+        subscribe(project);
+        IProject parent = getParent(project);
+        if (parent != null)
+            subscribe(parent);
+        return Tuples.create(project, name);
+    }
+
+    private void postChange(IProject project, BmEvent event)
+    {
+        Set<String> changed = new HashSet<>();
+        for (Map.Entry<String, BmSubEvent> entry : event.getEntries())
+        {
+            String fqn = toTopFqn(entry.getKey());
+            if (fqn == null || fqn.startsWith(COMMON_ATTRIBUTE_FQN_PREFIX))
+            {
+                // The configuration or the common attribute may change properties of any top object
+                invalidate(project);
+                return;
+            }
+            changed.add(fqn);
+            changed.add(fqn.substring(fqn.indexOf(SEPARATOR) + 1));
+        }
+        invalidate(project, changed);
+    }
+
+    /**
+     * Invalidates dependents of changed names, or all dependents if names are {@code null}, in the project
+     * and in projects of its extensions and external objects.
+     */
+    private void invalidate(IProject project, Collection<String> changed)
+    {
+        // Extensions and external objects of the changed project see its metadata objects
+        Set<IProject> projects = new HashSet<>();
+        projects.add(project);
+        for (Map.Entry<IProject, IProject> entry : parents.entrySet())
+        {
+            if (project.equals(entry.getValue()))
+                projects.add(entry.getKey());
+        }
+
+        List<Map.Entry<String, Dependent>> invalidated = new ArrayList<>();
+        synchronized (dependents)
+        {
+            if (changed == null)
+            {
+                for (Iterator<Map.Entry<Pair<IProject, String>, Set<Dependent>>> iterator =
+                    dependents.entrySet().iterator(); iterator.hasNext();)
+                {
+                    Map.Entry<Pair<IProject, String>, Set<Dependent>> entry = iterator.next();
+                    if (projects.contains(entry.getKey().getFirst()))
+                    {
+                        iterator.remove();
+                        remove(entry.getKey(), entry.getValue(), invalidated);
+                    }
+                }
+            }
+            else
+            {
+                for (IProject affected : projects)
+                {
+                    for (String name : changed)
+                    {
+                        Pair<IProject, String> key = Tuples.create(affected, name);
+                        Set<Dependent> removed = dependents.remove(key);
+                        if (removed != null)
+                            remove(key, removed, invalidated);
+                    }
+                }
+            }
+        }
+
+        // Dependents are invalidated out of the lock, because they may use their own locks
+        for (Map.Entry<String, Dependent> entry : invalidated)
+            entry.getValue().invalidate(entry.getKey());
+    }
+
+    private void remove(Pair<IProject, String> key, Set<Dependent> removed,
+        List<Map.Entry<String, Dependent>> invalidated)
+    {
+        for (Dependent dependent : removed)
+        {
+            invalidated.add(Map.entry(key.getSecond(), dependent));
+            removeKey(dependent, key);
+        }
+    }
+
+    private void removeKey(Dependent dependent, Pair<IProject, String> key)
+    {
+        Set<Pair<IProject, String>> used = keys.get(dependent);
+        if (used != null && used.remove(key) && used.isEmpty())
+            keys.remove(dependent);
+    }
+
+    private void add(Pair<IProject, String> key, Dependent dependent)
+    {
+        Set<Dependent> set = dependents.get(key);
+        if (set == null)
+        {
+            // Dependents are held weakly, so sets of collected dependents are pruned when the map grows
+            if (dependents.size() >= pruneSize)
+            {
+                dependents.values().removeIf(Set::isEmpty);
+                pruneSize = Math.max(MIN_PRUNE_SIZE, 2 * dependents.size());
+            }
+            set = Collections.newSetFromMap(new WeakHashMap<>());
+            dependents.put(key, set);
+        }
+        set.add(dependent);
+        keys.computeIfAbsent(dependent, k -> new HashSet<>()).add(key);
+    }
+
+    private IProject getParent(IProject project)
+    {
+        // The project without the base configuration is its own parent
+        IProject parent = parents.computeIfAbsent(project, key -> {
+            IV8Project v8Project = v8ProjectManager.getProject(key);
+            if (!(v8Project instanceof IDependentProject) || ((IDependentProject)v8Project).getParent() == null)
+                return key;
+            return ((IDependentProject)v8Project).getParent();
+        });
+        return parent.equals(project) ? null : parent;
+    }
+
+    private void subscribe(IProject project)
+    {
+        if (listeners.containsKey(project))
+            return;
+
+        IBmModel model = bmModelManager.getModel(project);
+        if (model == null)
+            return;
+
+        ModelListener listener = new ModelListener(project, model);
+        if (listeners.putIfAbsent(project, listener) == null)
+            model.addPostChangeListener(listener);
+    }
+
+    /**
+     * Gets the lower case fully qualified name of the top object, like {@code catalog.products}.
+     */
+    private static String toTopFqn(String fqn)
+    {
+        if (fqn == null)
+            return null;
+
+        int start = fqn.indexOf(SEPARATOR);
+        if (start < 0 || start == fqn.length() - 1)
+            return null;
+
+        int end = fqn.indexOf(SEPARATOR, start + 1);
+        return (end < 0 ? fqn : fqn.substring(0, end)).toLowerCase();
+    }
+
+    /**
+     * The listener of changes of BM model of one project.
+     */
+    private final class ModelListener
+        implements IBmPostChangeListener
+    {
+        private final IProject project;
+
+        private final IBmModel model;
+
+        ModelListener(IProject project, IBmModel model)
+        {
+            this.project = project;
+            this.model = model;
+        }
+
+        @Override
+        public void postChange(BmEvent event)
+        {
+            MetadataDependencies.this.postChange(project, event);
+        }
+    }
+
+    /**
+     * The entry of the cache that depends on metadata objects.
+     */
+    public interface Dependent
+    {
+        /**
+         * Invalidates the cached values that depend on the changed metadata object.
+         *
+         * @param name the lower case fully qualified name of the changed top metadata object, or the lower case
+         * name of the object for dependents of the object of unknown class, cannot be {@code null}.
+         */
+        void invalidate(String name);
+    }
+}
@@ -0,0 +1,368 @@
+/*******************************************************************************
+ * Copyright (C) 2022, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.ssl.bsl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.xtext.EcoreUtil2;
+import org.eclipse.xtext.nodemodel.ICompositeNode;
+import org.eclipse.xtext.nodemodel.util.NodeModelUtils;
+import org.eclipse.xtext.util.IResourceScopeCache;
+
+import com._1c.g5.v8.dt.bsl.model.Method;
+import com._1c.g5.v8.dt.bsl.model.Module;
+import com._1c.g5.v8.dt.bsl.model.Statement;
+import com._1c.g5.v8.dt.core.platform.IResourceLookup;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+
+/**
+ * The cache of values computed for objects of BSL modules, like types of invocations and results of dataflow passes.
+ * Unlike the resource scope cache, that is evicted entirely when the resource is changed, values are stored
+ * per body: per method, or per module for module level statements, so the edit in one method of the module
+ * does not evict values of other methods.
+ * <br>
+ * Each body keeps its text in the node model: the text of the method node, or texts of nodes of module level
+ * statements for the module. The text does not depend on the offset of the body, so the edit above the method
+ * does not change it. When the resource is changed, the text of the body is compared with the kept text once
+ * on the first access after the change, and values of the body are evicted if its text is changed. Bodies that
+ * are not in the resource after the change, like methods replaced by the partial parser, are removed with their
+ * values. Values of the body are also evicted when metadata objects that are used to compute any of them are
+ * changed, see {@link MetadataDependencies}.
+ * <br>
+ * The value of the body may be computed with values of other bodies, like types of the invocation that takes
+ * the parameter from the summary of the function of other module. Such bodies are used by the body, and values
+ * of the body are evicted when any of used bodies is changed or evicted, including bodies used by used bodies.
+ * Used bodies are checked on each access to the body, so the edit of the called function or the module variable
+ * is seen by callers that are not changed. Values of each body are the entry of the region of the
+ * project in the {@link CacheManager}, so least recently used bodies are evicted when the budget is exceeded.
+ *
+ * @author Dmitriy Marmyshev
+ */
+@Singleton
+public class MethodScopeCache
+{
+
+    private final IResourceScopeCache cache;
+
+    private final MetadataDependencies dependencies;
+
+    private final CacheManager manager;
+
+    private final IResourceLookup resourceLookup;
+
+    private final ThreadLocal<Deque<Values>> computing = ThreadLocal.withInitial(ArrayDeque::new);
+
+    /**
+     * Instantiates a new method scope cache.
+     *
+     * @param cache the resource scope cache of BSL resources that tracks changes of resources,
+     * cannot be {@code null}.
+     * @param dependencies the map of dependencies from metadata objects, cannot be {@code null}.
+     * @param manager the manager of memory of caches, cannot be {@code null}.
+     * @param resourceLookup the resource lookup service, cannot be {@code null}.
+     */
+    @Inject
+    public MethodScopeCache(IResourceScopeCache cache, MetadataDependencies dependencies, CacheManager manager,
+        IResourceLookup resourceLookup)
+    {
+        this.cache = cache;
+        this.dependencies = dependencies;
+        this.manager = manager;
+        this.resourceLookup = resourceLookup;
+    }
+
+    /**
+     * Gets the cached value of the body that contains the object or computes it with the provider.
+     *
+     * @param <T> the type of the value
+     * @param key the key of the value in the body, cannot be {@code null}.
+     * @param object the object in the method or the module, cannot be {@code null}.
+     * @param provider the provider that computes the value in case of cache miss, cannot be {@code null}.
+     * @return the value, may return {@code null} if the provider returns {@code null}, that is not cached.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, EObject object, Provider<T> provider)
+    {
+        Resource resource = object.eResource();
+        EObject body = getBody(object);
+        if (resource == null || body == null)
+            return provider.get();
+
+        Values values = access(resource, body);
+        Object result = values.map.get(key);
+        if (result == null)
+        {
+            result = compute(values, provider);
+            if (result != null)
+            {
+                Object existing = values.map.putIfAbsent(key, result);
+                if (existing != null)
+                    result = existing;
+                else
+                    manager.setSize(values, values.map.size());
+            }
+        }
+        else
+        {
+            dependencies.addDependencies(values);
+        }
+        return (T)result;
+    }
+
+    /**
+     * Uses the body that contains the object by values that are computed in the current thread, so these values are
+     * evicted when the body is changed. The method does nothing if no values are computed.
+     *
+     * @param object the object in the method or the module, cannot be {@code null}.
+     */
+    public void use(EObject object)
+    {
+        Resource resource = object.eResource();
+        EObject body = getBody(object);
+        if (resource != null && body != null && !computing.get().isEmpty())
+            access(resource, body);
+    }
+
+    /**
+     * Gets the actual values of the body, marks them as recently used and uses the body by values that are computed
+     * in the current thread.
+     */
+    private Values access(Resource resource, EObject body)
+    {
+        Object generation = cache.get(MethodScopeCache.class, resource, Object::new);
+        Bodies bodies = getBodies(resource, body);
+        Values values = bodies.getValues(body, resource, generation);
+        if (!isUpToDate(values))
+            values.clear();
+        manager.access(bodies.project, values);
+        use(values);
+        return values;
+    }
+
+    private Object compute(Values values, Provider<?> provider)
+    {
+        Deque<Values> current = computing.get();
+        current.push(values);
+        try
+        {
+            return dependencies.compute(values, provider::get);
+        }
+        finally
+        {
+            current.pop();
+        }
+    }
+
+    /**
+     * Adds the body and bodies used by it to all bodies whose values are computed in the current thread.
+     */
+    private void use(Values values)
+    {
+        for (Values other : computing.get())
+        {
+            if (other == values)
+                continue;
+
+            other.uses.add(values);
+            for (Values used : values.uses)
+            {
+                if (used != other)
+                    other.uses.add(used);
+            }
+        }
+    }
+
+    private boolean isUpToDate(Values values)
+    {
+        for (Values used : values.uses)
+        {
+            if (!isCurrent(used))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks that the values are the actual values of their body, so the body is not changed, removed
+     * or evicted since the values were used.
+     */
+    private boolean isCurrent(Values values)
+    {
+        Resource resource = values.body.eResource();
+        if (resource == null)
+            return false;
+
+        Object generation = cache.get(MethodScopeCache.class, resource, Object::new);
+        return getBodies(resource, values.body).getValues(values.body, resource, generation) == values;
+    }
+
+    private EObject getBody(EObject object)
+    {
+        EObject body = EcoreUtil2.getContainerOfType(object, Method.class);
+        return body == null ? EcoreUtil2.getContainerOfType(object, Module.class) : body;
+    }
+
+    private Bodies getBodies(Resource resource, EObject object)
+    {
+        synchronized (resource)
+        {
+            Bodies bodies = (Bodies)EcoreUtil.getExistingAdapter(resource, Bodies.class);
+            if (bodies == null)
+            {
+                bodies = new Bodies(resourceLookup.getProject(object));
+                resource.eAdapters().add(bodies);
+            }
+            return bodies;
+        }
+    }
+
+    private static List<String> getText(EObject body)
+    {
+        List<String> result = new ArrayList<>();
+        if (body instanceof Module)
+        {
+            for (Statement statement : ((Module)body).allStatements())
+                result.add(getText(NodeModelUtils.getNode(statement)));
+        }
+        else
+        {
+            result.add(getText(NodeModelUtils.getNode(body)));
+        }
+        return result;
+    }
+
+    private static String getText(ICompositeNode node)
+    {
+        return node == null ? "" : node.getText(); //$NON-NLS-1$
+    }
+
+    /**
+     * The values of bodies of the resource, that is attached to the resource as an adapter.
+     */
+    private final class Bodies
+        extends AdapterImpl
+    {
+        private final IProject project;
+
+        private final Map<EObject, Values> values = new HashMap<>();
+
+        private Object generation;
+
+        Bodies(IProject project)
+        {
+            this.project = project;
+        }
+
+        @Override
+        public boolean isAdapterForType(Object type)
+        {
+            return type == Bodies.class;
+        }
+
+        synchronized Values getValues(EObject body, Resource resource, Object current)
+        {
+            if (generation != current)
+            {
+                generation = current;
+                values.values().removeIf(result -> {
+                    if (result.body.eResource() == resource)
+                        return false;
+                    manager.remove(result);
+                    return true;
+                });
+            }
+
+            Values result = values.get(body);
+            if (result == null || result.generation != current)
+            {
+                List<String> text = getText(body);
+                if (result == null || !result.text.equals(text))
+                {
+                    if (result != null)
+                        manager.remove(result);
+                    result = new Values(this, body, text);
+                    values.put(body, result);
+                }
+                result.generation = current;
+            }
+            return result;
+        }
+
+        synchronized void remove(EObject body, Values result)
+        {
+            values.remove(body, result);
+        }
+    }
+
+    /**
+     * The values of one body with its text, that are cleared when metadata objects used by any of values are changed
+     * or when other bodies used by any of values are changed.
+     */
+    private final class Values
+        extends CacheManager.Entry
+        implements MetadataDependencies.Dependent
+    {
+        private final ConcurrentMap<Object, Object> map = new ConcurrentHashMap<>();
+
+        private final Set<Values> uses = ConcurrentHashMap.newKeySet();
+
+        private final Bodies bodies;
+
+        private final EObject body;
+
+        private final List<String> text;
+
+        private Object generation;
+
+        Values(Bodies bodies, EObject body, List<String> text)
+        {
+            this.bodies = bodies;
+            this.body = body;
+            this.text = text;
+        }
+
+        @Override
+        public void invalidate(String name)
+        {
+            clear();
+        }
+
+        void clear()
+        {
+            map.clear();
+            uses.clear();
+            manager.setSize(this, 0);
+        }
+
+        @Override
+        protected void evict()
+        {
+            bodies.remove(body, this);
+        }
+    }
+}
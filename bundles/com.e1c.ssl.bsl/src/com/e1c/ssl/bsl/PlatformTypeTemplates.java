@@ -0,0 +1,312 @@
+/*******************************************************************************
+ * Copyright (C) 2022, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.ssl.bsl;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.xtext.EcoreUtil2;
+import org.eclipse.xtext.util.Pair;
+import org.eclipse.xtext.util.Tuples;
+
+import com._1c.g5.v8.dt.core.platform.IResourceLookup;
+import com._1c.g5.v8.dt.mcore.ContextDefWithRefItem;
+import com._1c.g5.v8.dt.mcore.McoreFactory;
+import com._1c.g5.v8.dt.mcore.McorePackage;
+import com._1c.g5.v8.dt.mcore.Type;
+import com._1c.g5.v8.dt.mcore.TypeContainerRef;
+import com._1c.g5.v8.dt.mcore.TypeItem;
+import com._1c.g5.v8.dt.platform.IEObjectProvider;
+import com._1c.g5.v8.dt.platform.version.IRuntimeVersionSupport;
+import com._1c.g5.v8.dt.platform.version.Version;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Provides templates of platform types ({@code Structure}, {@code FixedStructure}, {@code Array}, {@code Map},
+ * {@code ValueTable} etc.) per project and runtime version of the platform.
+ * Each platform type is resolved once per project and runtime version, so the lookup of the provider and the
+ * resolution of the proxy are not repeated for each new custom type. The resolved template belongs to the resource
+ * set of the project, so templates of the project are released when the project is closed or deleted, and templates
+ * are not kept for objects that do not belong to a project.
+ * <br>
+ * The new custom type that only adds its own properties to the template, like the structure with properties,
+ * references methods, properties and collection element types of the template without copying, see
+ * {@link #createReferencingType(String, InvocationContext)}. The type that modifies properties or methods of the
+ * template, like the map with types of keys and values, is a full copy of the template that keeps references as
+ * proxies, see {@link #createType(String, InvocationContext)}.
+ *
+ * @author Dmitriy Marmyshev
+ */
+@Singleton
+class PlatformTypeTemplates
+    implements CacheManager.ProjectCache
+{
+
+    private final IRuntimeVersionSupport versionSupport;
+
+    private final IResourceLookup resourceLookup;
+
+    private final Map<Version, IEObjectProvider> providers = new ConcurrentHashMap<>();
+
+    private final Map<Pair<IProject, Version>, Map<String, Type>> templates = new ConcurrentHashMap<>();
+
+    /**
+     * Instantiates a new platform type templates.
+     *
+     * @param versionSupport the version support, cannot be {@code null}.
+     * @param resourceLookup the resource lookup service, cannot be {@code null}.
+     * @param manager the manager of memory of caches that notifies about closed projects, cannot be {@code null}.
+     */
+    @Inject
+    PlatformTypeTemplates(IRuntimeVersionSupport versionSupport, IResourceLookup resourceLookup,
+        CacheManager manager)
+    {
+        this.versionSupport = versionSupport;
+        this.resourceLookup = resourceLookup;
+        manager.addProjectCache(this);
+    }
+
+    /**
+     * Gets the runtime version of the context object or latest version by default.
+     *
+     * @param context the context object, cannot be {@code null}.
+     * @return the runtime version, cannot return {@code null}.
+     */
+    public Version getVersion(EObject context)
+    {
+        return versionSupport.getRuntimeVersionOrDefault(context, Version.LATEST);
+    }
+
+    /**
+     * Gets the provider of platform types for the runtime version of the context object.
+     *
+     * @param context the context object, cannot be {@code null}.
+     * @return the platform types provider, cannot return {@code null}.
+     */
+    public IEObjectProvider getProvider(EObject context)
+    {
+        return getProvider(getVersion(context));
+    }
+
+    /**
+     * Gets the proxy of the platform type for the runtime version of the context object.
+     *
+     * @param typeName the name of the platform type, cannot be {@code null}.
+     * @param context the context object, cannot be {@code null}.
+     * @return the proxy of the platform type, may return {@code null} if the type is unknown.
+     */
+    public TypeItem getProxy(String typeName, EObject context)
+    {
+        return (TypeItem)getProvider(context).getProxy(typeName);
+    }
+
+    /**
+     * Gets the provider of platform types for the runtime version of the invocation.
+     *
+     * @param context the context of invocation, cannot be {@code null}.
+     * @return the platform types provider, cannot return {@code null}.
+     */
+    public IEObjectProvider getProvider(InvocationContext context)
+    {
+        return getProvider(context.getVersion());
+    }
+
+    /**
+     * Gets the proxy of the platform type for the runtime version of the invocation.
+     *
+     * @param typeName the name of the platform type, cannot be {@code null}.
+     * @param context the context of invocation, cannot be {@code null}.
+     * @return the proxy of the platform type, may return {@code null} if the type is unknown.
+     */
+    public TypeItem getProxy(String typeName, InvocationContext context)
+    {
+        return (TypeItem)getProvider(context).getProxy(typeName);
+    }
+
+    /**
+     * Gets the resolved template of the platform type. The template is shared and must not be modified.
+     *
+     * @param typeName the name of the platform type, cannot be {@code null}.
+     * @param context the context object to resolve the type, cannot be {@code null}.
+     * @return the resolved platform type, may return {@code null} if the type is unknown or cannot be resolved.
+     */
+    public Type getTemplate(String typeName, EObject context)
+    {
+        return getTemplate(typeName, getVersion(context), context);
+    }
+
+    /**
+     * Creates a new full copy of the platform type that can be modified by the caller.
+     *
+     * @param typeName the name of the platform type, cannot be {@code null}.
+     * @param context the context object to resolve the type, cannot be {@code null}.
+     * @return the copy of the platform type, may return {@code null} if the type is unknown or cannot be resolved.
+     */
+    public Type createType(String typeName, EObject context)
+    {
+        Type template = getTemplate(typeName, context);
+        return template == null ? null : EcoreUtil2.cloneWithProxies(template);
+    }
+
+    /**
+     * Gets the resolved template of the platform type for the runtime version of the invocation.
+     * The template is shared and must not be modified.
+     *
+     * @param typeName the name of the platform type, cannot be {@code null}.
+     * @param context the context of invocation, cannot be {@code null}.
+     * @return the resolved platform type, may return {@code null} if the type is unknown or cannot be resolved.
+     */
+    public Type getTemplate(String typeName, InvocationContext context)
+    {
+        return getTemplate(typeName, context.getVersion(), context.getInvocation());
+    }
+
+    /**
+     * Creates a new full copy of the platform type for the runtime version of the invocation, that can be modified
+     * by the caller.
+     *
+     * @param typeName the name of the platform type, cannot be {@code null}.
+     * @param context the context of invocation, cannot be {@code null}.
+     * @return the copy of the platform type, may return {@code null} if the type is unknown or cannot be resolved.
+     */
+    public Type createType(String typeName, InvocationContext context)
+    {
+        Type template = getTemplate(typeName, context);
+        return template == null ? null : EcoreUtil2.cloneWithProxies(template);
+    }
+
+    /**
+     * Creates a new type that references methods, properties and collection element types of the platform type
+     * for the runtime version of the invocation. The caller may add its own methods and properties to the context
+     * definition of the type, that is {@link ContextDefWithRefItem}, but must not modify referenced ones.
+     *
+     * @param typeName the name of the platform type, cannot be {@code null}.
+     * @param context the context of invocation, cannot be {@code null}.
+     * @return the new type, may return {@code null} if the type is unknown or cannot be resolved.
+     */
+    public Type createReferencingType(String typeName, InvocationContext context)
+    {
+        return createReferencingType(getTemplate(typeName, context));
+    }
+
+    /**
+     * Creates a new type that references methods, properties and collection element types of the platform type.
+     * The caller may add its own methods and properties to the context definition of the type, that is
+     * {@link ContextDefWithRefItem}, but must not modify referenced ones.
+     *
+     * @param typeName the name of the platform type, cannot be {@code null}.
+     * @param context the context object to resolve the type, cannot be {@code null}.
+     * @return the new type, may return {@code null} if the type is unknown or cannot be resolved.
+     */
+    public Type createReferencingType(String typeName, EObject context)
+    {
+        return createReferencingType(getTemplate(typeName, context));
+    }
+
+    @Override
+    public void clearProject(IProject project)
+    {
+        templates.keySet().removeIf(key -> project.equals(key.getFirst()));
+    }
+
+    private IEObjectProvider getProvider(Version version)
+    {
+        return providers.computeIfAbsent(version,
+            key -> IEObjectProvider.Registry.INSTANCE.get(McorePackage.Literals.TYPE_ITEM, key));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Type createReferencingType(Type template)
+    {
+        if (template == null)
+            return null;
+
+        Type type = (Type)EcoreUtil.create(template.eClass());
+        for (EAttribute attribute : template.eClass().getEAllAttributes())
+        {
+            if (!attribute.isChangeable() || attribute.isDerived() || !template.eIsSet(attribute))
+                continue;
+
+            if (attribute.isMany())
+                ((Collection<Object>)type.eGet(attribute)).addAll((Collection<Object>)template.eGet(attribute));
+            else
+                type.eSet(attribute, template.eGet(attribute));
+        }
+        for (EReference reference : template.eClass().getEAllReferences())
+        {
+            if (!reference.isChangeable() || reference.isDerived() || reference.isContainer()
+                || !template.eIsSet(reference))
+                continue;
+
+            // The context definition and collection element types are referenced below
+            Object value = template.eGet(reference, false);
+            if (value == template.getContextDef() || value == template.getCollectionElementTypes())
+                continue;
+
+            if (!reference.isMany())
+            {
+                type.eSet(reference, reference.isContainment() ? EcoreUtil2.cloneWithProxies((EObject)value) : value);
+                continue;
+            }
+            Collection<Object> values = (Collection<Object>)type.eGet(reference);
+            for (EObject item : (Collection<EObject>)value)
+                values.add(reference.isContainment() ? EcoreUtil2.cloneWithProxies(item) : item);
+        }
+
+        ContextDefWithRefItem contextDef = McoreFactory.eINSTANCE.createContextDefWithRefItem();
+        if (template.getContextDef() != null)
+        {
+            contextDef.getRefMethods().addAll(template.getContextDef().allMethods());
+            contextDef.getRefProperties().addAll(template.getContextDef().allProperties());
+        }
+        type.setContextDef(contextDef);
+
+        if (template.getCollectionElementTypes() != null)
+        {
+            TypeContainerRef collectionElementTypes = McoreFactory.eINSTANCE.createTypeContainerRef();
+            collectionElementTypes.getTypes().addAll(template.getCollectionElementTypes().allTypes());
+            type.setCollectionElementTypes(collectionElementTypes);
+        }
+        return type;
+    }
+
+    private Type getTemplate(String typeName, Version version, EObject context)
+    {
+        IProject project = resourceLookup.getProject(context);
+        Map<String, Type> types = project == null ? null
+            : templates.computeIfAbsent(Tuples.create(project, version), key -> new ConcurrentHashMap<>());
+        Type type = types == null ? null : types.get(typeName);
+        if (type != null)
+            return type;
+
+        EObject proxy = getProvider(version).getProxy(typeName);
+        if (proxy == null)
+            return null;
+
+        EObject resolved = EcoreUtil.resolve(proxy, context);
+        if (!(resolved instanceof Type) || resolved.eIsProxy())
+            return null;
+
+        type = (Type)resolved;
+        if (types != null)
+            types.putIfAbsent(typeName, type);
+        return type;
+    }
+}
@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (C) 2022, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.ssl.bsl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.xtext.util.Pair;
+
+import com._1c.g5.v8.dt.mcore.Property;
+import com._1c.g5.v8.dt.mcore.TypeItem;
+
+/**
+ * The immutable case insensitive index of properties by its English and Russian names.
+ * The properties with the same name are kept in the original order.
+ *
+ * @author Dmitriy Marmyshev
+ */
+public final class PropertyIndex
+{
+
+    /** The empty index without properties. */
+    public static final PropertyIndex EMPTY = new PropertyIndex(Collections.emptyMap());
+
+    private final Map<String, List<Property>> properties;
+
+    private PropertyIndex(Map<String, List<Property>> properties)
+    {
+        this.properties = properties;
+    }
+
+    /**
+     * Creates the index of all properties computed by dynamic feature access computer.
+     *
+     * @param all the collection of properties of types, cannot be {@code null}.
+     * @return the property index, cannot return {@code null}.
+     */
+    public static PropertyIndex of(Collection<Pair<Collection<Property>, TypeItem>> all)
+    {
+        Map<String, List<Property>> result = new HashMap<>();
+        for (Pair<Collection<Property>, TypeItem> pair : all)
+        {
+            if (pair != null)
+                addAll(result, pair.getFirst());
+        }
+        return result.isEmpty() ? EMPTY : new PropertyIndex(result);
+    }
+
+    /**
+     * Creates the index of the properties.
+     *
+     * @param properties the properties, cannot be {@code null}.
+     * @return the property index, cannot return {@code null}.
+     */
+    public static PropertyIndex ofProperties(Collection<Property> properties)
+    {
+        Map<String, List<Property>> result = new HashMap<>();
+        addAll(result, properties);
+        return result.isEmpty() ? EMPTY : new PropertyIndex(result);
+    }
+
+    /**
+     * Gets the first property with the given English or Russian name ignoring case.
+     *
+     * @param name the name of the property, may be {@code null}.
+     * @return the property, may return {@code null} if there is no property with this name.
+     */
+    public Property get(String name)
+    {
+        List<Property> result = getAll(name);
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    /**
+     * Gets all properties with the given English or Russian name ignoring case.
+     *
+     * @param name the name of the property, may be {@code null}.
+     * @return the properties, cannot return {@code null}.
+     */
+    public List<Property> getAll(String name)
+    {
+        if (name == null)
+            return Collections.emptyList();
+
+        List<Property> result = properties.get(name.toLowerCase());
+        return result == null ? Collections.emptyList() : result;
+    }
+
+    /**
+     * Checks if the index has no properties.
+     *
+     * @return true, if the index is empty
+     */
+    public boolean isEmpty()
+    {
+        return properties.isEmpty();
+    }
+
+    private static void addAll(Map<String, List<Property>> index, Collection<Property> properties)
+    {
+        if (properties == null)
+            return;
+
+        for (Property property : properties)
+        {
+            String name = property.getName() == null ? null : property.getName().toLowerCase();
+            String nameRu = property.getNameRu() == null ? null : property.getNameRu().toLowerCase();
+            if (name != null)
+                index.computeIfAbsent(name, k -> new ArrayList<>(1)).add(property);
+            if (nameRu != null && !nameRu.equals(name))
+                index.computeIfAbsent(nameRu, k -> new ArrayList<>(1)).add(property);
+        }
+    }
+}
@@ -0,0 +1,277 @@
+/*******************************************************************************
+ * Copyright (C) 2022, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.ssl.bsl;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.xtext.EcoreUtil2;
+import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.resource.IEObjectDescription;
+import org.eclipse.xtext.scoping.IScope;
+import org.eclipse.xtext.scoping.IScopeProvider;
+import org.eclipse.xtext.util.Pair;
+
+import com._1c.g5.v8.dt.bsl.model.BslFactory;
+import com._1c.g5.v8.dt.bsl.model.BslPackage;
+import com._1c.g5.v8.dt.bsl.model.DynamicFeatureAccess;
+import com._1c.g5.v8.dt.bsl.model.Invocation;
+import com._1c.g5.v8.dt.bsl.model.Method;
+import com._1c.g5.v8.dt.bsl.model.Module;
+import com._1c.g5.v8.dt.bsl.model.StaticFeatureAccess;
+import com._1c.g5.v8.dt.bsl.model.VariablesScopeSpec;
+import com._1c.g5.v8.dt.core.platform.IResourceLookup;
+import com._1c.g5.v8.dt.mcore.DerivedProperty;
+import com._1c.g5.v8.dt.mcore.Environmental;
+import com._1c.g5.v8.dt.mcore.McorePackage;
+import com._1c.g5.v8.dt.mcore.Type;
+import com._1c.g5.v8.dt.mcore.TypeItem;
+import com._1c.g5.v8.dt.mcore.util.Environments;
+import com.e1c.ssl.bsl.internal.BslPlugin;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * The index of 1C:SSL API common modules available in projects. For each project, environments and module name
+ * the index keeps the names of exported methods of the module that is visible in the global context, so computers
+ * of invocation types and string literal proposal providers skip invocations of functions that are not exported.
+ * The empty set of methods, like for the module that is not found, is not kept, because it may be computed before
+ * derived data of the project is built.
+ * <br>
+ * The module name is evicted in the project when the common module with this name is added, renamed or deleted in
+ * the project or in its base configuration, because extensions and external data processors see common modules of
+ * the base configuration, see {@link MetadataDependencies}. The folder of the common module that is added or deleted
+ * in the workspace and the file {@code Module.bsl} of the common module that is changed, like by the new exported
+ * method, evict the module name too. The index is cleared for the project when it is closed or deleted,
+ * see {@link CacheManager}.
+ *
+ * @author Dmitriy Marmyshev
+ */
+@Singleton
+public class SslModuleIndex
+    implements IResourceChangeListener, CacheManager.ProjectCache
+{
+
+    private static final String COMMON_MODULES_FOLDER = "CommonModules"; //$NON-NLS-1$
+
+    private static final String MODULE_FILE = "Module.bsl"; //$NON-NLS-1$
+
+    private static final String COMMON_MODULE_FQN_PREFIX = "commonmodule."; //$NON-NLS-1$
+
+    private final IScopeProvider scopeProvider;
+
+    private final IResourceLookup resourceLookup;
+
+    private final MetadataDependencies dependencies;
+
+    private final ConcurrentMap<IProject, ProjectExports> exports = new ConcurrentHashMap<>();
+
+    /**
+     * Instantiates a new index of 1C:SSL API common modules.
+     *
+     * @param scopeProvider the scope provider of BSL resources, cannot be {@code null}.
+     * @param resourceLookup the resource lookup service, cannot be {@code null}.
+     * @param dependencies the map of dependencies from metadata objects, cannot be {@code null}.
+     * @param manager the manager of memory of caches that clears the index of closed projects,
+     * cannot be {@code null}.
+     */
+    @Inject
+    public SslModuleIndex(IScopeProvider scopeProvider, IResourceLookup resourceLookup,
+        MetadataDependencies dependencies, CacheManager manager)
+    {
+        this.scopeProvider = scopeProvider;
+        this.resourceLookup = resourceLookup;
+        this.dependencies = dependencies;
+        manager.addProjectCache(this);
+    }
+
+    /**
+     * Checks that the function of the invocation like {@code Common.Function()} is exported by the common module
+     * that is visible for the invocation. The invocation of the function of the current module is always available.
+     *
+     * @param inv the invocation, cannot be {@code null}.
+     * @return true, if the invocation may call the function of 1C:SSL API common module
+     */
+    public boolean isAvailable(Invocation inv)
+    {
+        if (!(inv.getMethodAccess() instanceof DynamicFeatureAccess))
+            return true;
+
+        DynamicFeatureAccess dfa = (DynamicFeatureAccess)inv.getMethodAccess();
+        if (!(dfa.getSource() instanceof StaticFeatureAccess) || dfa.getName() == null)
+            return true;
+
+        String moduleName = ((StaticFeatureAccess)dfa.getSource()).getName();
+        return moduleName == null || isExported(inv, moduleName, dfa.getName());
+    }
+
+    /**
+     * Checks that the common module is visible in the context object and exports the method.
+     *
+     * @param context the context object in BSL module, cannot be {@code null}.
+     * @param moduleName the name of common module, cannot be {@code null}.
+     * @param methodName the name of the method in English or Russian, cannot be {@code null}.
+     * @return true, if the method is exported by the common module
+     */
+    public boolean isExported(EObject context, String moduleName, String methodName)
+    {
+        return getExportedMethods(context, moduleName).contains(methodName.toLowerCase());
+    }
+
+    /**
+     * Gets the names of exported methods of the common module that is visible in the context object.
+     *
+     * @param context the context object in BSL module, cannot be {@code null}.
+     * @param moduleName the name of common module, cannot be {@code null}.
+     * @return the lower case English and Russian names of exported methods, or empty set if the module is not
+     * found, cannot return {@code null}.
+     */
+    public Set<String> getExportedMethods(EObject context, String moduleName)
+    {
+        Environmental environmental = EcoreUtil2.getContainerOfType(context, Environmental.class);
+        Environments environments = environmental == null ? null : environmental.environments();
+        IProject project = context.eResource() == null ? null : resourceLookup.getProject(context);
+        if (project == null)
+            return computeExportedMethods(context, moduleName, environments);
+
+        String name = moduleName.toLowerCase();
+        List<Object> key = Arrays.asList(environments, name);
+        Pair<IProject, String> dependency = dependencies.getKey(context, COMMON_MODULE_FQN_PREFIX + name);
+        ProjectExports projectExports = exports.computeIfAbsent(project, key -> new ProjectExports());
+        Set<String> result = projectExports.methods.get(key);
+        if (result == null)
+        {
+            result = computeExportedMethods(context, moduleName, environments);
+            if (!result.isEmpty() && projectExports.methods.putIfAbsent(key, result) == null)
+                dependencies.addDependent(dependency, projectExports);
+        }
+        dependencies.addDependency(dependency);
+        return result;
+    }
+
+    @Override
+    public void resourceChanged(IResourceChangeEvent event)
+    {
+        IResourceDelta delta = event.getDelta();
+        if (delta == null)
+            return;
+
+        try
+        {
+            delta.accept(child -> {
+                if (child.getResource().getType() == IResource.FILE)
+                    return false;
+
+                if (child.getResource().getType() == IResource.FOLDER
+                    && COMMON_MODULES_FOLDER.equals(child.getResource().getName()))
+                {
+                    // The moved module is deleted and added, the changed text of the module may change its exports
+                    for (IResourceDelta module : child.getAffectedChildren())
+                    {
+                        if (module.getKind() == IResourceDelta.CHANGED
+                            && module.findMember(new Path(MODULE_FILE)) == null)
+                            continue;
+
+                        dependencies.invalidate(module.getResource().getProject(),
+                            COMMON_MODULE_FQN_PREFIX + module.getResource().getName().toLowerCase());
+                    }
+                    return false;
+                }
+                return true;
+            });
+        }
+        catch (CoreException e)
+        {
+            BslPlugin.logError(e);
+            exports.clear();
+        }
+    }
+
+    @Override
+    public void clearProject(IProject project)
+    {
+        exports.remove(project);
+    }
+
+    /**
+     * Clears the index.
+     */
+    public void dispose()
+    {
+        exports.clear();
+    }
+
+    private Set<String> computeExportedMethods(EObject context, String moduleName, Environments environments)
+    {
+        VariablesScopeSpec spec = BslFactory.eINSTANCE.createVariablesScopeSpec();
+        spec.setModule(EcoreUtil2.getContainerOfType(context, Module.class));
+        spec.setMethod(EcoreUtil2.getContainerOfType(context, Method.class));
+        spec.setEnvironments(environments);
+
+        IScope scope = scopeProvider.getScope(spec, BslPackage.Literals.FAKE_REFERENCE__PROPERTY);
+        IEObjectDescription elem = scope.getSingleElement(QualifiedName.create(moduleName));
+        if (elem == null || elem.getEClass() != McorePackage.Literals.DERIVED_PROPERTY)
+            return Collections.emptySet();
+
+        EObject property = EcoreUtil.resolve(elem.getEObjectOrProxy(), context);
+        if (!(property instanceof DerivedProperty))
+            return Collections.emptySet();
+
+        Set<String> result = new HashSet<>();
+        for (TypeItem type : ((DerivedProperty)property).getTypes())
+        {
+            if (!(type instanceof Type) || ((Type)type).getContextDef() == null)
+                continue;
+
+            for (com._1c.g5.v8.dt.mcore.Method method : ((Type)type).getContextDef().allMethods())
+            {
+                if (method.getName() != null)
+                    result.add(method.getName().toLowerCase());
+                if (method.getNameRu() != null)
+                    result.add(method.getNameRu().toLowerCase());
+            }
+        }
+        return Collections.unmodifiableSet(result);
+    }
+
+    /**
+     * The exported methods of common modules that are visible in one project, by environments and module names.
+     */
+    private static final class ProjectExports
+        implements MetadataDependencies.Dependent
+    {
+        private final ConcurrentMap<List<Object>, Set<String>> methods = new ConcurrentHashMap<>();
+
+        @Override
+        public void invalidate(String name)
+        {
+            String moduleName =
+                name.startsWith(COMMON_MODULE_FQN_PREFIX) ? name.substring(COMMON_MODULE_FQN_PREFIX.length()) : name;
+            methods.keySet().removeIf(key -> key.get(1).equals(moduleName));
+        }
+    }
+}
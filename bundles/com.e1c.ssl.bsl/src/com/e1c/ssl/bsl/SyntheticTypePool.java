@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (C) 2022, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.ssl.bsl;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.emf.ecore.EObject;
+
+import com._1c.g5.v8.dt.bsl.model.BslDerivedPropertySource;
+import com._1c.g5.v8.dt.core.platform.IResourceLookup;
+import com._1c.g5.v8.dt.mcore.Type;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * The pool of types synthesized by computers of this bundle, like structures with selected attributes.
+ * Structurally equal types share one instance: the type is identified by the project and the runtime version of
+ * the invocation, the name of its platform type and the signature of its content that is built by the computer.
+ * The identity of the platform type template is not a part of the key, as templates are kept per project and
+ * version and are released on close of project.
+ * <br>
+ * Each pooled type is the entry of the region of the project in the {@link CacheManager} with the size of its
+ * signature, so types that reference properties of metadata objects of the project are released when the project
+ * is closed or deleted, and least recently used types are evicted when the budget is exceeded.
+ * <br>
+ * Pooled types are shared by many invocations and resources, so the factory completes the type before it is
+ * published to the pool, and the pooled type is never changed after that. The code that needs to change the type
+ * creates a new type, like {@link TypesComputerHelper} does.
+ *
+ * @author Dmitriy Marmyshev
+ */
+@Singleton
+public class SyntheticTypePool
+    implements CacheManager.ProjectCache
+{
+
+    private final CacheManager manager;
+
+    private final IResourceLookup resourceLookup;
+
+    private final ConcurrentMap<List<Object>, PooledType> pool = new ConcurrentHashMap<>();
+
+    /**
+     * Instantiates a new synthetic type pool.
+     *
+     * @param manager the manager of memory of caches, cannot be {@code null}.
+     * @param resourceLookup the resource lookup service, cannot be {@code null}.
+     */
+    @Inject
+    public SyntheticTypePool(CacheManager manager, IResourceLookup resourceLookup)
+    {
+        this.manager = manager;
+        this.resourceLookup = resourceLookup;
+        manager.addProjectCache(this);
+    }
+
+    /**
+     * Gets the pooled type with the same platform type and signature in the project and the runtime version of
+     * the invocation or creates the new type and puts it to the pool. The returned type must not be changed.
+     *
+     * @param typeName the name of the platform type of the synthetic type, cannot be {@code null}.
+     * @param context the context of the invocation, cannot be {@code null}.
+     * @param signature the signature of content of the type, elements are compared with {@code equals()},
+     * cannot be {@code null}.
+     * @param factory the factory of the complete new type, cannot be {@code null}.
+     * @return the shared type, may return {@code null} if the factory cannot create the type.
+     */
+    public Type get(String typeName, InvocationContext context, List<?> signature, Supplier<Type> factory)
+    {
+        IProject project = resourceLookup.getProject(context.getInvocation());
+        List<Object> key = Arrays.asList(project, context.getVersion(), typeName, signature);
+        PooledType result = pool.get(key);
+        if (result == null)
+        {
+            Type type = factory.get();
+            if (type == null)
+                return null;
+
+            result = new PooledType(key, type);
+            PooledType existing = pool.putIfAbsent(key, result);
+            if (existing != null)
+                result = existing;
+            else
+                manager.setSize(result, Math.max(1, signature.size()));
+        }
+        manager.access(project, result);
+        return result.type;
+    }
+
+    @Override
+    public void clearProject(IProject project)
+    {
+        pool.values().removeIf(type -> {
+            if (!project.equals(type.key.get(0)))
+                return false;
+            manager.remove(type);
+            return true;
+        });
+    }
+
+    /**
+     * Gets the key of the source of the derived property for the signature of type. The BSL sources created for
+     * string literals are compared by its location, other sources are compared by identity.
+     *
+     * @param source the source object of the derived property, may be {@code null}.
+     * @return the key of the source, may return {@code null} if the source is {@code null}.
+     */
+    public static Object getSourceKey(EObject source)
+    {
+        if (source instanceof BslDerivedPropertySource)
+        {
+            BslDerivedPropertySource bslSource = (BslDerivedPropertySource)source;
+            return Arrays.asList(bslSource.getModuleUri(), bslSource.getMethodName(), bslSource.getLocalOffset());
+        }
+        return source;
+    }
+
+    /**
+     * The pooled type, that is the entry of the region of its project in the {@link CacheManager}.
+     */
+    private final class PooledType
+        extends CacheManager.Entry
+    {
+        private final List<Object> key;
+
+        private final Type type;
+
+        PooledType(List<Object> key, Type type)
+        {
+            this.key = key;
+            this.type = type;
+        }
+
+        @Override
+        protected void evict()
+        {
+            pool.remove(key, this);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * Copyright (C) 2022, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.ssl.bsl;
+
+import java.util.Collection;
+import java.util.Map;
+
+import com._1c.g5.v8.dt.mcore.TypeItem;
+import com._1c.g5.v8.dt.mcore.util.McoreUtil;
+import com._1c.g5.v8.dt.md.resource.MdTypeUtil;
+import com._1c.g5.v8.dt.platform.IEObjectTypeNames;
+import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * The classifier of type items by kinds that are checked by computers of this bundle. The kind of the type
+ * is the bit mask, so checks of types of an expression are bit tests of the union of kinds of its types.
+ * The kind of each type item is computed once, the cache does not keep type items alive.
+ *
+ * @author Dmitriy Marmyshev
+ */
+public final class TypeKinds
+{
+
+    /** The kind of types that are not checked by computers. */
+    public static final int NONE = 0;
+
+    /** The kind of type "String". */
+    public static final int STRING = 1;
+
+    /** The kind of type "Structure". */
+    public static final int STRUCTURE = 1 << 1;
+
+    /** The kind of type "FixedStructure". */
+    public static final int FIXED_STRUCTURE = 1 << 2;
+
+    /** The kind of type "Array". */
+    public static final int ARRAY = 1 << 3;
+
+    /** The kind of type "FixedArray". */
+    public static final int FIXED_ARRAY = 1 << 4;
+
+    /** The kind of type "Map". */
+    public static final int MAP = 1 << 5;
+
+    /** The kind of type "FixedMap". */
+    public static final int FIXED_MAP = 1 << 6;
+
+    /** The kind of type "ValueTable". */
+    public static final int VALUE_TABLE = 1 << 7;
+
+    /** The kind of type "ValueTableRow". */
+    public static final int VALUE_TABLE_ROW = 1 << 8;
+
+    /** The kind of user's object ref types, but not "AnyRef". */
+    public static final int REF = 1 << 9;
+
+    /** The kinds of structure types. */
+    public static final int ANY_STRUCTURE = STRUCTURE | FIXED_STRUCTURE;
+
+    /** The kinds of array types. */
+    public static final int ANY_ARRAY = ARRAY | FIXED_ARRAY;
+
+    /** The kinds of map types. */
+    public static final int ANY_MAP = MAP | FIXED_MAP;
+
+    private static final String ANY_REF = "AnyRef"; //$NON-NLS-1$
+
+    //@formatter:off
+    private static final Map<String, Integer> KINDS_BY_NAME = Map.of(
+        IEObjectTypeNames.STRING, STRING,
+        IEObjectTypeNames.STRUCTURE, STRUCTURE,
+        IEObjectTypeNames.FIXED_STRUCTURE, FIXED_STRUCTURE,
+        IEObjectTypeNames.ARRAY, ARRAY,
+        IEObjectTypeNames.FIXED_ARRAY, FIXED_ARRAY,
+        IEObjectTypeNames.MAP, MAP,
+        IEObjectTypeNames.FIXED_MAP, FIXED_MAP,
+        IEObjectTypeNames.VALUE_TABLE, VALUE_TABLE,
+        IEObjectTypeNames.VALUE_TABLE_ROW, VALUE_TABLE_ROW);
+    //@formatter:on
+
+    private static final Cache<TypeItem, Integer> KINDS = CacheBuilder.newBuilder().weakKeys().build();
+
+    private TypeKinds()
+    {
+        // Utility class
+    }
+
+    /**
+     * Gets the kind of the type item.
+     *
+     * @param type the type item, may be {@code null}.
+     * @return the kind of the type item, or {@link #NONE} if the type is not classified
+     */
+    public static int of(TypeItem type)
+    {
+        if (type == null)
+            return NONE;
+
+        Integer result = KINDS.getIfPresent(type);
+        if (result == null)
+        {
+            result = compute(type);
+            KINDS.put(type, result);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the union of kinds of type items.
+     *
+     * @param types the type items, cannot be {@code null}.
+     * @return the union of kinds of type items
+     */
+    public static int of(Collection<? extends TypeItem> types)
+    {
+        int result = NONE;
+        for (TypeItem type : types)
+            result |= of(type);
+        return result;
+    }
+
+    /**
+     * Checks that the type item is of any of given kinds.
+     *
+     * @param type the type item, may be {@code null}.
+     * @param kinds the bit mask of kinds
+     * @return true, if the type item is of any of given kinds
+     */
+    public static boolean is(TypeItem type, int kinds)
+    {
+        return (of(type) & kinds) != 0;
+    }
+
+    /**
+     * Checks that any of type items is of any of given kinds.
+     *
+     * @param types the type items, cannot be {@code null}.
+     * @param kinds the bit mask of kinds
+     * @return true, if any of type items is of any of given kinds
+     */
+    public static boolean any(Collection<? extends TypeItem> types, int kinds)
+    {
+        for (TypeItem type : types)
+        {
+            if (is(type, kinds))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the type item is user's object ref type, but not AnyRef.
+     *
+     * @param type the type item, may be {@code null}.
+     * @return true, if the type item is user's object ref type
+     */
+    public static boolean isRef(TypeItem type)
+    {
+        return is(type, REF);
+    }
+
+    private static int compute(TypeItem type)
+    {
+        String name = McoreUtil.getTypeName(type);
+        Integer kind = name == null ? null : KINDS_BY_NAME.get(name);
+        if (kind != null)
+            return kind;
+
+        String category = McoreUtil.getTypeCategory(type);
+        if (!Strings.isNullOrEmpty(category) && !ANY_REF.equals(category)
+            && MdTypeUtil.getRefTypeNames().contains(category))
+            return REF;
+
+        return NONE;
+    }
+}
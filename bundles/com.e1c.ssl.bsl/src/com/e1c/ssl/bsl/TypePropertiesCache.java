@@ -0,0 +1,327 @@
+/*******************************************************************************
+ * Copyright (C) 2022, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.ssl.bsl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.xtext.util.Pair;
+import org.eclipse.xtext.util.Tuples;
+
+import com._1c.g5.v8.dt.bsl.resource.DynamicFeatureAccessComputer;
+import com._1c.g5.v8.dt.core.platform.IResourceLookup;
+import com._1c.g5.v8.dt.mcore.Property;
+import com._1c.g5.v8.dt.mcore.TypeItem;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+
+/**
+ * The shared cache of all properties of types computed by {@link DynamicFeatureAccessComputer}.
+ * Only types that are stored in a non-module resource (metadata and platform types) are cached, the synthetic types
+ * created by computers and types derived from module code are always computed.
+ * <br>
+ * Properties are keyed by the type and the project of the context resource, because the same type may have
+ * different properties in different projects, like the object of the configuration that is adopted and extended
+ * in the extension project. The cache holds types strongly and is evicted explicitly: properties are evicted when
+ * the top metadata object of the type is changed, see {@link MetadataDependencies}, and properties of each type and
+ * project are the entry of the region of the project in the {@link CacheManager} with the size of the number
+ * of properties, so they are evicted when the project is closed or the budget of entries is exceeded. Properties
+ * of types of the platform computed out of projects are in the shared region.
+ * <br>
+ * The cache is shared between computers of invocation types and string literal proposal providers, and is registered
+ * as OSGi service.
+ * <br>
+ * Properties are always resolved in the calling thread, because resolution of proxies reads objects of the resource
+ * set of the caller under its read transaction, and the resource set is not thread-safe.
+ *
+ * @author Dmitriy Marmyshev
+ */
+@Singleton
+public class TypePropertiesCache
+{
+
+    private static final String BSL_EXTENSION = "bsl"; //$NON-NLS-1$
+
+    private final Provider<DynamicFeatureAccessComputer> dynamicFeatureAccessComputer;
+
+    private final MetadataDependencies dependencies;
+
+    private final CacheManager manager;
+
+    private final IResourceLookup resourceLookup;
+
+    private final ConcurrentMap<Pair<TypeItem, IProject>, TypeProperties> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Instantiates a new type properties cache.
+     *
+     * @param dynamicFeatureAccessComputer the provider of dynamic feature access computer, cannot be {@code null}.
+     * @param dependencies the map of dependencies from metadata objects, cannot be {@code null}.
+     * @param manager the manager of memory of caches, cannot be {@code null}.
+     * @param resourceLookup the resource lookup service, cannot be {@code null}.
+     */
+    @Inject
+    public TypePropertiesCache(Provider<DynamicFeatureAccessComputer> dynamicFeatureAccessComputer,
+        MetadataDependencies dependencies, CacheManager manager, IResourceLookup resourceLookup)
+    {
+        this.dynamicFeatureAccessComputer = dynamicFeatureAccessComputer;
+        this.dependencies = dependencies;
+        this.manager = manager;
+        this.resourceLookup = resourceLookup;
+    }
+
+    /**
+     * Gets all properties of the types in the order of types.
+     *
+     * @param types the types, cannot be {@code null}.
+     * @param resource the context resource, may be {@code null}.
+     * @return the collection of properties of types, cannot return {@code null}.
+     */
+    public Collection<Pair<Collection<Property>, TypeItem>> getAllProperties(Collection<TypeItem> types,
+        Resource resource)
+    {
+        if (types.size() == 1)
+            return getTypeProperties(types.iterator().next(), resource).all;
+
+        List<Pair<Collection<Property>, TypeItem>> result = new ArrayList<>();
+        for (TypeItem type : types)
+        {
+            result.addAll(getTypeProperties(type, resource).all);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the case insensitive index of all properties of the type.
+     *
+     * @param type the type, cannot be {@code null}.
+     * @param resource the context resource, may be {@code null}.
+     * @return the property index, cannot return {@code null}.
+     */
+    public PropertyIndex getPropertyIndex(TypeItem type, Resource resource)
+    {
+        return getTypeProperties(type, resource).getIndex();
+    }
+
+    /**
+     * Finds the first property with the given name in the types. The types are checked in the order.
+     *
+     * @param types the types to find the property, cannot be {@code null}.
+     * @param name the English or Russian name of the property ignoring case, may be {@code null}.
+     * @param resource the context resource, may be {@code null}.
+     * @return the property, may return {@code null} if there is no property with this name.
+     */
+    public Property findProperty(Collection<TypeItem> types, String name, Resource resource)
+    {
+        if (name == null)
+            return null;
+
+        for (TypeItem type : types)
+        {
+            Property property = getPropertyIndex(type, resource).get(name);
+            if (property != null)
+                return property;
+        }
+        return null;
+    }
+
+    /**
+     * Finds all properties with the given name in the types. The properties are returned in the order of types.
+     *
+     * @param types the types to find properties, cannot be {@code null}.
+     * @param name the English or Russian name of the property ignoring case, may be {@code null}.
+     * @param resource the context resource, may be {@code null}.
+     * @return the properties, cannot return {@code null}.
+     */
+    public List<Property> findProperties(Collection<TypeItem> types, String name, Resource resource)
+    {
+        if (name == null)
+            return Collections.emptyList();
+
+        List<Property> result = new ArrayList<>();
+        for (PropertyIndex index : getPropertyIndexes(types, resource))
+        {
+            result.addAll(index.getAll(name));
+        }
+        return result;
+    }
+
+    /**
+     * Gets the property indexes of the types in the order of types.
+     *
+     * @param types the types, cannot be {@code null}.
+     * @param resource the context resource, may be {@code null}.
+     * @return the property indexes of types, cannot return {@code null}.
+     */
+    public List<PropertyIndex> getPropertyIndexes(Collection<TypeItem> types, Resource resource)
+    {
+        List<PropertyIndex> result = new ArrayList<>(types.size());
+        for (TypeItem type : types)
+        {
+            result.add(getPropertyIndex(type, resource));
+        }
+        return result;
+    }
+
+    /**
+     * Clears all cached properties.
+     */
+    public void invalidate()
+    {
+        for (TypeProperties properties : cache.values())
+            manager.remove(properties);
+        cache.clear();
+    }
+
+    /**
+     * Clears the cache.
+     */
+    public void dispose()
+    {
+        invalidate();
+    }
+
+    private TypeProperties getTypeProperties(TypeItem type, Resource resource)
+    {
+        if (!isCacheable(type))
+            return new TypeProperties(null, null, null, computeAllProperties(type, resource));
+
+        IProject project = getProject(resource);
+        Pair<TypeItem, IProject> key = Tuples.create(type, project);
+
+        // Computing of properties may require properties of other types, so computeIfAbsent() is not used here
+        TypeProperties result = cache.get(key);
+        if (result == null)
+        {
+            result = new TypeProperties(key, project == null ? resourceLookup.getProject(type) : project,
+                dependencies.getKey(type), computeAllProperties(type, resource));
+            TypeProperties existing = cache.putIfAbsent(key, result);
+            if (existing != null)
+            {
+                result = existing;
+            }
+            else
+            {
+                manager.setSize(result, result.getSize());
+                dependencies.addDependent(result.dependency, result);
+            }
+        }
+        dependencies.addDependency(result.dependency);
+        manager.access(result.project, result);
+        return result;
+    }
+
+    private boolean isCacheable(TypeItem type)
+    {
+        if (type.eIsProxy())
+            return false;
+
+        // Types derived from module code live in the module resource and are recomputed when the module is changed
+        Resource typeResource = type.eResource();
+        return typeResource != null && typeResource.getURI() != null
+            && !BSL_EXTENSION.equals(typeResource.getURI().fileExtension());
+    }
+
+    /**
+     * Gets the workspace project of the resource.
+     *
+     * @param resource the resource, may be {@code null}.
+     * @return the project of the platform resource, may return {@code null} if the resource is not in workspace.
+     */
+    static IProject getProject(Resource resource)
+    {
+        URI uri = resource == null ? null : resource.getURI();
+        if (uri == null || !uri.isPlatformResource() || uri.segmentCount() < 2)
+            return null;
+
+        return ResourcesPlugin.getWorkspace().getRoot().getProject(URI.decode(uri.segment(1)));
+    }
+
+    private Collection<Pair<Collection<Property>, TypeItem>> computeAllProperties(TypeItem type, Resource resource)
+    {
+        return dynamicFeatureAccessComputer.get().getAllProperties(List.of(type), resource);
+    }
+
+    /**
+     * All properties of one type in one project with lazily created index, that are evicted when the top metadata
+     * object of the type is changed.
+     */
+    private final class TypeProperties
+        extends CacheManager.Entry
+        implements MetadataDependencies.Dependent
+    {
+        private final Pair<TypeItem, IProject> key;
+
+        private final IProject project;
+
+        private final Pair<IProject, String> dependency;
+
+        private final Collection<Pair<Collection<Property>, TypeItem>> all;
+
+        private volatile PropertyIndex index;
+
+        TypeProperties(Pair<TypeItem, IProject> key, IProject project, Pair<IProject, String> dependency,
+            Collection<Pair<Collection<Property>, TypeItem>> all)
+        {
+            this.key = key;
+            this.project = project;
+            this.dependency = dependency;
+            this.all = Collections.unmodifiableCollection(all);
+        }
+
+        @Override
+        public void invalidate(String changed)
+        {
+            manager.remove(this);
+            evict();
+        }
+
+        @Override
+        protected void evict()
+        {
+            if (key != null)
+                cache.remove(key, this);
+        }
+
+        /**
+         * Gets the number of properties of the type, that is the size of the entry in the {@link CacheManager}.
+         */
+        int getSize()
+        {
+            int result = 0;
+            for (Pair<Collection<Property>, TypeItem> properties : all)
+                result += properties.getFirst().size();
+            return Math.max(1, result);
+        }
+
+        PropertyIndex getIndex()
+        {
+            PropertyIndex result = index;
+            if (result == null)
+            {
+                result = PropertyIndex.of(all);
+                index = result;
+            }
+            return result;
+        }
+    }
+}
@@ -14,11 +14,18 @@
  *******************************************************************************/
 package com.e1c.ssl.bsl;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 import org.eclipse.emf.ecore.EObject;
@@ -26,13 +33,13 @@ import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.xtext.EcoreUtil2;
 import org.eclipse.xtext.util.Pair;
 
+import com._1c.g5.v8.bm.core.IBmObject;
 import com._1c.g5.v8.dt.bsl.model.BslFactory;
 import com._1c.g5.v8.dt.bsl.model.ExtendedCollectionType;
 import com._1c.g5.v8.dt.bsl.typesystem.util.TypeSystemUtil;
 import com._1c.g5.v8.dt.mcore.ContextDefWithRefItem;
 import com._1c.g5.v8.dt.mcore.DerivedProperty;
 import com._1c.g5.v8.dt.mcore.McoreFactory;
-import com._1c.g5.v8.dt.mcore.McorePackage;
 import com._1c.g5.v8.dt.mcore.Method;
 import com._1c.g5.v8.dt.mcore.Property;
 import com._1c.g5.v8.dt.mcore.Type;
@@ -44,13 +51,24 @@ import com._1c.g5.v8.dt.mcore.util.Environments;
 import com._1c.g5.v8.dt.mcore.util.McoreUtil;
 import com._1c.g5.v8.dt.platform.IEObjectProvider;
 import com._1c.g5.v8.dt.platform.IEObjectTypeNames;
-import com._1c.g5.v8.dt.platform.version.IRuntimeVersionSupport;
-import com._1c.g5.v8.dt.platform.version.Version;
+import com.google.common.cache.CacheBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
 /**
  * Provides API for transform one {@code TypeItem} to another {@code TypeItem}.
+ * The transformed types are cached per source type, direction and runtime version, and per properties of structure
+ * for {@link #transformStructure} or per project of the context for {@link #transformDeep}. The cache does not keep
+ * source types alive, so repeated transformations of the same type return the same transformed type. Transformed
+ * types are held softly, because the transformed type may reference its source type, like the map which values
+ * are not transformed, and would keep its own weak key alive.
+ * <br>
+ * The transformed type is shared by all callers: it is complete when it is cached and is never changed afterwards,
+ * so callers must treat returned types as read-only and copy them to change.
+ * <br>
+ * The deep transformation also transforms nested collection types of elements and structure properties, each nested
+ * type is transformed once per transformation and the depth of nested types is limited by
+ * {@link #MAX_DEPTH_PROPERTY}.
  *
  * @author Popov Vitalii
  *
@@ -59,17 +77,54 @@ import com.google.inject.Singleton;
 class TypesComputerHelper
 {
 
-    private final IRuntimeVersionSupport versionSupport;
+    /**
+     * The name of the system property with the maximum depth of nested collection types of deep transformation,
+     * deeper types are not transformed.
+     */
+    static final String MAX_DEPTH_PROPERTY = "com.e1c.ssl.bsl.types.maxTransformDepth"; //$NON-NLS-1$
+
+    private static final int MAX_DEPTH = Integer.getInteger(MAX_DEPTH_PROPERTY, 16);
+
+    private final PlatformTypeTemplates platformTypes;
+
+    private final TypePropertiesCache typePropertiesCache;
+
+    private final ConcurrentMap<TypeItem, Map<List<Object>, TypeItem>> transformed =
+        CacheBuilder.newBuilder().weakKeys().<TypeItem, Map<List<Object>, TypeItem>>build().asMap();
 
     /**
      * Instantiates a new types computer helper.
      *
-     * @param versionSupport the version support, cannot be {@code null}.
+     * @param platformTypes the platform type templates, cannot be {@code null}.
+     * @param typePropertiesCache the cache of properties of types, cannot be {@code null}.
      */
     @Inject
-    TypesComputerHelper(IRuntimeVersionSupport versionSupport)
+    TypesComputerHelper(PlatformTypeTemplates platformTypes, TypePropertiesCache typePropertiesCache)
+    {
+        this.platformTypes = platformTypes;
+        this.typePropertiesCache = typePropertiesCache;
+    }
+
+    /**
+     * Transforms the collection type and all nested collection types of its elements, map keys and values,
+     * and structure properties to FIXED types or to not FIXED types.
+     * Cannot return {@code null}.
+     *
+     * @param type - the source type, may be any type, only collection types are transformed.
+     * Cannot be {@code null}.
+     *
+     * @param transformToFixType - transform direction.
+     *
+     * @param context - the context.
+     * Cannot be {@code null}.
+     *
+     * @return the transformed type or the source type if it is not transformed.
+     */
+    public TypeItem transformDeep(TypeItem type, boolean transformToFixType, EObject context)
     {
-        this.versionSupport = versionSupport;
+        List<Object> key = Arrays.asList(transformToFixType, Boolean.TRUE, platformTypes.getVersion(context),
+            TypePropertiesCache.getProject(context.eResource()));
+        return getTransformed(type, key, () -> new DeepTransformation(transformToFixType, context).transform(type, 0));
     }
 
     /**
@@ -96,12 +151,15 @@ class TypesComputerHelper
             return type;
         }
 
-        IEObjectProvider provider = IEObjectProvider.Registry.INSTANCE.get(McorePackage.Literals.TYPE_ITEM,
-            this.versionSupport.getRuntimeVersionOrDefault(context, Version.LATEST));
-
-        Type collectionType = (Type)provider.getProxy(dstType);
-        Type newType = EcoreUtil2.cloneWithProxies((Type)EcoreUtil.resolve(collectionType, context));
+        List<Object> key = Arrays.asList(transformToFixType, Boolean.FALSE, platformTypes.getVersion(context),
+            getPropertiesKey(proprties));
+        return getTransformed(type, key,
+            () -> createStructure(type, proprties, dstType, transformToFixType, context, UnaryOperator.identity()));
+    }
 
+    private TypeItem createStructure(TypeItem type, Collection<Pair<Collection<Property>, TypeItem>> proprties,
+        String dstType, boolean transformToFixType, EObject context, UnaryOperator<TypeItem> nested)
+    {
         if (proprties.isEmpty())
             return type;
 
@@ -111,12 +169,16 @@ class TypesComputerHelper
         if (all == null)
             return type;
 
+        Type newType = platformTypes.createReferencingType(dstType, context);
+        if (newType == null)
+            return type;
+
         for (Property prop : all.getFirst())
         {
             if (prop instanceof DerivedProperty)
             {
                 // TODO not copy porperty in case where writable doesn't change
-                DerivedProperty newProp = cloneProperty((DerivedProperty)prop);
+                DerivedProperty newProp = cloneProperty((DerivedProperty)prop, nested);
                 newProp.setWritable(!transformToFixType);
                 newType.getContextDef().getProperties().add(newProp);
             }
@@ -141,15 +203,20 @@ class TypesComputerHelper
      */
     public TypeItem transformArray(TypeItem type, EObject context, boolean transformToFixType)
     {
-        IEObjectProvider provider = IEObjectProvider.Registry.INSTANCE.get(McorePackage.Literals.TYPE_ITEM,
-            this.versionSupport.getRuntimeVersionOrDefault(context, Version.LATEST));
-
         String dstType = transformToFixType ? IEObjectTypeNames.FIXED_ARRAY : IEObjectTypeNames.ARRAY;
         if (McoreUtil.getTypeName(type).equals(dstType))
         {
             return type;
         }
 
+        List<Object> key = Arrays.asList(transformToFixType, Boolean.FALSE, platformTypes.getVersion(context));
+        return getTransformed(type, key,
+            () -> createArray(type, context, transformToFixType, UnaryOperator.identity()));
+    }
+
+    private TypeItem createArray(TypeItem type, EObject context, boolean transformToFixType,
+        UnaryOperator<TypeItem> nested)
+    {
         if (type.eIsProxy())
         {
             type = (TypeItem)EcoreUtil.resolve(type, context);
@@ -164,20 +231,20 @@ class TypesComputerHelper
         }
 
         Type arrayType = (Type)type;
+        List<TypeItem> elementTypes = map(arrayType.getCollectionElementTypes().allTypes(), nested);
 
         ExtendedCollectionType extendedFixArrayType;
         if (transformToFixType)
         {
-            extendedFixArrayType =
-                createExtendedFixArrayType(arrayType.getCollectionElementTypes().allTypes(), provider, context);
+            extendedFixArrayType = createExtendedFixArrayType(elementTypes, context);
         }
         else
         {
-            extendedFixArrayType = TypeSystemUtil
-                .createExtendedArrayType(arrayType.getCollectionElementTypes().allTypes(), provider, context);
+            IEObjectProvider provider = platformTypes.getProvider(context);
+            extendedFixArrayType = TypeSystemUtil.createExtendedArrayType(elementTypes, provider, context);
         }
 
-        return extendedFixArrayType;
+        return extendedFixArrayType == null ? type : extendedFixArrayType;
     }
 
     /**
@@ -202,11 +269,12 @@ class TypesComputerHelper
             return type;
         }
 
-        IEObjectProvider provider = IEObjectProvider.Registry.INSTANCE.get(McorePackage.Literals.TYPE_ITEM,
-            this.versionSupport.getRuntimeVersionOrDefault(context, Version.LATEST));
-
-        Type dstType = (Type)provider.getProxy(dstTypeName);
+        List<Object> key = Arrays.asList(transformToFixType, Boolean.FALSE, platformTypes.getVersion(context));
+        return getTransformed(type, key, () -> createMap(type, dstTypeName, context, UnaryOperator.identity()));
+    }
 
+    private TypeItem createMap(TypeItem type, String dstTypeName, EObject context, UnaryOperator<TypeItem> nested)
+    {
         if (!(type instanceof Type))
             return type;
         if (type.eIsProxy())
@@ -220,9 +288,11 @@ class TypesComputerHelper
 
         Type mapType = (Type)type;
         Type collectionType = (Type)mapType.getCollectionElementTypes().allTypes().get(0);
-        List<TypeItem> keysTypes = getTypeFromPropertyCollection(collectionType, "Key"); //$NON-NLS-1$
-        List<TypeItem> valuesTypes = getTypeFromPropertyCollection(collectionType, "Value"); //$NON-NLS-1$
-        return createCustomMapWithType(dstType, keysTypes, valuesTypes, context, provider);
+        List<TypeItem> keysTypes = map(getTypeFromPropertyCollection(collectionType, "Key"), nested); //$NON-NLS-1$
+        List<TypeItem> valuesTypes = map(getTypeFromPropertyCollection(collectionType, "Value"), nested); //$NON-NLS-1$
+        Type mapResultType = createCustomMapWithType(platformTypes.createType(dstTypeName, context),
+            platformTypes.createType(IEObjectTypeNames.KEY_AND_VALUE, context), keysTypes, valuesTypes);
+        return mapResultType == null ? type : mapResultType;
     }
 
     /**
@@ -239,12 +309,135 @@ class TypesComputerHelper
      */
     public List<TypeItem> createCustomMapType(List<TypeItem> keyTypes, List<TypeItem> valueTypes, EObject context)
     {
-        IEObjectProvider provider = IEObjectProvider.Registry.INSTANCE.get(McorePackage.Literals.TYPE_ITEM,
-            this.versionSupport.getRuntimeVersionOrDefault(context, Version.LATEST));
+        Type mapType = createCustomMapWithType(platformTypes.createType(IEObjectTypeNames.MAP, context),
+            platformTypes.createType(IEObjectTypeNames.KEY_AND_VALUE, context), keyTypes, valueTypes);
+        return mapType == null ? Collections.emptyList() : Collections.singletonList(mapType);
+    }
+
+    /**
+     * Creates the custom MAP type where key and value has specific types.
+     *
+     * @param keyTypes - the key types.
+     *
+     * @param valueTypes - the value types.
+     *
+     * @param context - the context of invocation.
+     * Cannot be {@code null}.
+     *
+     * @return the list of types.
+     */
+    public List<TypeItem> createCustomMapType(List<TypeItem> keyTypes, List<TypeItem> valueTypes,
+        InvocationContext context)
+    {
+        Type mapType = createCustomMapWithType(platformTypes.createType(IEObjectTypeNames.MAP, context),
+            platformTypes.createType(IEObjectTypeNames.KEY_AND_VALUE, context), keyTypes, valueTypes);
+        return mapType == null ? Collections.emptyList() : Collections.singletonList(mapType);
+    }
+
+    /**
+     * Gets the transformed type from the cache or transforms the type and caches the result.
+     * Proxies and types that are not transformed are not cached.
+     *
+     * @param type the source type, cannot be {@code null}.
+     * @param key the key of the transformation of the source type: the direction, the depth, the runtime version
+     * and the inputs of the transformation, cannot be {@code null}.
+     * @param transformation the transformation of the source type, cannot be {@code null}.
+     * @return the transformed type, cannot return {@code null}.
+     */
+    private TypeItem getTransformed(TypeItem type, List<Object> key, Supplier<TypeItem> transformation)
+    {
+        if (type.eIsProxy())
+            return transformation.get();
+
+        Map<List<Object>, TypeItem> types = transformed.get(type);
+        TypeItem result = types == null ? null : types.get(key);
+        if (result != null)
+            return result;
+
+        result = transformation.get();
+        if (result == type)
+            return result;
+
+        // The source type is not held by its own entry as the key is weak, the key of transformation holds
+        // only the fingerprint of properties and the transformed type that may reference the source is soft
+        TypeItem previous = transformed
+            .computeIfAbsent(type, k -> CacheBuilder.newBuilder().softValues().<List<Object>, TypeItem>build().asMap())
+            .putIfAbsent(key, result);
+        return previous == null ? result : previous;
+    }
+
+    /**
+     * Gets the key of properties of the structure that are copied to the transformed structure. The key holds names,
+     * writability and the fingerprint of types of properties, so it does not keep the source type alive.
+     *
+     * @param properties the properties of the structure, cannot be {@code null}.
+     * @return the key of properties, cannot return {@code null}.
+     */
+    private static List<Object> getPropertiesKey(Collection<Pair<Collection<Property>, TypeItem>> properties)
+    {
+        List<Object> result = new ArrayList<>();
+        Pair<Collection<Property>, TypeItem> all = properties.isEmpty() ? null : properties.iterator().next();
+        if (all == null)
+            return result;
+
+        for (Property property : all.getFirst())
+        {
+            if (property instanceof DerivedProperty)
+            {
+                result.add(property.getName());
+                result.add(property.isWritable());
+                result.add(getFingerprint(property.getTypes(), 1));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the fingerprint of types that is equal for types with the same structure. The types of BM model are
+     * the fingerprint themselves, because they are changed in place and tracked by {@link MetadataDependencies}.
+     *
+     * @param types the types, cannot be {@code null}.
+     * @param depth the depth of properties of types to include to the fingerprint
+     * @return the fingerprint, cannot return {@code null}.
+     */
+    private static List<Object> getFingerprint(List<TypeItem> types, int depth)
+    {
+        List<Object> result = new ArrayList<>(types.size());
+        for (TypeItem type : types)
+        {
+            if (type instanceof IBmObject)
+            {
+                result.add(type);
+                continue;
+            }
+
+            result.add(McoreUtil.getTypeName(type));
+            if (depth <= 0 || !(type instanceof Type))
+                continue;
+
+            Type actual = (Type)type;
+            if (actual.getCollectionElementTypes() != null)
+                result.add(getFingerprint(actual.getCollectionElementTypes().allTypes(), depth - 1));
+            if (actual.getContextDef() != null)
+            {
+                for (Property property : actual.getContextDef().allProperties())
+                {
+                    result.add(property.getName());
+                    result.add(getFingerprint(property.getTypes(), depth - 1));
+                }
+            }
+        }
+        return result;
+    }
 
-        Type type = (Type)provider.getProxy(IEObjectTypeNames.MAP);
-        Type mapType = createCustomMapWithType(type, keyTypes, valueTypes, context, provider);
-        return Collections.singletonList(mapType);
+    private static List<TypeItem> map(List<TypeItem> types, UnaryOperator<TypeItem> nested)
+    {
+        List<TypeItem> result = new ArrayList<>(types.size());
+        for (TypeItem type : types)
+        {
+            result.add(nested.apply(type));
+        }
+        return result;
     }
 
     private List<TypeItem> getTypeFromPropertyCollection(Type collectionType, String propertyName)
@@ -257,15 +450,15 @@ class TypesComputerHelper
             .collect(Collectors.toList());
     }
 
-    private Type createCustomMapWithType(Type type, List<TypeItem> keyTypes, List<TypeItem> valueTypes, EObject context,
-        IEObjectProvider provider)
+    private Type createCustomMapWithType(Type mapType, Type keyValueType, List<TypeItem> keyTypes,
+        List<TypeItem> valueTypes)
     {
-        Type mapType = EcoreUtil2.cloneWithProxies((Type)EcoreUtil.resolve(type, context));
+        if (mapType == null)
+            return null;
+
         TypeContainerDef newTypeContainer = McoreFactory.eINSTANCE.createTypeContainerDef();
         mapType.setCollectionElementTypes(newTypeContainer);
 
-        TypeItem keyValue = (TypeItem)provider.getProxy(IEObjectTypeNames.KEY_AND_VALUE);
-        Type keyValueType = EcoreUtil2.cloneWithProxies((Type)EcoreUtil.resolve(keyValue, context));
         if (keyValueType != null)
         {
             newTypeContainer.getTypes().add(keyValueType);
@@ -314,11 +507,12 @@ class TypesComputerHelper
     /**
      * Copy from {@code TypeSystemUtils.createExtendedArrayType}
     */
-    private ExtendedCollectionType createExtendedFixArrayType(List<TypeItem> collectionTypes, IEObjectProvider provider,
-        EObject context)
+    private ExtendedCollectionType createExtendedFixArrayType(List<TypeItem> collectionTypes, EObject context)
     {
-        TypeItem type = (TypeItem)provider.getProxy(IEObjectTypeNames.FIXED_ARRAY);
-        Type arrayType = (Type)EcoreUtil.resolve(type, context);
+        Type arrayType = platformTypes.getTemplate(IEObjectTypeNames.FIXED_ARRAY, context);
+        if (arrayType == null)
+            return null;
+
         ExtendedCollectionType extendedType = BslFactory.eINSTANCE.createExtendedCollectionType();
         extendedType.setName(arrayType.getName());
         extendedType.setNameRu(arrayType.getNameRu());
@@ -350,7 +544,7 @@ class TypesComputerHelper
         return extendedType;
     }
 
-    private DerivedProperty cloneProperty(DerivedProperty prop)
+    private DerivedProperty cloneProperty(DerivedProperty prop, UnaryOperator<TypeItem> nested)
     {
         DerivedProperty property = McoreFactory.eINSTANCE.createDerivedProperty();
         property.setName(prop.getName());
@@ -361,7 +555,7 @@ class TypesComputerHelper
 
         TypeContainer typeContainer = property.getTypeContainer();
         if (typeContainer instanceof TypeContainerRef)
-            ((TypeContainerRef)typeContainer).getTypes().addAll(prop.getTypes());
+            ((TypeContainerRef)typeContainer).getTypes().addAll(map(prop.getTypes(), nested));
 
         property.setSource(prop.getSource());
         return property;
@@ -376,4 +570,112 @@ class TypesComputerHelper
             .findFirst()
             .orElse(null);
     }
+
+    /**
+     * One deep transformation of collection type with memoized nested types.
+     */
+    private final class DeepTransformation
+    {
+        private final boolean toFixed;
+
+        private final EObject context;
+
+        private final Map<TypeItem, TypeItem> memo = new IdentityHashMap<>();
+
+        DeepTransformation(boolean toFixed, EObject context)
+        {
+            this.toFixed = toFixed;
+            this.context = context;
+        }
+
+        TypeItem transform(TypeItem type, int depth)
+        {
+            if (depth > MAX_DEPTH)
+                return type;
+
+            TypeItem result = memo.get(type);
+            if (result != null)
+                return result;
+
+            // The type that contains itself is kept as is
+            memo.put(type, type);
+            result = transformType(type, depth);
+            memo.put(type, result);
+            return result;
+        }
+
+        private TypeItem transformType(TypeItem type, int depth)
+        {
+            TypeItem source = type.eIsProxy() ? (TypeItem)EcoreUtil.resolve(type, context) : type;
+            if (source.eIsProxy() || !(source instanceof Type))
+                return type;
+
+            UnaryOperator<TypeItem> nested = t -> transform(t, depth + 1);
+            String typeName = McoreUtil.getTypeName(source);
+            switch (typeName == null ? "" : typeName) //$NON-NLS-1$
+            {
+            case IEObjectTypeNames.STRUCTURE:
+            case IEObjectTypeNames.FIXED_STRUCTURE:
+                String dstType = toFixed ? IEObjectTypeNames.FIXED_STRUCTURE : IEObjectTypeNames.STRUCTURE;
+                Collection<Pair<Collection<Property>, TypeItem>> properties =
+                    typePropertiesCache.getAllProperties(List.of(source), context.eResource());
+                if (dstType.equals(typeName) && !isChanged(properties, nested))
+                    return type;
+                return createStructure(source, properties, dstType, toFixed, context, nested);
+
+            case IEObjectTypeNames.ARRAY:
+            case IEObjectTypeNames.FIXED_ARRAY:
+                String dstArray = toFixed ? IEObjectTypeNames.FIXED_ARRAY : IEObjectTypeNames.ARRAY;
+                if (dstArray.equals(typeName) && ((Type)source).getCollectionElementTypes() != null
+                    && !isChanged(((Type)source).getCollectionElementTypes().allTypes(), nested))
+                    return type;
+                return createArray(source, context, toFixed, nested);
+
+            case IEObjectTypeNames.MAP:
+            case IEObjectTypeNames.FIXED_MAP:
+                String dstMap = toFixed ? IEObjectTypeNames.FIXED_MAP : IEObjectTypeNames.MAP;
+                if (dstMap.equals(typeName) && !isMapChanged((Type)source, nested))
+                    return type;
+                return createMap(source, dstMap, context, nested);
+
+            default:
+                return type;
+            }
+        }
+
+        private boolean isChanged(Collection<Pair<Collection<Property>, TypeItem>> properties,
+            UnaryOperator<TypeItem> nested)
+        {
+            if (properties.isEmpty() || properties.iterator().next() == null)
+                return false;
+
+            for (Property property : properties.iterator().next().getFirst())
+            {
+                if (property instanceof DerivedProperty && isChanged(property.getTypes(), nested))
+                    return true;
+            }
+            return false;
+        }
+
+        private boolean isMapChanged(Type map, UnaryOperator<TypeItem> nested)
+        {
+            if (map.getCollectionElementTypes() == null || map.getCollectionElementTypes().allTypes().isEmpty()
+                || !(map.getCollectionElementTypes().allTypes().get(0) instanceof Type))
+                return false;
+
+            Type keyValue = (Type)map.getCollectionElementTypes().allTypes().get(0);
+            return isChanged(getTypeFromPropertyCollection(keyValue, "Key"), nested) //$NON-NLS-1$
+                || isChanged(getTypeFromPropertyCollection(keyValue, "Value"), nested); //$NON-NLS-1$
+        }
+
+        private boolean isChanged(List<TypeItem> types, UnaryOperator<TypeItem> nested)
+        {
+            for (TypeItem type : types)
+            {
+                if (nested.apply(type) != type)
+                    return true;
+            }
+            return false;
+        }
+    }
 }
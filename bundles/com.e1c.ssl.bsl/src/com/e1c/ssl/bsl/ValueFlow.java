@@ -0,0 +1,857 @@
+/*******************************************************************************
+ * Copyright (C) 2022, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.ssl.bsl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.xtext.EcoreUtil2;
+import org.eclipse.xtext.util.Pair;
+import org.eclipse.xtext.util.Triple;
+import org.eclipse.xtext.util.Tuples;
+
+import com._1c.g5.v8.dt.bsl.model.BinaryExpression;
+import com._1c.g5.v8.dt.bsl.model.BinaryOperation;
+import com._1c.g5.v8.dt.bsl.model.Conditional;
+import com._1c.g5.v8.dt.bsl.model.DynamicFeatureAccess;
+import com._1c.g5.v8.dt.bsl.model.Expression;
+import com._1c.g5.v8.dt.bsl.model.FeatureAccess;
+import com._1c.g5.v8.dt.bsl.model.IfStatement;
+import com._1c.g5.v8.dt.bsl.model.Invocation;
+import com._1c.g5.v8.dt.bsl.model.LoopStatement;
+import com._1c.g5.v8.dt.bsl.model.OperatorStyleCreator;
+import com._1c.g5.v8.dt.bsl.model.ReturnStatement;
+import com._1c.g5.v8.dt.bsl.model.SimpleStatement;
+import com._1c.g5.v8.dt.bsl.model.Statement;
+import com._1c.g5.v8.dt.bsl.model.StaticFeatureAccess;
+import com._1c.g5.v8.dt.bsl.model.StringLiteral;
+
+/**
+ * The result of the dataflow pass over one method or module body. The pass runs once per body and computes
+ * the statically known values of its variables before each statement: strings, arrays of strings added by
+ * {@code Add()} and structures with keys inserted by {@code Insert()}.
+ * <br>
+ * The states recorded per statement are the def-use index of the body: the value of a variable at an expression
+ * is one lookup of the state of the statement of the expression, so no assignments are searched backward
+ * from the offset of the expression and no statements are collected again for each query. The calls of
+ * {@code Insert()} and {@code Add()} are applied to their receiver variables in the same pass, so the contents
+ * of all structures and arrays of the body are collected at once and the body is not scanned per variable.
+ * <br>
+ * Branches of {@code If} statements are joined: a string variable keeps the set of its possible values that
+ * is limited by {@link ExpressionValueComputer#MAX_VALUES_PROPERTY}, items of arrays and keys of structures are
+ * united. The variable that is assigned in some branches only becomes unknown, as it may be not assigned at all.
+ * The body of a loop is passed again until values of variables are stable, the values that keep changing
+ * become unknown. Other compound statements are joined as optional blocks. The path that ends with {@code Return}
+ * is not joined with other paths, so the branch that returns does not make unknown variables of other branches.
+ * <br>
+ * The calls of {@code Insert()} and {@code Add()} on the variable that is not assigned in the body, like
+ * a parameter, fill the structure or the array from scratch only if types of the variable are structures
+ * or arrays, so such calls on maps and other collections are not collected.
+ * <br>
+ * The values of {@code Return} statements are joined to the summary of the function, so the value of the call
+ * of the function is taken from the result of the pass over the function body, and the value of the module
+ * variable is taken from the result of the pass over the module body. The results of these passes are kept
+ * to check that the summaries and values used by this pass are not changed.
+ *
+ * @author Dmitriy Marmyshev
+ */
+final class ValueFlow
+{
+
+    private static final int MAX_VALUES = Integer.getInteger(ExpressionValueComputer.MAX_VALUES_PROPERTY, 8);
+
+    private static final int MAX_CONCATENATION_OPERANDS =
+        Integer.getInteger(ExpressionValueComputer.MAX_CONCATENATION_OPERANDS_PROPERTY, 1000);
+
+    private static final int MAX_CONCATENATION_LENGTH =
+        Integer.getInteger(ExpressionValueComputer.MAX_CONCATENATION_LENGTH_PROPERTY, 65536);
+
+    private static final int MAX_LOOP_PASSES = 8;
+
+    private static final String METHOD_ARRAY_ADD_RU = "Добавить"; //$NON-NLS-1$
+
+    private static final String METHOD_ARRAY_ADD = "Add"; //$NON-NLS-1$
+
+    private static final String METHOD_STRUCTURE_INSERT_RU = "Вставить"; //$NON-NLS-1$
+
+    private static final String METHOD_STRUCTURE_INSERT = "Insert"; //$NON-NLS-1$
+
+    private final EObject body;
+
+    private final Function<StaticFeatureAccess, ValueFlow> outer;
+
+    private final Function<Invocation, ValueFlow> calls;
+
+    private final ToIntFunction<StaticFeatureAccess> kinds;
+
+    private final Set<String> tracked = new HashSet<>();
+
+    private final Map<Statement, State> states = new IdentityHashMap<>();
+
+    private final Set<ValueFlow> dependencies = ConcurrentHashMap.newKeySet();
+
+    private final Map<Expression, Value> values = new ConcurrentHashMap<>();
+
+    private State exit = State.EMPTY;
+
+    private Value returns;
+
+    private ValueFlow(EObject body, Function<StaticFeatureAccess, ValueFlow> outer,
+        Function<Invocation, ValueFlow> calls, ToIntFunction<StaticFeatureAccess> kinds)
+    {
+        this.body = body;
+        this.outer = outer;
+        this.calls = calls;
+        this.kinds = kinds;
+    }
+
+    /**
+     * Runs the dataflow pass over statements of one method or module body.
+     *
+     * @param body the method or the module, may be {@code null}.
+     * @param statements the top level statements of the body, cannot be {@code null}.
+     * @param outer the function that gets the result of the pass over the body where the variable that is not
+     * assigned in this body is declared, like the module variable, or {@code null} if the variable is not found,
+     * cannot be {@code null}.
+     * @param calls the function that gets the result of the pass over the body of the called function,
+     * or {@code null} if the function is not analyzed, cannot be {@code null}.
+     * @param kinds the function that gets the union of {@link TypeKinds} of types of the receiver variable
+     * of {@code Insert()} or {@code Add()} that is not assigned in this body, cannot be {@code null}.
+     * @return the result of the pass, cannot return {@code null}.
+     */
+    static ValueFlow create(EObject body, List<? extends Statement> statements,
+        Function<StaticFeatureAccess, ValueFlow> outer, Function<Invocation, ValueFlow> calls,
+        ToIntFunction<StaticFeatureAccess> kinds)
+    {
+        ValueFlow flow = new ValueFlow(body, outer, calls, kinds);
+        for (Statement statement : statements)
+        {
+            if (statement instanceof SimpleStatement)
+                flow.track((SimpleStatement)statement);
+            for (SimpleStatement simple : EcoreUtil2.eAllOfType(statement, SimpleStatement.class))
+                flow.track(simple);
+        }
+        flow.exit = flow.analyze(statements, State.EMPTY, true);
+        return flow;
+    }
+
+    /**
+     * Gets the value of the expression at the statement that contains the expression. The value is computed once
+     * per expression and kept with this result, so the same expression queried by several computers is evaluated
+     * once until the body is passed again.
+     *
+     * @param expression the expression in this body, cannot be {@code null}.
+     * @param complete the check that the value is computed without cut cycles of evaluation, only such value
+     * does not depend on the order of queries and is kept, cannot be {@code null}.
+     * @return the value of the expression, cannot return {@code null}.
+     */
+    Value getValue(Expression expression, BooleanSupplier complete)
+    {
+        Value value = values.get(expression);
+        if (value != null)
+            return value;
+
+        Statement statement = EcoreUtil2.getContainerOfType(expression, Statement.class);
+        State state = statement == null ? null : states.get(statement);
+        value = eval(expression, state == null ? State.EMPTY : state);
+        if (!complete.getAsBoolean())
+            return value;
+
+        Value previous = values.putIfAbsent(expression, value);
+        return previous == null ? value : previous;
+    }
+
+    /**
+     * Gets the value of the variable at the end of this body.
+     *
+     * @param name the name of the variable, cannot be {@code null}.
+     * @return the value of the variable, cannot return {@code null}.
+     */
+    Value getExitValue(String name)
+    {
+        Value value = exit.get(name);
+        return value == null ? Value.UNKNOWN : value;
+    }
+
+    /**
+     * Gets the summary of the function: the joined value of its {@code Return} statements.
+     *
+     * @return the value returned by the function, cannot return {@code null}.
+     */
+    Value getReturnValue()
+    {
+        return returns == null ? Value.UNKNOWN : returns;
+    }
+
+    /**
+     * Gets the method or the module of this pass.
+     *
+     * @return the body of this pass, may return {@code null}.
+     */
+    EObject getBody()
+    {
+        return body;
+    }
+
+    /**
+     * Gets the results of passes over bodies of called functions and of the module whose summaries and values
+     * of variables are used by this pass.
+     *
+     * @return the results of passes this pass depends on, cannot return {@code null}.
+     */
+    Collection<ValueFlow> getDependencies()
+    {
+        return dependencies;
+    }
+
+    private void track(SimpleStatement statement)
+    {
+        String name = null;
+        if (statement.getLeft() instanceof StaticFeatureAccess && statement.getRight() != null)
+            name = ((StaticFeatureAccess)statement.getLeft()).getName();
+        else if (statement.getLeft() instanceof Invocation)
+            name = getReceiver((Invocation)statement.getLeft());
+
+        if (name != null)
+            tracked.add(name.toLowerCase());
+    }
+
+    private State analyze(List<? extends Statement> statements, State in, boolean record)
+    {
+        State state = in;
+        for (Statement statement : statements)
+            state = analyze(statement, state, record);
+        return state;
+    }
+
+    private State analyze(Statement statement, State in, boolean record)
+    {
+        if (record)
+            states.put(statement, in);
+
+        if (statement instanceof SimpleStatement)
+            return analyzeSimple((SimpleStatement)statement, in);
+        else if (statement instanceof IfStatement)
+            return analyzeIf((IfStatement)statement, in, record);
+        else if (statement instanceof LoopStatement)
+            return analyzeLoop((LoopStatement)statement, in, record);
+        else if (statement instanceof ReturnStatement)
+            return analyzeReturn((ReturnStatement)statement, in, record);
+
+        List<Statement> children = new ArrayList<>();
+        collectStatements(statement, children);
+        if (children.isEmpty())
+            return in;
+
+        State state = in;
+        for (Statement child : children)
+        {
+            // Children of other compound statements are flattened, so the statement after Return may be
+            // reachable from another part of the statement, like the Except part of Try
+            state = analyze(child, state == State.UNREACHABLE ? in : state, record);
+        }
+        return in.join(state);
+    }
+
+    private State analyzeIf(IfStatement statement, State in, boolean record)
+    {
+        State out = analyze(statement.getIfPart().getStatements(), in, record);
+        for (Conditional part : statement.getElsIfParts())
+            out = out.join(analyze(part.getStatements(), in, record));
+        return out.join(analyze(statement.getElseStatements(), in, record));
+    }
+
+    private State analyzeLoop(LoopStatement statement, State in, boolean record)
+    {
+        State head = in;
+        for (int pass = 0; pass < MAX_LOOP_PASSES; pass++)
+        {
+            State next = in.join(analyze(statement.getStatements(), head, false));
+            if (pass > 0)
+                next = next.widen(head);
+            if (next.equals(head))
+                break;
+
+            head = next;
+        }
+        analyze(statement.getStatements(), head, record);
+        return head;
+    }
+
+    private State analyzeReturn(ReturnStatement statement, State in, boolean record)
+    {
+        if (record && in != State.UNREACHABLE)
+        {
+            Value value = statement.getExpression() == null ? Value.UNKNOWN : eval(statement.getExpression(), in);
+            returns = returns == null ? value : returns.join(value);
+        }
+        return State.UNREACHABLE;
+    }
+
+    private State analyzeSimple(SimpleStatement statement, State in)
+    {
+        if (statement.getLeft() instanceof StaticFeatureAccess && statement.getRight() != null)
+        {
+            String name = ((StaticFeatureAccess)statement.getLeft()).getName();
+            return name == null ? in : in.with(name, eval(statement.getRight(), in));
+        }
+        else if (statement.getLeft() instanceof Invocation)
+        {
+            return analyzeMutation((Invocation)statement.getLeft(), in);
+        }
+        return in;
+    }
+
+    private State analyzeMutation(Invocation inv, State in)
+    {
+        String receiver = getReceiver(inv);
+        if (receiver == null || inv.getParams().isEmpty())
+            return in;
+
+        String method = inv.getMethodAccess().getName();
+        Value value = in.get(receiver);
+        if (METHOD_STRUCTURE_INSERT_RU.equalsIgnoreCase(method) || METHOD_STRUCTURE_INSERT.equalsIgnoreCase(method))
+        {
+            // The structure that is not created in this body, like a parameter, is filled from scratch
+            if (value == null && isReceiverOf(inv, TypeKinds.ANY_STRUCTURE))
+                value = Value.structure(Collections.emptyMap());
+            return value != null && value.isStructure() ? in.with(receiver, insert(value, inv, in)) : in;
+        }
+        else if (METHOD_ARRAY_ADD_RU.equalsIgnoreCase(method) || METHOD_ARRAY_ADD.equalsIgnoreCase(method))
+        {
+            if (value == null && isReceiverOf(inv, TypeKinds.ARRAY))
+                value = Value.array(Collections.emptyList());
+            return value != null && value.isArray() ? in.with(receiver, add(value, inv.getParams().get(0), in)) : in;
+        }
+        return in;
+    }
+
+    private boolean isReceiverOf(Invocation inv, int kind)
+    {
+        StaticFeatureAccess source = (StaticFeatureAccess)((DynamicFeatureAccess)inv.getMethodAccess()).getSource();
+        return (kinds.applyAsInt(source) & kind) != 0;
+    }
+
+    private Value insert(Value structure, Invocation inv, State state)
+    {
+        Expression keyParam = inv.getParams().get(0);
+        StringLiteral keyLiteral = keyParam instanceof StringLiteral ? (StringLiteral)keyParam : null;
+
+        String path = null;
+        StringLiteral valueLiteral = null;
+        if (inv.getParams().size() > 1)
+        {
+            Expression valueParam = inv.getParams().get(1);
+            Pair<String, Collection<StringLiteral>> content = eval(valueParam, state).getString();
+            path = content == null ? null : content.getFirst();
+            if (valueParam instanceof StringLiteral)
+                valueLiteral = (StringLiteral)valueParam;
+        }
+
+        Map<String, Triple<StringLiteral, String, StringLiteral>> entries = new LinkedHashMap<>(structure.entries);
+        for (Pair<String, Collection<StringLiteral>> key : eval(keyParam, state).getStrings())
+        {
+            String keyPath = inv.getParams().size() > 1 ? path : key.getFirst();
+            entries.put(key.getFirst(), Tuples.create(keyLiteral, keyPath, valueLiteral));
+        }
+        return Value.structure(entries);
+    }
+
+    private Value add(Value array, Expression param, State state)
+    {
+        List<Pair<String, Collection<StringLiteral>>> contents = eval(param, state).getStrings();
+        if (contents.isEmpty())
+            return array;
+
+        List<Pair<String, StringLiteral>> items = new ArrayList<>(array.items);
+        for (Pair<String, Collection<StringLiteral>> content : contents)
+            items.add(Tuples.create(content.getFirst(), param instanceof StringLiteral ? (StringLiteral)param : null));
+        return Value.array(items);
+    }
+
+    private Value eval(Expression expression, State state)
+    {
+        if (expression instanceof StringLiteral)
+        {
+            StringLiteral literal = (StringLiteral)expression;
+            String content = String.join(System.lineSeparator(), literal.lines(false));
+            return Value.strings(List.of(Tuples.create(content, Arrays.asList(literal))));
+        }
+        else if (expression instanceof StaticFeatureAccess)
+        {
+            return evalVariable((StaticFeatureAccess)expression, state);
+        }
+        else if (expression instanceof BinaryExpression)
+        {
+            return evalConcatenation((BinaryExpression)expression, state);
+        }
+        else if (expression instanceof OperatorStyleCreator)
+        {
+            return evalCreator((OperatorStyleCreator)expression, state);
+        }
+        else if (expression instanceof Invocation)
+        {
+            ValueFlow callee = calls.apply((Invocation)expression);
+            if (callee == null || callee == this)
+                return Value.UNKNOWN;
+
+            dependencies.add(callee);
+            return callee.getReturnValue();
+        }
+        return Value.UNKNOWN;
+    }
+
+    private Value evalVariable(StaticFeatureAccess fa, State state)
+    {
+        String name = fa.getName();
+        if (name == null)
+            return Value.UNKNOWN;
+
+        Value value;
+        if (tracked.contains(name.toLowerCase()))
+        {
+            value = state.get(name);
+        }
+        else
+        {
+            ValueFlow flow = outer.apply(fa);
+            if (flow == null || flow == this)
+                return Value.UNKNOWN;
+
+            dependencies.add(flow);
+            value = flow.getExitValue(name);
+        }
+        return value == null ? Value.UNKNOWN : value;
+    }
+
+    /**
+     * Computes possible strings of the chain of concatenations. The chain is flattened from left to right without
+     * recursion on the chain itself, operands without string value are skipped; too long chains and strings
+     * are not computed.
+     */
+    private Value evalConcatenation(BinaryExpression bo, State state)
+    {
+        if (!BinaryOperation.PLUS.equals(bo.getOperation()))
+            return Value.UNKNOWN;
+
+        List<StringBuilder> contents = new ArrayList<>(List.of(new StringBuilder()));
+        List<Collection<StringLiteral>> literals = new ArrayList<>(List.of(new ArrayList<>()));
+        int operands = 0;
+
+        Deque<Expression> stack = new ArrayDeque<>();
+        stack.push(bo);
+        while (!stack.isEmpty())
+        {
+            Expression expression = stack.pop();
+            if (expression instanceof BinaryExpression)
+            {
+                BinaryExpression binary = (BinaryExpression)expression;
+                if (BinaryOperation.PLUS.equals(binary.getOperation()))
+                {
+                    if (binary.getRight() != null)
+                        stack.push(binary.getRight());
+                    if (binary.getLeft() != null)
+                        stack.push(binary.getLeft());
+                }
+                continue;
+            }
+
+            if (++operands > MAX_CONCATENATION_OPERANDS)
+                return Value.UNKNOWN;
+
+            List<Pair<String, Collection<StringLiteral>>> operand = eval(expression, state).getStrings();
+            if (operand.isEmpty())
+                continue;
+
+            if (contents.size() * operand.size() > MAX_VALUES)
+                return Value.UNKNOWN;
+
+            List<StringBuilder> nextContents = new ArrayList<>();
+            List<Collection<StringLiteral>> nextLiterals = new ArrayList<>();
+            for (int i = 0; i < contents.size(); i++)
+            {
+                for (int j = 0; j < operand.size(); j++)
+                {
+                    StringBuilder content = j == operand.size() - 1 ? contents.get(i)
+                        : new StringBuilder(contents.get(i));
+                    content.append(operand.get(j).getFirst());
+                    if (content.length() > MAX_CONCATENATION_LENGTH)
+                        return Value.UNKNOWN;
+
+                    Collection<StringLiteral> sources = new ArrayList<>(literals.get(i));
+                    sources.addAll(operand.get(j).getSecond());
+                    nextContents.add(content);
+                    nextLiterals.add(sources);
+                }
+            }
+            contents = nextContents;
+            literals = nextLiterals;
+        }
+
+        List<Pair<String, Collection<StringLiteral>>> result = new ArrayList<>();
+        for (int i = 0; i < contents.size(); i++)
+            result.add(Tuples.create(contents.get(i).toString(), literals.get(i)));
+        return Value.strings(result);
+    }
+
+    private Value evalCreator(OperatorStyleCreator osc, State state)
+    {
+        int kind = TypeKinds.of(osc.getType());
+        List<Expression> params = osc.getParams();
+        if ((kind & TypeKinds.ANY_STRUCTURE) != 0)
+        {
+            if (params.isEmpty())
+                return Value.structure(Collections.emptyMap());
+
+            Value first = eval(params.get(0), state);
+            if (params.size() == 1 && first.isStructure())
+                return first;
+
+            return createStructure(params, first.getString(), state);
+        }
+        else if (kind == TypeKinds.ARRAY)
+        {
+            if (params.size() == 1)
+            {
+                Value first = eval(params.get(0), state);
+                if (first.isArray())
+                    return first;
+            }
+
+            List<Pair<String, StringLiteral>> items = new ArrayList<>();
+            for (Expression param : params)
+            {
+                Pair<String, Collection<StringLiteral>> content = eval(param, state).getString();
+                if (content != null)
+                    items.add(Tuples.create(content.getFirst(),
+                        param instanceof StringLiteral ? (StringLiteral)param : null));
+            }
+            return Value.array(items);
+        }
+        else if (kind == TypeKinds.FIXED_ARRAY && params.size() == 1)
+        {
+            Value first = eval(params.get(0), state);
+            return first.isArray() ? first : Value.UNKNOWN;
+        }
+        return Value.UNKNOWN;
+    }
+
+    private Value createStructure(List<Expression> params, Pair<String, Collection<StringLiteral>> keys,
+        State state)
+    {
+        Map<String, Triple<StringLiteral, String, StringLiteral>> entries = new LinkedHashMap<>();
+        if (keys == null)
+            return Value.structure(entries);
+
+        StringLiteral keyLiteral = params.get(0) instanceof StringLiteral ? (StringLiteral)params.get(0) : null;
+        List<AttributeListTokenizer.Span> spans = AttributeListTokenizer.tokenize(keys.getFirst());
+        for (int i = 0; i < spans.size(); i++)
+        {
+            String path = spans.get(i).getName();
+            if (path.isEmpty())
+                continue;
+
+            String key = path.replace(".", ""); //$NON-NLS-1$ //$NON-NLS-2$
+            StringLiteral valueLiteral = null;
+            if (i + 1 < params.size())
+            {
+                Expression valueExpr = params.get(i + 1);
+                Pair<String, Collection<StringLiteral>> value = eval(valueExpr, state).getString();
+                if (value != null)
+                {
+                    path = value.getFirst().trim();
+                    if (valueExpr instanceof StringLiteral)
+                        valueLiteral = (StringLiteral)valueExpr;
+                }
+            }
+            entries.put(key, Tuples.create(keyLiteral, path, valueLiteral));
+        }
+        return Value.structure(entries);
+    }
+
+    private static String getReceiver(Invocation inv)
+    {
+        FeatureAccess methodAccess = inv.getMethodAccess();
+        if (!(methodAccess instanceof DynamicFeatureAccess)
+            || !(((DynamicFeatureAccess)methodAccess).getSource() instanceof StaticFeatureAccess))
+            return null;
+
+        String method = methodAccess.getName();
+        if (!METHOD_STRUCTURE_INSERT_RU.equalsIgnoreCase(method) && !METHOD_STRUCTURE_INSERT.equalsIgnoreCase(method)
+            && !METHOD_ARRAY_ADD_RU.equalsIgnoreCase(method) && !METHOD_ARRAY_ADD.equalsIgnoreCase(method))
+            return null;
+
+        return ((StaticFeatureAccess)((DynamicFeatureAccess)methodAccess).getSource()).getName();
+    }
+
+    private static void collectStatements(EObject object, List<Statement> result)
+    {
+        for (EObject child : object.eContents())
+        {
+            if (child instanceof Statement)
+                result.add((Statement)child);
+            else if (!(child instanceof Expression))
+                collectStatements(child, result);
+        }
+    }
+
+    /**
+     * The statically known value of a variable or an expression: the set of possible strings, the array of strings
+     * or the structure with string keys. Values are immutable.
+     */
+    static final class Value
+    {
+        /** The value that is not computed statically. */
+        static final Value UNKNOWN = new Value(null, null, null);
+
+        private final List<Pair<String, Collection<StringLiteral>>> strings;
+
+        private final List<Pair<String, StringLiteral>> items;
+
+        private final Map<String, Triple<StringLiteral, String, StringLiteral>> entries;
+
+        private Value(List<Pair<String, Collection<StringLiteral>>> strings, List<Pair<String, StringLiteral>> items,
+            Map<String, Triple<StringLiteral, String, StringLiteral>> entries)
+        {
+            this.strings = strings;
+            this.items = items;
+            this.entries = entries;
+        }
+
+        static Value strings(List<Pair<String, Collection<StringLiteral>>> strings)
+        {
+            return strings.isEmpty() || strings.size() > MAX_VALUES ? UNKNOWN : new Value(strings, null, null);
+        }
+
+        static Value array(List<Pair<String, StringLiteral>> items)
+        {
+            return new Value(null, items, null);
+        }
+
+        static Value structure(Map<String, Triple<StringLiteral, String, StringLiteral>> entries)
+        {
+            return new Value(null, null, entries);
+        }
+
+        boolean isArray()
+        {
+            return items != null;
+        }
+
+        boolean isStructure()
+        {
+            return entries != null;
+        }
+
+        /**
+         * Gets the string if the value is the only possible string.
+         *
+         * @return the string content and its source string literals, may return {@code null}.
+         */
+        Pair<String, Collection<StringLiteral>> getString()
+        {
+            return strings != null && strings.size() == 1 ? strings.get(0) : null;
+        }
+
+        /**
+         * Gets all possible strings of the value.
+         *
+         * @return the possible strings with their source string literals, cannot return {@code null}.
+         */
+        List<Pair<String, Collection<StringLiteral>>> getStrings()
+        {
+            return strings == null ? Collections.emptyList() : strings;
+        }
+
+        /**
+         * Gets the items of the array value.
+         *
+         * @return the items of the array, cannot return {@code null}.
+         */
+        List<Pair<String, StringLiteral>> getItems()
+        {
+            return items == null ? Collections.emptyList() : items;
+        }
+
+        /**
+         * Gets the entries of the structure value.
+         *
+         * @return the entries of the structure, cannot return {@code null}.
+         */
+        Map<String, Triple<StringLiteral, String, StringLiteral>> getEntries()
+        {
+            return entries == null ? Collections.emptyMap() : entries;
+        }
+
+        Value join(Value other)
+        {
+            if (equals(other))
+                return this;
+
+            if (strings != null && other.strings != null)
+            {
+                Map<String, Pair<String, Collection<StringLiteral>>> result = new LinkedHashMap<>();
+                for (Pair<String, Collection<StringLiteral>> content : strings)
+                    result.putIfAbsent(content.getFirst(), content);
+                for (Pair<String, Collection<StringLiteral>> content : other.strings)
+                    result.putIfAbsent(content.getFirst(), content);
+                return strings(new ArrayList<>(result.values()));
+            }
+            else if (items != null && other.items != null)
+            {
+                Set<Pair<String, StringLiteral>> result = new LinkedHashSet<>(items);
+                result.addAll(other.items);
+                return array(new ArrayList<>(result));
+            }
+            else if (entries != null && other.entries != null)
+            {
+                Map<String, Triple<StringLiteral, String, StringLiteral>> result = new LinkedHashMap<>(entries);
+                for (Entry<String, Triple<StringLiteral, String, StringLiteral>> entry : other.entries.entrySet())
+                    result.putIfAbsent(entry.getKey(), entry.getValue());
+                return structure(result);
+            }
+            return UNKNOWN;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof Value))
+                return false;
+
+            Value other = (Value)obj;
+            return Objects.equals(strings, other.strings) && Objects.equals(items, other.items)
+                && Objects.equals(entries, other.entries);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(strings, items, entries);
+        }
+    }
+
+    /**
+     * The immutable values of variables at one point of the body. The variable that is not assigned yet has no value.
+     * The point after {@code Return} has the unreachable state, that has no values and is ignored by joins.
+     */
+    private static final class State
+    {
+        private static final State EMPTY = new State(Collections.emptyMap());
+
+        private static final State UNREACHABLE = new State(Collections.emptyMap());
+
+        private final Map<String, Value> values;
+
+        private State(Map<String, Value> values)
+        {
+            this.values = values;
+        }
+
+        Value get(String name)
+        {
+            return values.get(name.toLowerCase());
+        }
+
+        State with(String name, Value value)
+        {
+            if (this == UNREACHABLE)
+                return this;
+
+            String key = name.toLowerCase();
+            if (value.equals(values.get(key)))
+                return this;
+
+            Map<String, Value> result = new HashMap<>(values);
+            result.put(key, value);
+            return new State(result);
+        }
+
+        /**
+         * Joins the states of two paths. The variable that is assigned on one path only may be not assigned
+         * when the other path is taken, so its value becomes unknown.
+         */
+        State join(State other)
+        {
+            if (this == UNREACHABLE)
+                return other;
+            else if (other == UNREACHABLE || equals(other))
+                return this;
+
+            Map<String, Value> result = new HashMap<>(values);
+            for (Entry<String, Value> entry : other.values.entrySet())
+                result.merge(entry.getKey(), entry.getValue(), Value::join);
+            for (Entry<String, Value> entry : result.entrySet())
+            {
+                if (!values.containsKey(entry.getKey()) || !other.values.containsKey(entry.getKey()))
+                    entry.setValue(Value.UNKNOWN);
+            }
+            return new State(result);
+        }
+
+        /**
+         * Makes unknown the values that are changed since the previous state.
+         */
+        State widen(State previous)
+        {
+            if (this == UNREACHABLE || previous == UNREACHABLE)
+                return this;
+
+            Map<String, Value> result = new HashMap<>(values);
+            for (Entry<String, Value> entry : values.entrySet())
+            {
+                if (!entry.getValue().equals(previous.values.get(entry.getKey())))
+                    result.put(entry.getKey(), Value.UNKNOWN);
+            }
+            return new State(result);
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof State) || this == UNREACHABLE || obj == UNREACHABLE)
+                return false;
+
+            return values.equals(((State)obj).values);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return values.hashCode();
+        }
+    }
+}
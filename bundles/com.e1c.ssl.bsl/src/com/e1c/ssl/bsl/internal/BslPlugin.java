@@ -12,12 +12,19 @@
  *******************************************************************************/
 package com.e1c.ssl.bsl.internal;
 
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Plugin;
 import org.eclipse.core.runtime.Status;
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
 
 import com._1c.g5.v8.dt.bsl.model.BslPackage;
+import com.e1c.ssl.bsl.CacheManager;
+import com.e1c.ssl.bsl.MetadataDependencies;
+import com.e1c.ssl.bsl.SslModuleIndex;
+import com.e1c.ssl.bsl.TypePropertiesCache;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 
@@ -39,6 +46,10 @@ public class BslPlugin
 
     private static BundleContext context;
 
+    private ServiceRegistration<TypePropertiesCache> typePropertiesCacheRegistration;
+
+    private ServiceRegistration<SslModuleIndex> sslModuleIndexRegistration;
+
     /**
      * Returns the shared instance
      *
@@ -133,8 +144,15 @@ public class BslPlugin
     @Override
     public void stop(BundleContext bundleContext) throws Exception
     {
+        Injector current;
+        synchronized (this)
+        {
+            current = injector;
+            injector = null;
+        }
+        if (current != null)
+            unregisterServices(current);
 
-        injector = null;
         plugin = null;
         super.stop(bundleContext);
 
@@ -146,13 +164,85 @@ public class BslPlugin
      *
      * @return Guice injector of the plugin, never <code>null</code> if plugin is started
      */
-    public synchronized Injector getInjector()
+    public Injector getInjector()
     {
-        if (injector == null)
+        Injector result;
+        boolean created = false;
+        synchronized (this)
         {
-            injector = createInjector();
+            if (injector == null)
+            {
+                injector = createInjector();
+                created = true;
+            }
+            result = injector;
         }
-        return injector;
+        // Listeners and services are registered on the first use of the injector, not while the bundle is starting,
+        // and out of the lock, so they may use the injector
+        if (created)
+            registerServices(result);
+        return result;
+    }
+
+    private void registerServices(Injector created)
+    {
+        CacheManager cacheManager = created.getInstance(CacheManager.class);
+        ResourcesPlugin.getWorkspace()
+            .addResourceChangeListener(cacheManager, IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.PRE_DELETE);
+
+        SslModuleIndex sslModuleIndex = created.getInstance(SslModuleIndex.class);
+        ResourcesPlugin.getWorkspace().addResourceChangeListener(sslModuleIndex, IResourceChangeEvent.POST_CHANGE);
+
+        BundleContext bundleContext = getContext();
+        ServiceRegistration<TypePropertiesCache> typePropertiesCacheService = bundleContext == null ? null
+            : bundleContext.registerService(TypePropertiesCache.class, created.getInstance(TypePropertiesCache.class),
+                null);
+        ServiceRegistration<SslModuleIndex> sslModuleIndexService =
+            bundleContext == null ? null : bundleContext.registerService(SslModuleIndex.class, sslModuleIndex, null);
+
+        synchronized (this)
+        {
+            if (injector == created)
+            {
+                typePropertiesCacheRegistration = typePropertiesCacheService;
+                sslModuleIndexRegistration = sslModuleIndexService;
+                return;
+            }
+        }
+
+        // The bundle is stopped while listeners and services were registered
+        ResourcesPlugin.getWorkspace().removeResourceChangeListener(cacheManager);
+        ResourcesPlugin.getWorkspace().removeResourceChangeListener(sslModuleIndex);
+        if (typePropertiesCacheService != null)
+            typePropertiesCacheService.unregister();
+        if (sslModuleIndexService != null)
+            sslModuleIndexService.unregister();
+    }
+
+    private void unregisterServices(Injector current)
+    {
+        ServiceRegistration<TypePropertiesCache> typePropertiesCacheService;
+        ServiceRegistration<SslModuleIndex> sslModuleIndexService;
+        synchronized (this)
+        {
+            typePropertiesCacheService = typePropertiesCacheRegistration;
+            sslModuleIndexService = sslModuleIndexRegistration;
+            typePropertiesCacheRegistration = null;
+            sslModuleIndexRegistration = null;
+        }
+        if (typePropertiesCacheService != null)
+            typePropertiesCacheService.unregister();
+        if (sslModuleIndexService != null)
+            sslModuleIndexService.unregister();
+
+        SslModuleIndex sslModuleIndex = current.getInstance(SslModuleIndex.class);
+        ResourcesPlugin.getWorkspace().removeResourceChangeListener(sslModuleIndex);
+        sslModuleIndex.dispose();
+        current.getInstance(TypePropertiesCache.class).dispose();
+        current.getInstance(MetadataDependencies.class).dispose();
+        CacheManager cacheManager = current.getInstance(CacheManager.class);
+        ResourcesPlugin.getWorkspace().removeResourceChangeListener(cacheManager);
+        cacheManager.dispose();
     }
 
     private Injector createInjector()
@@ -16,12 +16,14 @@ import org.eclipse.core.runtime.Plugin;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.xtext.resource.IResourceServiceProvider;
 import org.eclipse.xtext.scoping.IScopeProvider;
+import org.eclipse.xtext.util.IResourceScopeCache;
 
 import com._1c.g5.v8.dt.bsl.resource.DynamicFeatureAccessComputer;
 import com._1c.g5.v8.dt.bsl.resource.TypesComputer;
 import com._1c.g5.v8.dt.bsl.typesystem.ValueTableDynamicContextDefProvider;
 import com._1c.g5.v8.dt.core.platform.IBmModelManager;
 import com._1c.g5.v8.dt.core.platform.IResourceLookup;
+import com._1c.g5.v8.dt.core.platform.IV8ProjectManager;
 import com._1c.g5.v8.dt.platform.version.IRuntimeVersionSupport;
 import com._1c.g5.wiring.AbstractServiceAwareModule;
 
@@ -47,6 +49,7 @@ class ExternalDependenciesModule
         bind(IResourceLookup.class).toService();
         bind(IRuntimeVersionSupport.class).toService();
         bind(IBmModelManager.class).toService();
+        bind(IV8ProjectManager.class).toService();
 
         URI uri = URI.createURI("*.bsl"); //$NON-NLS-1$
         final IResourceServiceProvider rsp = IResourceServiceProvider.Registry.INSTANCE.getResourceServiceProvider(uri);
@@ -54,6 +57,7 @@ class ExternalDependenciesModule
         bind(TypesComputer.class).toProvider(() -> rsp.get(TypesComputer.class));
         bind(DynamicFeatureAccessComputer.class).toProvider(() -> rsp.get(DynamicFeatureAccessComputer.class));
         bind(IScopeProvider.class).toProvider(() -> rsp.get(IScopeProvider.class));
+        bind(IResourceScopeCache.class).toProvider(() -> rsp.get(IResourceScopeCache.class));
         bind(ValueTableDynamicContextDefProvider.class)
             .toProvider(() -> rsp.get(ValueTableDynamicContextDefProvider.class));
 
@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (C) 2022, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.ssl.bsl.itests;
+
+import static com._1c.g5.v8.dt.platform.IEObjectTypeNames.KEY_AND_VALUE;
+import static com._1c.g5.v8.dt.platform.IEObjectTypeNames.MAP;
+import static com._1c.g5.v8.dt.platform.IEObjectTypeNames.STRUCTURE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.eclipse.xtext.nodemodel.ICompositeNode;
+import org.eclipse.xtext.nodemodel.util.NodeModelUtils;
+import org.junit.Test;
+
+import com._1c.g5.v8.dt.bsl.model.BslDerivedPropertySource;
+import com._1c.g5.v8.dt.bsl.model.Method;
+import com._1c.g5.v8.dt.bsl.model.Module;
+import com._1c.g5.v8.dt.mcore.DerivedProperty;
+import com._1c.g5.v8.dt.mcore.Property;
+import com._1c.g5.v8.dt.mcore.Type;
+import com._1c.g5.v8.dt.mcore.TypeItem;
+import com._1c.g5.v8.dt.mcore.util.McoreUtil;
+import com.e1c.ssl.internal.bsl.itests.BslCommonModuleTestCaseBase;
+
+/**
+ * Tests for lists of attribute names passed to functions {@code ObjectAttributesValues()}.
+ *
+ * @author Dmitriy Marmyshev
+ */
+public class BslAttributeListTest
+    extends BslCommonModuleTestCaseBase
+{
+
+    private static final String WHITESPACES = "common-functions/attribute-list-whitespaces.bsl"; //$NON-NLS-1$
+
+    private static final String PATHS = "common-functions/attribute-list-paths.bsl"; //$NON-NLS-1$
+
+    private static final String SUPPLIER_KEY = "ОсновнойПоставщик"; //$NON-NLS-1$
+
+    private static final String STRING = "String"; //$NON-NLS-1$
+
+    private static final String CATALOG_PRODUCTS = "CatalogRef.Товары"; //$NON-NLS-1$
+
+    private static final String CATALOG_SUPPLIERS = "CatalogRef.Поставщики"; //$NON-NLS-1$
+
+    @Test
+    public void testWhitespacesAndLineContinuationsAreSkipped() throws Exception
+    {
+        Module module = replaceModule(PATH_COMMON_MODULE_TEST, WHITESPACES);
+
+        Map<String, Set<String>> properties = getProperties(computeTypes(getRightExpr(module, 0, 0)));
+        Map<String, Set<String>> expected = new TreeMap<>();
+        expected.put("Поставщик", Set.of(CATALOG_SUPPLIERS)); //$NON-NLS-1$
+        expected.put("Родитель", Set.of(CATALOG_PRODUCTS)); //$NON-NLS-1$
+        expected.put("Ссылка", Set.of(CATALOG_PRODUCTS)); //$NON-NLS-1$
+        expected.put("Наименование", Set.of(STRING)); //$NON-NLS-1$
+        assertEquals(expected, properties);
+    }
+
+    @Test
+    public void testSourceOffsetOfNameAfterWhitespaces() throws Exception
+    {
+        Module module = replaceModule(PATH_COMMON_MODULE_TEST, WHITESPACES);
+
+        Type type = getStructureType(computeTypes(getRightExpr(module, 0, 2)));
+        Map<String, Set<String>> expected = new TreeMap<>();
+        expected.put("Код", Set.of(STRING)); //$NON-NLS-1$
+        expected.put(SUPPLIER_KEY, Set.of(CATALOG_SUPPLIERS));
+        assertEquals(expected, getProperties(List.of(type)));
+
+        // The key differs from the attribute name, so the property points to the key in the string literal
+        Property property = type.getContextDef().getProperties()
+            .stream()
+            .filter(p -> SUPPLIER_KEY.equals(p.getNameRu()))
+            .findFirst()
+            .orElseThrow();
+        assertTrue(property instanceof DerivedProperty);
+        assertTrue(((DerivedProperty)property).getSource() instanceof BslDerivedPropertySource);
+        BslDerivedPropertySource source = (BslDerivedPropertySource)((DerivedProperty)property).getSource();
+
+        Method method = module.allMethods().get(0);
+        assertEquals(method.getName(), source.getMethodName());
+        ICompositeNode methodNode = NodeModelUtils.findActualNodeFor(method);
+        assertTrue(methodNode.getText().substring(source.getLocalOffset()).startsWith(SUPPLIER_KEY));
+    }
+
+    @Test
+    public void testPathsWithCommonPrefixes() throws Exception
+    {
+        Module module = replaceModule(PATH_COMMON_MODULE_TEST, PATHS);
+
+        Map<String, Set<String>> expected = new TreeMap<>();
+        expected.put("Код", Set.of(STRING)); //$NON-NLS-1$
+        expected.put("Поставщик", Set.of(CATALOG_SUPPLIERS)); //$NON-NLS-1$
+        expected.put("ПоставщикКод", Set.of(STRING)); //$NON-NLS-1$
+        expected.put("ПоставщикНаименование", Set.of(STRING)); //$NON-NLS-1$
+        // The path with unknown last segment is not resolved
+        assertEquals(expected, getProperties(computeTypes(getRightExpr(module, 0, 1))));
+    }
+
+    @Test
+    public void testPathsWithCommonPrefixesOfObjects() throws Exception
+    {
+        Module module = replaceModule(PATH_COMMON_MODULE_TEST, PATHS);
+
+        List<TypeItem> types = computeTypes(getRightExpr(module, 1, 0));
+        assertEquals(1, types.size());
+        assertEquals(MAP, McoreUtil.getTypeName(types.get(0)));
+        Type collectionType = (Type)((Type)types.get(0)).getCollectionElementTypes().allTypes().get(0);
+        assertEquals(KEY_AND_VALUE, McoreUtil.getTypeName(collectionType));
+        Property value = collectionType.getContextDef()
+            .getProperties()
+            .stream()
+            .filter(p -> "Value".equals(p.getName())) //$NON-NLS-1$
+            .findFirst()
+            .orElseThrow();
+
+        Map<String, Set<String>> properties = new TreeMap<>();
+        for (Map.Entry<String, Set<String>> entry : getProperties(value.getTypes()).entrySet())
+            properties.put(entry.getKey().toLowerCase(), entry.getValue());
+
+        Map<String, Set<String>> expected = new TreeMap<>();
+        expected.put("родитель.код", Set.of(STRING)); //$NON-NLS-1$
+        expected.put("родитель.поставщик", Set.of(CATALOG_SUPPLIERS)); //$NON-NLS-1$
+        expected.put("родитель.поставщик.код", Set.of(STRING)); //$NON-NLS-1$
+        expected.put("родитель.поставщик.наименование", Set.of(STRING)); //$NON-NLS-1$
+        assertEquals(expected, properties);
+    }
+
+    private Type getStructureType(List<TypeItem> types)
+    {
+        assertEquals(1, types.size());
+        assertTrue(types.get(0) instanceof Type);
+        Type type = (Type)types.get(0);
+        assertEquals(STRUCTURE, McoreUtil.getTypeName(type));
+        return type;
+    }
+
+    private Map<String, Set<String>> getProperties(List<TypeItem> types)
+    {
+        Map<String, Set<String>> result = new TreeMap<>();
+        for (Property property : getStructureType(types).getContextDef().getProperties())
+            result.put(property.getNameRu(), getTypeNames(property.getTypes()));
+        return result;
+    }
+}
@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (C) 2022, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.ssl.bsl.itests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.xtext.util.Pair;
+import org.junit.Test;
+
+import com._1c.g5.v8.dt.bsl.model.Module;
+import com._1c.g5.v8.dt.mcore.Property;
+import com._1c.g5.v8.dt.mcore.TypeItem;
+import com.e1c.ssl.bsl.CacheManager;
+import com.e1c.ssl.bsl.TypePropertiesCache;
+import com.e1c.ssl.internal.bsl.itests.BslCommonModuleTestCaseBase;
+
+/**
+ * Tests for shedding of entries of caches by {@link CacheManager}.
+ *
+ * @author Dmitriy Marmyshev
+ */
+public class BslCacheManagerTest
+    extends BslCommonModuleTestCaseBase
+{
+
+    private static final String CALLER = "common-functions/cache-argument-types.bsl"; //$NON-NLS-1$
+
+    private static final String CALLEE_PRODUCTS = "common-functions/cache-callee-products.bsl"; //$NON-NLS-1$
+
+    @Test
+    public void testLeastRecentlyUsedEntriesAreShedFirst() throws Exception
+    {
+        CacheManager manager = new CacheManager();
+        try
+        {
+            RecordingEntry first = new RecordingEntry();
+            RecordingEntry second = new RecordingEntry();
+            RecordingEntry third = new RecordingEntry();
+            RecordingEntry fourth = new RecordingEntry();
+            for (RecordingEntry entry : List.of(first, second, third, fourth))
+                manager.access(project, entry);
+            manager.access(project, first);
+            assertEquals(4, manager.getSize());
+
+            manager.shrink(2);
+            assertEquals(2, manager.getSize());
+            assertEquals(0, first.evicted);
+            assertEquals(1, second.evicted);
+            assertEquals(1, third.evicted);
+            assertEquals(0, fourth.evicted);
+
+            // The evicted entry is registered again on the next access
+            manager.access(project, second);
+            assertEquals(3, manager.getSize());
+        }
+        finally
+        {
+            manager.dispose();
+        }
+    }
+
+    @Test
+    public void testSizeOfEntryIsShed() throws Exception
+    {
+        CacheManager manager = new CacheManager();
+        try
+        {
+            RecordingEntry large = new RecordingEntry();
+            RecordingEntry small = new RecordingEntry();
+            manager.setSize(large, 10);
+            manager.access(project, large);
+            manager.access(project, small);
+            assertEquals(11, manager.getSize());
+
+            manager.setSize(small, 5);
+            assertEquals(15, manager.getSize());
+
+            manager.shrink(10);
+            assertEquals(5, manager.getSize());
+            assertEquals(1, large.evicted);
+            assertEquals(0, small.evicted);
+        }
+        finally
+        {
+            manager.dispose();
+        }
+    }
+
+    @Test
+    public void testEntriesOfOtherProjectsAreNotCleared() throws Exception
+    {
+        IProject other = project.getWorkspace().getRoot().getProject("Other"); //$NON-NLS-1$
+        CacheManager manager = new CacheManager();
+        try
+        {
+            RecordingEntry entry = new RecordingEntry();
+            RecordingEntry otherEntry = new RecordingEntry();
+            RecordingEntry shared = new RecordingEntry();
+            manager.access(project, entry);
+            manager.access(other, otherEntry);
+            manager.access(null, shared);
+
+            manager.clear(project);
+            assertEquals(2, manager.getSize());
+            assertEquals(1, entry.evicted);
+            assertEquals(0, otherEntry.evicted);
+            assertEquals(0, shared.evicted);
+        }
+        finally
+        {
+            manager.dispose();
+        }
+    }
+
+    @Test
+    public void testThresholdsAreKeptWhileOtherManagersAreAlive() throws Exception
+    {
+        CacheManager first = new CacheManager();
+        CacheManager second = new CacheManager();
+        try
+        {
+            Map<MemoryPoolMXBean, Long> thresholds = new HashMap<>();
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+            {
+                if (pool.isCollectionUsageThresholdSupported())
+                    thresholds.put(pool, pool.getCollectionUsageThreshold());
+            }
+
+            first.dispose();
+            for (Map.Entry<MemoryPoolMXBean, Long> entry : thresholds.entrySet())
+                assertEquals(entry.getValue().longValue(), entry.getKey().getCollectionUsageThreshold());
+        }
+        finally
+        {
+            first.dispose();
+            second.dispose();
+        }
+    }
+
+    @Test
+    public void testTypePropertiesAreSizedByProperties() throws Exception
+    {
+        replaceModule(PATH_COMMON_MODULE_CONDITIONAL, CALLEE_PRODUCTS);
+        Module module = replaceModule(PATH_COMMON_MODULE_TEST, CALLER);
+        List<TypeItem> types = computeTypes(getRightExpr(module, 0, 0));
+        assertEquals(1, types.size());
+
+        CacheManager manager = getInstance(CacheManager.class);
+        TypePropertiesCache cache = getInstance(TypePropertiesCache.class);
+        cache.invalidate();
+
+        long size = manager.getSize();
+        Collection<Pair<Collection<Property>, TypeItem>> all = cache.getAllProperties(types, module.eResource());
+        int count = 0;
+        for (Pair<Collection<Property>, TypeItem> properties : all)
+            count += properties.getFirst().size();
+        assertTrue(count > 1);
+        assertTrue(manager.getSize() - size >= count);
+    }
+
+    private static final class RecordingEntry
+        extends CacheManager.Entry
+    {
+        private int evicted;
+
+        @Override
+        protected void evict()
+        {
+            evicted++;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+/*******************************************************************************
+ * Copyright (C) 2022, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.ssl.bsl.itests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.xtext.util.Pair;
+import org.eclipse.xtext.util.Triple;
+import org.junit.Test;
+
+import com._1c.g5.v8.dt.bsl.model.Expression;
+import com._1c.g5.v8.dt.bsl.model.Module;
+import com._1c.g5.v8.dt.bsl.model.StringLiteral;
+import com.e1c.ssl.bsl.ExpressionValueComputer;
+import com.e1c.ssl.internal.bsl.itests.BslCommonModuleTestCaseBase;
+
+/**
+ * Tests for static values of expressions computed by {@link ExpressionValueComputer}.
+ *
+ * @author Dmitriy Marmyshev
+ */
+public class BslExpressionValueComputerTest
+    extends BslCommonModuleTestCaseBase
+{
+
+    private static final String ASSIGNMENTS = "common-functions/value-flow-assignments.bsl"; //$NON-NLS-1$
+
+    private static final String MUTATIONS = "common-functions/value-flow-mutations.bsl"; //$NON-NLS-1$
+
+    private static final String CYCLES = "common-functions/value-flow-cycles.bsl"; //$NON-NLS-1$
+
+    private static final String BRANCHES = "common-functions/value-flow-branches.bsl"; //$NON-NLS-1$
+
+    private static final String RECURSION = "common-functions/value-flow-recursion.bsl"; //$NON-NLS-1$
+
+    private static final String RETURNS = "common-functions/value-flow-returns.bsl"; //$NON-NLS-1$
+
+    @Test
+    public void testValueOfLastAssignmentBeforeExpression() throws Exception
+    {
+        Module module = replaceModule(PATH_COMMON_MODULE_TEST, ASSIGNMENTS);
+
+        assertEquals("Код", getContent(module, 1)); //$NON-NLS-1$
+        assertEquals("Наименование", getContent(module, 3)); //$NON-NLS-1$
+        assertEquals("Наименование, Родитель", getContent(module, 5)); //$NON-NLS-1$
+        // The variable is assigned after the expression
+        assertNull(getContent(module, 6));
+    }
+
+    @Test
+    public void testInsertAndAddCallsOfSeveralVariables() throws Exception
+    {
+        Module module = replaceModule(PATH_COMMON_MODULE_TEST, MUTATIONS);
+        ExpressionValueComputer computer = getInstance(ExpressionValueComputer.class);
+
+        Map<String, Triple<StringLiteral, String, StringLiteral>> structure1 =
+            computer.getStructureExpressionContent(getRightExpr(module, 0, 6));
+        assertEquals(Set.of("Код"), structure1.keySet()); //$NON-NLS-1$
+
+        Map<String, Triple<StringLiteral, String, StringLiteral>> structure2 =
+            computer.getStructureExpressionContent(getRightExpr(module, 0, 7));
+        assertEquals(Set.of("Наименование", "Поставщик"), structure2.keySet()); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals("Поставщик.Код", structure2.get("Поставщик").getSecond()); //$NON-NLS-1$ //$NON-NLS-2$
+
+        // The call of Add() after the expression is not applied
+        assertEquals(List.of("Родитель"), getItems(computer, getRightExpr(module, 0, 8))); //$NON-NLS-1$
+        assertEquals(List.of("Родитель", "Ссылка"), //$NON-NLS-1$ //$NON-NLS-2$
+            getItems(computer, getRightExpr(module, 0, 10)));
+    }
+
+    @Test
+    public void testCyclesAreNotComputed() throws Exception
+    {
+        Module module = replaceModule(PATH_COMMON_MODULE_TEST, CYCLES);
+        ExpressionValueComputer computer = getInstance(ExpressionValueComputer.class);
+
+        // The self-referencing assignment in the loop
+        assertNull(getContent(module, 2));
+        assertTrue(computer.getExpressionContents(getRightExpr(module, 0, 2)).isEmpty());
+        // The mutually recursive functions
+        assertNull(getContent(module, 3));
+    }
+
+    @Test
+    public void testValueOfExpressionIsMemoized() throws Exception
+    {
+        Module module = replaceModule(PATH_COMMON_MODULE_TEST, CYCLES);
+        ExpressionValueComputer computer = getInstance(ExpressionValueComputer.class);
+        Expression expression = getRightExpr(module, 0, 4);
+
+        Pair<String, Collection<StringLiteral>> content = computer.getExpressionContent(expression);
+        assertEquals("Код, Родитель", content.getFirst()); //$NON-NLS-1$
+        assertSame(content, computer.getExpressionContent(expression));
+    }
+
+    @Test
+    public void testSummaryDoesNotDependOnOrderOfQueries() throws Exception
+    {
+        Module module = replaceModule(PATH_COMMON_MODULE_TEST, RECURSION);
+        ExpressionValueComputer computer = getInstance(ExpressionValueComputer.class);
+
+        // The call of the function that calls back the function being passed
+        assertNull(computer.getExpressionContent(getRightExpr(module, 2, 0)));
+        assertEquals("Код", getContent(module, 0)); //$NON-NLS-1$
+
+        module = replaceModule(PATH_COMMON_MODULE_TEST, RECURSION);
+        assertEquals("Код", getContent(module, 0)); //$NON-NLS-1$
+        assertNull(computer.getExpressionContent(getRightExpr(module, 2, 0)));
+        assertEquals("Код", getContent(module, 0)); //$NON-NLS-1$
+    }
+
+    @Test
+    public void testVariableAssignedInOneBranchIsUnknown() throws Exception
+    {
+        Module module = replaceModule(PATH_COMMON_MODULE_TEST, BRANCHES);
+
+        // The variable is not assigned when the condition is false
+        assertNull(getContent(module, 1));
+        assertTrue(getContents(module, 1).isEmpty());
+        // The value before the branch is joined with the value of the branch
+        assertEquals(Set.of("Код", "Наименование"), getContents(module, 4)); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    @Test
+    public void testValuesOfAllBranchesAreJoined() throws Exception
+    {
+        Module module = replaceModule(PATH_COMMON_MODULE_TEST, BRANCHES);
+
+        assertNull(getContent(module, 6));
+        assertEquals(Set.of("Код", "Родитель"), getContents(module, 6)); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    @Test
+    public void testVariableAssignedInLoopIsUnknownAfterLoop() throws Exception
+    {
+        Module module = replaceModule(PATH_COMMON_MODULE_TEST, BRANCHES);
+
+        // The body of the loop may be not executed
+        assertNull(getContent(module, 8));
+        assertTrue(getContents(module, 8).isEmpty());
+    }
+
+    @Test
+    public void testChangingValueInLoopIsWidened() throws Exception
+    {
+        Module module = replaceModule(PATH_COMMON_MODULE_TEST, BRANCHES);
+
+        assertTrue(getContents(module, 12).isEmpty());
+        // The value that is not changed in the loop is kept
+        assertEquals(", ", getContent(module, 13)); //$NON-NLS-1$
+    }
+
+    @Test
+    public void testBranchThatReturnsIsNotJoined() throws Exception
+    {
+        Module module = replaceModule(PATH_COMMON_MODULE_TEST, RETURNS);
+
+        // The Else part ends with Return, so only the If part reaches the expression
+        assertEquals("Код", getContent(module, 1)); //$NON-NLS-1$
+        assertEquals(Set.of("Код"), getContents(module, 1)); //$NON-NLS-1$
+    }
+
+    @Test
+    public void testInsertIntoParameterChecksTypeOfParameter() throws Exception
+    {
+        Module module = replaceModule(PATH_COMMON_MODULE_TEST, RETURNS);
+        ExpressionValueComputer computer = getInstance(ExpressionValueComputer.class);
+
+        assertEquals(Set.of("Родитель"), //$NON-NLS-1$
+            computer.getStructureExpressionContent(getRightExpr(module, 0, 4)).keySet());
+        // The Map parameter is not a structure
+        assertTrue(computer.getStructureExpressionContent(getRightExpr(module, 0, 5)).isEmpty());
+    }
+
+    private List<String> getItems(ExpressionValueComputer computer, Expression expression)
+    {
+        List<String> result = new ArrayList<>();
+        for (Pair<String, StringLiteral> item : computer.getArrayExpressionContent(expression))
+            result.add(item.getFirst());
+        return result;
+    }
+
+    private Set<String> getContents(Module module, int statementIndex)
+    {
+        ExpressionValueComputer computer = getInstance(ExpressionValueComputer.class);
+        Set<String> result = new HashSet<>();
+        for (Pair<String, Collection<StringLiteral>> content : computer
+            .getExpressionContents(getRightExpr(module, 0, statementIndex)))
+            result.add(content.getFirst());
+        return result;
+    }
+
+    private String getContent(Module module, int statementIndex)
+    {
+        ExpressionValueComputer computer = getInstance(ExpressionValueComputer.class);
+        Pair<String, Collection<StringLiteral>> content =
+            computer.getExpressionContent(getRightExpr(module, 0, statementIndex));
+        return content == null ? null : content.getFirst();
+    }
+}
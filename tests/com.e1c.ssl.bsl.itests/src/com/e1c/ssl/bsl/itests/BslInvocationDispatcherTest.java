@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (C) 2022, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.ssl.bsl.itests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+
+import org.junit.Test;
+
+import com._1c.g5.v8.dt.bsl.model.Expression;
+import com._1c.g5.v8.dt.bsl.model.Invocation;
+import com._1c.g5.v8.dt.bsl.model.Module;
+import com.e1c.ssl.bsl.CommonFunctionCommonModuleManagerTypesComputer;
+import com.e1c.ssl.bsl.CommonFunctionTypesComputer;
+import com.e1c.ssl.bsl.InvocationDispatcher;
+import com.e1c.ssl.bsl.InvocationDispatcher.Route;
+import com.e1c.ssl.internal.bsl.itests.BslCommonModuleTestCaseBase;
+
+/**
+ * Tests for the dispatch table of invocations of 1C:SSL API module functions.
+ *
+ * @author Dmitriy Marmyshev
+ */
+public class BslInvocationDispatcherTest
+    extends BslCommonModuleTestCaseBase
+{
+
+    private static final String DISPATCHER = "common-functions/dispatcher.bsl"; //$NON-NLS-1$
+
+    @Test
+    public void testRouteByModuleAndFunctionName() throws Exception
+    {
+        Module module = replaceModule(PATH_COMMON_MODULE_TEST, DISPATCHER);
+        InvocationDispatcher dispatcher = getInstance(InvocationDispatcher.class);
+
+        for (int i = 0; i < 3; i++)
+        {
+            Route route = dispatcher.getRoute(getInvocation(module, i));
+            assertNotNull(route);
+            assertEquals(CommonFunctionCommonModuleManagerTypesComputer.class, route.getComputerClass());
+            assertEquals("CommonModule", route.getName()); //$NON-NLS-1$
+        }
+    }
+
+    @Test
+    public void testNotRoutedInvocations() throws Exception
+    {
+        Module module = replaceModule(PATH_COMMON_MODULE_TEST, DISPATCHER);
+        InvocationDispatcher dispatcher = getInstance(InvocationDispatcher.class);
+
+        // The function of another module
+        assertNull(dispatcher.getRoute(getInvocation(module, 3)));
+        // Wrong number of parameters
+        assertNull(dispatcher.getRoute(getInvocation(module, 4)));
+        // The function that is not 1C:SSL API function
+        assertNull(dispatcher.getRoute(getInvocation(module, 5)));
+    }
+
+    @Test
+    public void testDispatchingComputer() throws Exception
+    {
+        Module module = replaceModule(PATH_COMMON_MODULE_TEST, DISPATCHER);
+        InvocationDispatcher dispatcher = getInstance(InvocationDispatcher.class);
+        CommonFunctionTypesComputer computer = getInstance(CommonFunctionTypesComputer.class);
+
+        dispatcher.resetStatistics();
+        assertEquals(Set.of("CommonModule.УсловныйМодуль"), //$NON-NLS-1$
+            getTypeNames(computer.getTypes(getInvocation(module, 0))));
+        assertEquals(1L, (long)dispatcher.getStatistics().get("Common.CommonModule")); //$NON-NLS-1$
+        assertEquals(0, dispatcher.getRejectedCount());
+
+        assertTrue(computer.getTypes(getInvocation(module, 3)).isEmpty());
+        assertEquals(1, dispatcher.getRejectedCount());
+    }
+
+    private Invocation getInvocation(Module module, int statementIndex)
+    {
+        Expression expr = getRightExpr(module, 0, statementIndex);
+        assertTrue(expr instanceof Invocation);
+        return (Invocation)expr;
+    }
+}
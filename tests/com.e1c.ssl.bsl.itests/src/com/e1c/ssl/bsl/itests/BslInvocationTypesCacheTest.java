@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (C) 2022, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.ssl.bsl.itests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com._1c.g5.v8.dt.bsl.model.Expression;
+import com._1c.g5.v8.dt.bsl.model.Invocation;
+import com._1c.g5.v8.dt.bsl.model.Module;
+import com._1c.g5.v8.dt.mcore.Property;
+import com._1c.g5.v8.dt.mcore.Type;
+import com._1c.g5.v8.dt.mcore.TypeItem;
+import com.e1c.ssl.bsl.CommonFunctionObjectAttributeValueTypesComputer;
+import com.e1c.ssl.bsl.InvocationTypesCache;
+import com.e1c.ssl.internal.bsl.itests.BslCommonModuleTestCaseBase;
+
+/**
+ * Tests for the cache of types of invocations of 1C:SSL API module functions.
+ *
+ * @author Dmitriy Marmyshev
+ */
+public class BslInvocationTypesCacheTest
+    extends BslCommonModuleTestCaseBase
+{
+
+    private static final String CATALOG_PRODUCTS = "CatalogRef.Товары"; //$NON-NLS-1$
+
+    private static final String CATALOG_SUPPLIERS = "CatalogRef.Поставщики"; //$NON-NLS-1$
+
+    private static final String CALLER = "common-functions/cache-argument-types.bsl"; //$NON-NLS-1$
+
+    private static final String CALLEE_PRODUCTS = "common-functions/cache-callee-products.bsl"; //$NON-NLS-1$
+
+    private static final String CALLEE_SUPPLIERS = "common-functions/cache-callee-suppliers.bsl"; //$NON-NLS-1$
+
+    private static final String CALLER_VALUE = "common-functions/cache-callee-value.bsl"; //$NON-NLS-1$
+
+    private static final String CALLEE_CODE = "common-functions/cache-callee-code.bsl"; //$NON-NLS-1$
+
+    private static final String CALLEE_NAME = "common-functions/cache-callee-name.bsl"; //$NON-NLS-1$
+
+    @Test
+    public void testSameArgumentTypesAreCached() throws Exception
+    {
+        replaceModule(PATH_COMMON_MODULE_CONDITIONAL, CALLEE_PRODUCTS);
+        Module module = replaceModule(PATH_COMMON_MODULE_TEST, CALLER);
+        Invocation inv = getInvocation(module);
+
+        InvocationTypesCache cache = getInstance(InvocationTypesCache.class);
+        CommonFunctionObjectAttributeValueTypesComputer computer =
+            getInstance(CommonFunctionObjectAttributeValueTypesComputer.class);
+
+        assertEquals(Set.of(CATALOG_PRODUCTS), getTypeNames(computer.getTypes(inv)));
+        long hits = cache.getHitCount();
+        long misses = cache.getMissCount();
+
+        assertEquals(Set.of(CATALOG_PRODUCTS), getTypeNames(computer.getTypes(inv)));
+        assertEquals(hits + 1, cache.getHitCount());
+        assertEquals(misses, cache.getMissCount());
+    }
+
+    @Test
+    public void testChangedArgumentTypesAreComputed() throws Exception
+    {
+        replaceModule(PATH_COMMON_MODULE_CONDITIONAL, CALLEE_PRODUCTS);
+        Module module = replaceModule(PATH_COMMON_MODULE_TEST, CALLER);
+        Invocation inv = getInvocation(module);
+
+        CommonFunctionObjectAttributeValueTypesComputer computer =
+            getInstance(CommonFunctionObjectAttributeValueTypesComputer.class);
+        assertEquals(Set.of(CATALOG_PRODUCTS), getTypeNames(computer.getTypes(inv)));
+
+        // The text of the caller is not changed, only the type of the argument is changed
+        replaceModule(PATH_COMMON_MODULE_CONDITIONAL, CALLEE_SUPPLIERS);
+        module = getBslModule(PROJECT_NAME, PATH_COMMON_MODULE_TEST);
+        inv = getInvocation(module);
+
+        assertEquals(Set.of(CATALOG_SUPPLIERS), getTypeNames(computer.getTypes(inv)));
+        assertEquals(Set.of(CATALOG_SUPPLIERS), getTypeNames(computeTypes(inv)));
+    }
+
+    @Test
+    public void testChangedCalleeValueIsComputed() throws Exception
+    {
+        replaceModule(PATH_COMMON_MODULE_CONDITIONAL, CALLEE_CODE);
+        Module module = replaceModule(PATH_COMMON_MODULE_TEST, CALLER_VALUE);
+        assertEquals(Set.of("Код"), getPropertyNames(computeTypes(getRightExpr(module, 0, 0)))); //$NON-NLS-1$
+
+        // The text of the caller and the type of the argument are not changed, only the returned value is changed
+        replaceModule(PATH_COMMON_MODULE_CONDITIONAL, CALLEE_NAME);
+        module = getBslModule(PROJECT_NAME, PATH_COMMON_MODULE_TEST);
+        assertEquals(Set.of("Наименование"), //$NON-NLS-1$
+            getPropertyNames(computeTypes(getRightExpr(module, 0, 0))));
+    }
+
+    private Set<String> getPropertyNames(List<TypeItem> types)
+    {
+        assertEquals(1, types.size());
+        assertTrue(types.get(0) instanceof Type);
+        Set<String> result = new HashSet<>();
+        for (Property property : ((Type)types.get(0)).getContextDef().getProperties())
+            result.add(property.getNameRu());
+        return result;
+    }
+
+    private Invocation getInvocation(Module module)
+    {
+        Expression expr = getRightExpr(module, 0, 1);
+        assertTrue(expr instanceof Invocation);
+        return (Invocation)expr;
+    }
+}
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (C) 2022, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.ssl.bsl.itests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.xtext.util.Tuples;
+import org.junit.Test;
+
+import com._1c.g5.v8.dt.bsl.model.Module;
+import com._1c.g5.v8.dt.mcore.TypeItem;
+import com.e1c.ssl.bsl.MetadataDependencies;
+import com.e1c.ssl.bsl.TypePropertiesCache;
+import com.e1c.ssl.internal.bsl.itests.BslCommonModuleTestCaseBase;
+
+/**
+ * Tests for invalidation of caches by changes of metadata objects in {@link MetadataDependencies}.
+ *
+ * @author Dmitriy Marmyshev
+ */
+public class BslMetadataDependenciesTest
+    extends BslCommonModuleTestCaseBase
+{
+
+    private static final String CATALOG_PRODUCTS = "catalog.товары"; //$NON-NLS-1$
+
+    private static final String DOCUMENT_PRODUCTS = "document.товары"; //$NON-NLS-1$
+
+    private static final String CALLER = "common-functions/cache-argument-types.bsl"; //$NON-NLS-1$
+
+    private static final String CALLEE_PRODUCTS = "common-functions/cache-callee-products.bsl"; //$NON-NLS-1$
+
+    @Test
+    public void testDependentsOfObjectsOfOtherClassesAreNotInvalidated() throws Exception
+    {
+        Module module = getBslModule(PROJECT_NAME, PATH_COMMON_MODULE_TEST);
+        MetadataDependencies dependencies = getInstance(MetadataDependencies.class);
+
+        RecordingDependent catalog = new RecordingDependent();
+        RecordingDependent document = new RecordingDependent();
+        dependencies.addDependent(dependencies.getKey(module, CATALOG_PRODUCTS), catalog);
+        dependencies.addDependent(dependencies.getKey(module, DOCUMENT_PRODUCTS), document);
+
+        dependencies.invalidate(project, CATALOG_PRODUCTS);
+        assertEquals(List.of(CATALOG_PRODUCTS), catalog.names);
+        assertTrue(document.names.isEmpty());
+    }
+
+    @Test
+    public void testDependentsOfOtherProjectsAreNotInvalidated() throws Exception
+    {
+        IProject other = project.getWorkspace().getRoot().getProject("Other"); //$NON-NLS-1$
+        MetadataDependencies dependencies = getInstance(MetadataDependencies.class);
+
+        RecordingDependent dependent = new RecordingDependent();
+        dependencies.addDependent(Tuples.create(other, CATALOG_PRODUCTS), dependent);
+
+        dependencies.invalidate(project, CATALOG_PRODUCTS);
+        assertTrue(dependent.names.isEmpty());
+
+        dependencies.invalidate(other, CATALOG_PRODUCTS);
+        assertEquals(List.of(CATALOG_PRODUCTS), dependent.names);
+    }
+
+    @Test
+    public void testAllDependentsOfProjectAreInvalidated() throws Exception
+    {
+        IProject other = project.getWorkspace().getRoot().getProject("Other"); //$NON-NLS-1$
+        MetadataDependencies dependencies = getInstance(MetadataDependencies.class);
+
+        RecordingDependent catalog = new RecordingDependent();
+        RecordingDependent document = new RecordingDependent();
+        RecordingDependent otherCatalog = new RecordingDependent();
+        dependencies.addDependent(Tuples.create(project, CATALOG_PRODUCTS), catalog);
+        dependencies.addDependent(Tuples.create(project, DOCUMENT_PRODUCTS), document);
+        dependencies.addDependent(Tuples.create(other, CATALOG_PRODUCTS), otherCatalog);
+
+        dependencies.invalidate(project);
+        assertEquals(List.of(CATALOG_PRODUCTS), catalog.names);
+        assertEquals(List.of(DOCUMENT_PRODUCTS), document.names);
+        assertTrue(otherCatalog.names.isEmpty());
+    }
+
+    @Test
+    public void testDependentsOfClosedProjectAreRemoved() throws Exception
+    {
+        IProject other = project.getWorkspace().getRoot().getProject("Other"); //$NON-NLS-1$
+        MetadataDependencies dependencies = getInstance(MetadataDependencies.class);
+
+        RecordingDependent dependent = new RecordingDependent();
+        dependencies.addDependent(Tuples.create(other, CATALOG_PRODUCTS), dependent);
+
+        dependencies.clearProject(other);
+        dependencies.invalidate(other, CATALOG_PRODUCTS);
+        assertTrue(dependent.names.isEmpty());
+    }
+
+    @Test
+    public void testComputedDependentDependsOnPropertiesOfType() throws Exception
+    {
+        replaceModule(PATH_COMMON_MODULE_CONDITIONAL, CALLEE_PRODUCTS);
+        Module module = replaceModule(PATH_COMMON_MODULE_TEST, CALLER);
+        List<TypeItem> types = computeTypes(getRightExpr(module, 0, 0));
+        assertEquals(1, types.size());
+
+        MetadataDependencies dependencies = getInstance(MetadataDependencies.class);
+        TypePropertiesCache cache = getInstance(TypePropertiesCache.class);
+
+        RecordingDependent dependent = new RecordingDependent();
+        dependencies.compute(dependent, () -> cache.getPropertyIndexes(types, module.eResource()));
+        RecordingDependent cached = new RecordingDependent();
+        dependencies.compute(cached, () -> cache.getPropertyIndexes(types, module.eResource()));
+
+        dependencies.invalidate(project, DOCUMENT_PRODUCTS);
+        assertTrue(dependent.names.isEmpty());
+
+        // The properties taken from the cache give the same dependency
+        dependencies.invalidate(project, CATALOG_PRODUCTS);
+        assertEquals(List.of(CATALOG_PRODUCTS), dependent.names);
+        assertEquals(List.of(CATALOG_PRODUCTS), cached.names);
+    }
+
+    private static final class RecordingDependent
+        implements MetadataDependencies.Dependent
+    {
+        private final List<String> names = new ArrayList<>();
+
+        @Override
+        public void invalidate(String name)
+        {
+            names.add(name);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright (C) 2022, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.ssl.bsl.itests;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com._1c.g5.v8.dt.bsl.model.Expression;
+import com._1c.g5.v8.dt.bsl.model.Module;
+import com.e1c.ssl.bsl.SslModuleIndex;
+import com.e1c.ssl.internal.bsl.itests.BslCommonModuleTestCaseBase;
+
+/**
+ * Tests for exported methods of common modules in {@link SslModuleIndex}.
+ *
+ * @author Dmitriy Marmyshev
+ */
+public class BslSslModuleIndexTest
+    extends BslCommonModuleTestCaseBase
+{
+
+    private static final String CALLER = "common-functions/cache-argument-types.bsl"; //$NON-NLS-1$
+
+    private static final String CALLEE_PRODUCTS = "common-functions/cache-callee-products.bsl"; //$NON-NLS-1$
+
+    private static final String CALLEE_CODE = "common-functions/cache-callee-code.bsl"; //$NON-NLS-1$
+
+    private static final String MODULE_NAME = "УсловныйМодуль"; //$NON-NLS-1$
+
+    private static final String ATTRIBUTES = "Реквизиты"; //$NON-NLS-1$
+
+    private static final String GET_REF = "ПолучитьСсылку"; //$NON-NLS-1$
+
+    @Test
+    public void testNewExportedMethodIsAvailable() throws Exception
+    {
+        replaceModule(PATH_COMMON_MODULE_CONDITIONAL, CALLEE_PRODUCTS);
+        Module module = replaceModule(PATH_COMMON_MODULE_TEST, CALLER);
+        Expression context = getRightExpr(module, 0, 0);
+
+        SslModuleIndex index = getInstance(SslModuleIndex.class);
+        assertTrue(index.isExported(context, MODULE_NAME, GET_REF));
+        assertFalse(index.isExported(context, MODULE_NAME, ATTRIBUTES));
+
+        // Only the text of the module is changed, the common module itself is not added or removed
+        replaceModule(PATH_COMMON_MODULE_CONDITIONAL, CALLEE_CODE);
+        module = getBslModule(PROJECT_NAME, PATH_COMMON_MODULE_TEST);
+        context = getRightExpr(module, 0, 0);
+
+        assertTrue(index.isExported(context, MODULE_NAME, ATTRIBUTES));
+        assertFalse(index.isExported(context, MODULE_NAME, GET_REF));
+    }
+
+    @Test
+    public void testUnknownModuleIsNotExporting() throws Exception
+    {
+        Module module = replaceModule(PATH_COMMON_MODULE_TEST, CALLER);
+        Expression context = getRightExpr(module, 0, 0);
+
+        SslModuleIndex index = getInstance(SslModuleIndex.class);
+        assertTrue(index.getExportedMethods(context, "НеизвестныйМодуль").isEmpty()); //$NON-NLS-1$
+    }
+}
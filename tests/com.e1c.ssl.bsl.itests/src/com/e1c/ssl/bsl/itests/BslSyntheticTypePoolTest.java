@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright (C) 2022, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.ssl.bsl.itests;
+
+import static com._1c.g5.v8.dt.platform.IEObjectTypeNames.FIXED_STRUCTURE;
+import static com._1c.g5.v8.dt.platform.IEObjectTypeNames.STRUCTURE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com._1c.g5.v8.dt.bsl.model.Module;
+import com._1c.g5.v8.dt.mcore.Property;
+import com._1c.g5.v8.dt.mcore.Type;
+import com._1c.g5.v8.dt.mcore.TypeItem;
+import com._1c.g5.v8.dt.mcore.util.McoreUtil;
+import com.e1c.ssl.bsl.SyntheticTypePool;
+import com.e1c.ssl.internal.bsl.itests.BslCommonModuleTestCaseBase;
+
+/**
+ * Tests for types shared by invocations in {@link SyntheticTypePool}.
+ *
+ * @author Dmitriy Marmyshev
+ */
+public class BslSyntheticTypePoolTest
+    extends BslCommonModuleTestCaseBase
+{
+
+    private static final String POOL = "common-functions/synthetic-type-pool.bsl"; //$NON-NLS-1$
+
+    @Test
+    public void testEqualStructuresAreShared() throws Exception
+    {
+        Module module = replaceModule(PATH_COMMON_MODULE_TEST, POOL);
+
+        Type first = getType(computeTypes(getRightExpr(module, 0, 0)), STRUCTURE);
+        Type second = getType(computeTypes(getRightExpr(module, 0, 1)), STRUCTURE);
+        assertSame(first, second);
+    }
+
+    @Test
+    public void testPooledTypeIsNotChangedByTransformation() throws Exception
+    {
+        Module module = replaceModule(PATH_COMMON_MODULE_TEST, POOL);
+
+        Type pooled = getType(computeTypes(getRightExpr(module, 0, 0)), STRUCTURE);
+        List<Property> properties = new ArrayList<>(pooled.getContextDef().getProperties());
+        assertEquals(2, properties.size());
+
+        Type fixed = getType(computeTypes(getRightExpr(module, 0, 2)), FIXED_STRUCTURE);
+        assertEquals(2, fixed.getContextDef().getProperties().size());
+        for (Property property : fixed.getContextDef().getProperties())
+            assertTrue(!property.isWritable());
+
+        assertEquals(properties, pooled.getContextDef().getProperties());
+        for (Property property : pooled.getContextDef().getProperties())
+            assertTrue(property.isWritable());
+    }
+
+    private Type getType(List<TypeItem> types, String typeName)
+    {
+        assertEquals(1, types.size());
+        assertTrue(types.get(0) instanceof Type);
+        assertEquals(typeName, McoreUtil.getTypeName(types.get(0)));
+        return (Type)types.get(0);
+    }
+}
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (C) 2022, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.ssl.bsl.itests;
+
+import static com._1c.g5.v8.dt.platform.IEObjectTypeNames.FIXED_MAP;
+import static com._1c.g5.v8.dt.platform.IEObjectTypeNames.MAP;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com._1c.g5.v8.dt.bsl.model.Invocation;
+import com._1c.g5.v8.dt.bsl.model.Module;
+import com._1c.g5.v8.dt.mcore.TypeItem;
+import com._1c.g5.v8.dt.mcore.util.McoreUtil;
+import com.e1c.ssl.internal.bsl.itests.BslCommonModuleTestCaseBase;
+
+/**
+ * Tests for transformations of collection types to FIXED types and back by {@code Common.CopyRecursive()}.
+ *
+ * @author Dmitriy Marmyshev
+ */
+public class BslTypeTransformationTest
+    extends BslCommonModuleTestCaseBase
+{
+
+    private static final String COPY_MAP = "common-functions/copy-recursive-map.bsl"; //$NON-NLS-1$
+
+    @Test
+    public void testTypeInTargetFormIsNotTransformed() throws Exception
+    {
+        Module module = replaceModule(PATH_COMMON_MODULE_TEST, COPY_MAP);
+        Invocation inv = (Invocation)getRightExpr(module, 0, 2);
+
+        List<TypeItem> sourceTypes = computeTypes(inv.getParams().get(0));
+        assertEquals(1, sourceTypes.size());
+        assertEquals(MAP, McoreUtil.getTypeName(sourceTypes.get(0)));
+
+        List<TypeItem> types = computeTypes(inv);
+        assertEquals(1, types.size());
+        assertSame(sourceTypes.get(0), types.get(0));
+    }
+
+    @Test
+    public void testTypeIsTransformed() throws Exception
+    {
+        Module module = replaceModule(PATH_COMMON_MODULE_TEST, COPY_MAP);
+        assertTrue(getRightExpr(module, 0, 3) instanceof Invocation);
+
+        List<TypeItem> types = computeTypes(getRightExpr(module, 0, 3));
+        assertEquals(1, types.size());
+        assertEquals(FIXED_MAP, McoreUtil.getTypeName(types.get(0)));
+    }
+}
@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (C) 2022, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.ssl.internal.bsl.itests;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.xtext.EcoreUtil2;
+import org.eclipse.xtext.resource.IResourceServiceProvider;
+import org.eclipse.xtext.util.StringInputStream;
+import org.junit.After;
+import org.junit.Before;
+
+import com._1c.g5.v8.dt.bsl.model.Expression;
+import com._1c.g5.v8.dt.bsl.model.Method;
+import com._1c.g5.v8.dt.bsl.model.Module;
+import com._1c.g5.v8.dt.bsl.model.SimpleStatement;
+import com._1c.g5.v8.dt.bsl.model.Statement;
+import com._1c.g5.v8.dt.bsl.resource.TypesComputer;
+import com._1c.g5.v8.dt.core.operations.ProjectPipelineJob;
+import com._1c.g5.v8.dt.core.platform.IDtProject;
+import com._1c.g5.v8.dt.core.platform.IDtProjectManager;
+import com._1c.g5.v8.dt.core.platform.IWorkspaceOrchestrator;
+import com._1c.g5.v8.dt.mcore.Environmental;
+import com._1c.g5.v8.dt.mcore.TypeItem;
+import com._1c.g5.v8.dt.mcore.util.McoreUtil;
+import com._1c.g5.wiring.ServiceAccess;
+import com.e1c.ssl.bsl.internal.BslPlugin;
+
+/**
+ * Base class for tests of caches of 1C:SSL API module functions in the project "CommonFunctions". The test replaces
+ * contents of common modules of the project with files from the folder "resources", and all replaced modules are
+ * restored after the test.
+ *
+ * @author Dmitriy Marmyshev
+ */
+public abstract class BslCommonModuleTestCaseBase
+    extends BslIdeTestCaseBase
+{
+
+    protected static final String PROJECT_NAME = "CommonFunctions"; //$NON-NLS-1$
+
+    protected static final String PATH_COMMON_MODULE_TEST =
+        "/src/CommonModules/ТестовыйМодуль/Module.bsl"; //$NON-NLS-1$
+
+    protected static final String PATH_COMMON_MODULE_CONDITIONAL =
+        "/src/CommonModules/УсловныйМодуль/Module.bsl"; //$NON-NLS-1$
+
+    protected static final String FOLDER_NAME = "./resources/"; //$NON-NLS-1$
+
+    protected IProject project;
+
+    protected TypesComputer typesComputer;
+
+    private final Map<IFile, String> oldContents = new LinkedHashMap<>();
+
+    protected BslCommonModuleTestCaseBase()
+    {
+        super(false, false);
+    }
+
+    /**
+     * Builds project for test
+     * @throws Exception
+     */
+    @Before
+    public void initTestProjects() throws Exception
+    {
+        project = testingWorkspace.getWorkspaceRoot().getProject(PROJECT_NAME);
+        if (!project.isAccessible())
+        {
+            initProject(PROJECT_NAME);
+        }
+    }
+
+    @After
+    public void afterTest() throws Exception
+    {
+        for (Map.Entry<IFile, String> entry : oldContents.entrySet())
+        {
+            try (InputStream stream = new StringInputStream(entry.getValue(), StandardCharsets.UTF_8.name()))
+            {
+                updateFileContent(entry.getKey(), stream);
+            }
+        }
+        oldContents.clear();
+    }
+
+    @Override
+    protected void initilizeSpecialServicesByRSP(IResourceServiceProvider rsp)
+    {
+        typesComputer = rsp.get(TypesComputer.class);
+        assertNotNull(typesComputer);
+    }
+
+    /**
+     * Gets the instance of the service of the bundle "com.e1c.ssl.bsl".
+     *
+     * @param <T> the type of the service
+     * @param type the class of the service, cannot be {@code null}.
+     * @return the instance of the service, never {@code null}.
+     */
+    protected <T> T getInstance(Class<T> type)
+    {
+        return BslPlugin.getDefault().getInjector().getInstance(type);
+    }
+
+    /**
+     * Replaces the content of the module with the file from the folder "resources", the old content is restored
+     * after the test.
+     *
+     * @param modulePath the path of the module in the project, cannot be {@code null}.
+     * @param fileName the name of the file in the folder "resources", cannot be {@code null}.
+     * @return the module with the new content, never {@code null}.
+     * @throws Exception the exception
+     */
+    protected Module replaceModule(String modulePath, String fileName) throws Exception
+    {
+        IFile file = project.getFile(Path.fromPortableString(modulePath));
+        if (!oldContents.containsKey(file))
+        {
+            try (BufferedReader reader =
+                new BufferedReader(new InputStreamReader(file.getContents(true), StandardCharsets.UTF_8)))
+            {
+                oldContents.put(file, reader.lines().collect(Collectors.joining("\n"))); //$NON-NLS-1$
+            }
+        }
+
+        try (InputStream stream = new FileInputStream(new File(FOLDER_NAME + fileName)))
+        {
+            updateFileContent(file, stream);
+        }
+        return getBslModule(PROJECT_NAME, modulePath);
+    }
+
+    /**
+     * Gets the right expression of the statement of the method of the test module.
+     *
+     * @param module the module, cannot be {@code null}.
+     * @param methodIndex the index of the method in the module
+     * @param statementIndex the index of the statement in the method
+     * @return the right expression, never {@code null}.
+     */
+    protected Expression getRightExpr(Module module, int methodIndex, int statementIndex)
+    {
+        Method method = module.allMethods().get(methodIndex);
+        Statement statement = method.getStatements().get(statementIndex);
+        assertTrue(statement instanceof SimpleStatement);
+        return ((SimpleStatement)statement).getRight();
+    }
+
+    /**
+     * Computes types of the expression in its environments.
+     *
+     * @param expr the expression, cannot be {@code null}.
+     * @return the types, never {@code null}.
+     */
+    protected List<TypeItem> computeTypes(Expression expr)
+    {
+        Environmental envs = EcoreUtil2.getContainerOfType(expr, Environmental.class);
+        return typesComputer.computeTypes(expr, envs.environments());
+    }
+
+    /**
+     * Gets names of types.
+     *
+     * @param types the types, cannot be {@code null}.
+     * @return the sorted names of types, never {@code null}.
+     */
+    protected Set<String> getTypeNames(List<TypeItem> types)
+    {
+        Set<String> result = new TreeSet<>();
+        for (TypeItem type : types)
+            result.add(McoreUtil.getTypeName(type));
+        return result;
+    }
+
+    private void updateFileContent(IFile file, InputStream stream) throws Exception
+    {
+        // Protection from some building inconsistency that occurs if we are placing the change between the build
+        // and started process of full BSL module check. In this case the builder cannot compute module dependencies
+        // properly for small and fast test configurations
+        IWorkspaceOrchestrator orchestrator = ServiceAccess.get(IWorkspaceOrchestrator.class);
+        IDtProject dtProject = ServiceAccess.get(IDtProjectManager.class).getDtProject(project);
+
+        Object handle = orchestrator.beginExclusiveOperation("Wait until full check", //$NON-NLS-1$
+            Collections.singleton(dtProject), ProjectPipelineJob.AFTER_BUILD_DD);
+        orchestrator.endOperation(handle);
+
+        file.setContents(stream, true, false, null);
+        Thread.sleep(1500);
+
+        testingWorkspace.waitForBuildCompletion();
+    }
+}